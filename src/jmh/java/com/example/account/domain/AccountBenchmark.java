@@ -0,0 +1,33 @@
+package com.example.account.domain;
+
+import com.example.account.type.AccountStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class AccountBenchmark {
+    private Account account;
+
+    @Setup
+    public void setUp() {
+        account = Account.builder()
+                .accountNumber("1000000000")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(Long.MAX_VALUE / 2)
+                .build();
+    }
+
+    @Benchmark
+    public Long useBalance() {
+        account.useBalance(1L);
+        return account.getBalance();
+    }
+
+    @Benchmark
+    public Long cancelBalance() {
+        account.cancelBalance(1L);
+        return account.getBalance();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.account.dto;
+
+import com.example.account.config.JacksonConfig;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * Uses the same builder defaults as the Spring MVC message converter, with ISO dates
+ * like Spring Boot. The {@code tuned*} benchmarks add the modules of {@link JacksonConfig}.
+ */
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    private ObjectMapper objectMapper;
+    private ObjectMapper tunedObjectMapper;
+    private UseBalance.Response response;
+    private CancelBalance.Response cancelResponse;
+    private QueryTransactionResponse queryResponse;
+    private ErrorResponse errorResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        JacksonConfig jacksonConfig = new JacksonConfig();
+        tunedObjectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(jacksonConfig.blackbirdModule(), jacksonConfig.localDateTimeModule())
+                .build();
+
+        LocalDateTime transactedAt = LocalDateTime.now();
+        response = new UseBalance.Response("1000000000", S, "0123456789abcdef0123456789abcdef", 1000L, transactedAt);
+        cancelResponse = new CancelBalance.Response("1000000000", S, "0123456789abcdef0123456789abcdef", 1000L, transactedAt);
+        queryResponse = new QueryTransactionResponse("1000000000", USE, S, 1000L, "0123456789abcdef0123456789abcdef", transactedAt);
+        errorResponse = ErrorResponse.of(ErrorCode.AMOUNT_EXCEED_BALANCE);
+    }
+
+    @Benchmark
+    public byte[] useBalanceResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] errorResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(errorResponse);
+    }
+
+    @Benchmark
+    public byte[] tunedUseBalanceResponse() throws JsonProcessingException {
+        return tunedObjectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] cancelBalanceResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cancelResponse);
+    }
+
+    @Benchmark
+    public byte[] tunedCancelBalanceResponse() throws JsonProcessingException {
+        return tunedObjectMapper.writeValueAsBytes(cancelResponse);
+    }
+
+    @Benchmark
+    public byte[] queryTransactionResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(queryResponse);
+    }
+
+    @Benchmark
+    public byte[] tunedQueryTransactionResponse() throws JsonProcessingException {
+        return tunedObjectMapper.writeValueAsBytes(queryResponse);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.account.engine;
+
+import com.example.account.archive.TransactionArchive;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.TransactionDto;
+import com.example.account.journal.BalanceJournal;
+import com.example.account.journal.FsyncPolicy;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.ClockService;
+import com.example.account.service.TransactionService;
+import com.example.account.type.AccountStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Use commands through the ring buffer and the single consumer, with and without the
+ * write-ahead journal. Persistence goes to a stub, so the score is the engine alone.
+ */
+@State(Scope.Benchmark)
+public class BalanceEngineBenchmark {
+    @Param({"false", "true"})
+    public boolean journaled;
+
+    private Path directory;
+    private AccountStateStore accountStateStore;
+    private BalanceJournal balanceJournal;
+    private BalanceEngine balanceEngine;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        // stubOnly: invocations are not recorded, so memory stays flat over a long run
+        AccountRepository accountRepository = mock(AccountRepository.class, withSettings().stubOnly());
+        TransactionRepository transactionRepository = mock(TransactionRepository.class, withSettings().stubOnly());
+        TransactionArchive transactionArchive = mock(TransactionArchive.class, withSettings().stubOnly());
+        TransactionService transactionService = mock(TransactionService.class, withSettings().stubOnly());
+        given(accountRepository.findByAccountStatus(AccountStatus.IN_USE))
+                .willReturn(List.of(Account.builder()
+                        .accountNumber("1000000000")
+                        .accountUser(AccountUser.builder().id(1L).name("benchmark").build())
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(Long.MAX_VALUE / 2)
+                        .build()));
+
+        directory = Files.createTempDirectory("engine-benchmark");
+        accountStateStore = new AccountStateStore(directory.resolve("account-state.dat"));
+        ObjectProvider<BalanceJournal> journalProvider = mock(ObjectProvider.class, withSettings().stubOnly());
+        if (journaled) {
+            balanceJournal = new BalanceJournal(directory.resolve("journal"), 64 * 1024 * 1024, FsyncPolicy.BATCH, 64);
+            given(journalProvider.getIfAvailable()).willReturn(balanceJournal);
+        }
+        balanceEngine = new BalanceEngine(accountRepository, transactionRepository, transactionArchive, transactionService,
+                accountStateStore, journalProvider, new ClockService(Duration.ofMillis(1)), 65536, 256);
+        balanceEngine.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        balanceEngine.stop();
+        accountStateStore.close();
+        if (balanceJournal != null) {
+            balanceJournal.close();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public TransactionDto useBalance() {
+        return balanceEngine.useBalance(1L, "1000000000", 1L);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public TransactionDto useBalanceContended() {
+        return balanceEngine.useBalance(1L, "1000000000", 1L);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.account.exception;
+
+import com.example.account.dto.ErrorResponse;
+import com.example.account.type.ErrorCode;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * The business-error path from throw to the response body, without the servlet stack.
+ * {@link #throwWithStackTraceAndHandle} is the path as it was before: an exception that
+ * captures its stack trace and a new {@link ErrorResponse} per error. The stack here is the
+ * benchmark's, a few frames deep, so capturing one under a request costs more still.
+ */
+public class ErrorPathBenchmark {
+    @Benchmark
+    public ErrorResponse throwAndHandle() {
+        try {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        } catch (AccountException e) {
+            return ErrorResponse.of(e.getErrorCode(), e.getErrorMessage());
+        }
+    }
+
+    @Benchmark
+    public ErrorResponse throwWithStackTraceAndHandle() {
+        try {
+            throw new StackTraceAccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        } catch (StackTraceAccountException e) {
+            return new ErrorResponse(e.errorCode, e.errorMessage);
+        }
+    }
+
+    /**
+     * {@link AccountException} with the stack trace {@link RuntimeException} captures.
+     */
+    private static class StackTraceAccountException extends RuntimeException {
+        private final ErrorCode errorCode;
+        private final String errorMessage;
+
+        StackTraceAccountException(ErrorCode errorCode) {
+            this.errorCode = errorCode;
+            this.errorMessage = errorCode.getDescription();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.account.journal;
+
+import com.example.account.dto.TransactionDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+
+@State(Scope.Benchmark)
+public class BalanceJournalBenchmark {
+    @Param({"BATCH", "NONE"})
+    private FsyncPolicy fsyncPolicy;
+
+    private Path directory;
+    private BalanceJournal balanceJournal;
+    private JournalRecord record;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        balanceJournal = new BalanceJournal(directory, 64 * 1024 * 1024, fsyncPolicy, 64);
+        record = JournalRecord.from(TransactionDto.builder()
+                .accountNumber("1000000000")
+                .transactionType(USE)
+                .transactionResult(S)
+                .amount(1000L)
+                .balanceSnapShot(9000L)
+                .transactionId("0123456789abcdef0123456789abcdef")
+                .transactedAt(LocalDateTime.now())
+                .build());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        balanceJournal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long append() {
+        return balanceJournal.append(record);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.account.journal;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.TransactionDto;
+import com.example.account.engine.BalanceEngine;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * A use acknowledged after its synchronous JPA commit ({@link TransactionService#useBalance})
+ * against one acknowledged once it is in the write-ahead journal, with the database written
+ * afterwards in batches ({@link BalanceEngine#useBalance}). Both run on the application
+ * context, against an H2 file database unless {@code -Dspring.datasource.url} names another
+ * one; {@code fsyncPolicy} only applies to the journaled use.
+ */
+@State(Scope.Benchmark)
+public class JournalCommitBenchmark {
+    @Param({"ALWAYS", "BATCH"})
+    public FsyncPolicy fsyncPolicy;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private BalanceEngine balanceEngine;
+    private Long userId;
+    private String committedAccountNumber;
+    private String journaledAccountNumber;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-commit-benchmark");
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + System.getProperty("spring.datasource.url",
+                                "jdbc:h2:file:" + directory.resolve("account")),
+                        "--account.engine.enabled=true",
+                        "--account.journal.enabled=true",
+                        "--account.journal.fsync-policy=" + fsyncPolicy,
+                        "--account.journal.directory=" + directory.resolve("journal"),
+                        "--account.state-store.file=" + directory.resolve("account-state.dat"),
+                        "--logging.level.root=WARN");
+        try {
+            transactionService = context.getBean(TransactionService.class);
+            balanceEngine = context.getBean(BalanceEngine.class);
+
+            AccountUser user = context.getBean(AccountUserRepository.class)
+                    .save(AccountUser.builder().name("benchmark").build());
+            AccountService accountService = context.getBean(AccountService.class);
+            userId = user.getId();
+            // separate accounts, as the engine expects to be the only writer of its accounts
+            committedAccountNumber = accountService.createAccount(userId, Long.MAX_VALUE / 2).getAccountNumber();
+            journaledAccountNumber = accountService.createAccount(userId, Long.MAX_VALUE / 2).getAccountNumber();
+        } catch (RuntimeException e) {
+            // the embedded redis of the context would outlive this fork
+            context.close();
+            throw e;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public TransactionDto synchronousCommit() {
+        return transactionService.useBalance(userId, committedAccountNumber, 10L);
+    }
+
+    @Benchmark
+    public TransactionDto journaled() {
+        return balanceEngine.useBalance(userId, journaledAccountNumber, 10L);
+    }
+}
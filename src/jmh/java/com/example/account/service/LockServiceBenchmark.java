@@ -0,0 +1,52 @@
+package com.example.account.service;
+
+import com.example.account.type.LockMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.Map;
+
+/**
+ * An uncontended lock/unlock round trip against embedded Redis.
+ */
+@State(Scope.Benchmark)
+public class LockServiceBenchmark {
+    private static final int REDIS_PORT = 6390;
+
+    private RedisServer redisServer;
+    private RedissonClient redissonClient;
+    private LockService lockService;
+
+    @Setup
+    public void setUp() {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+        lockService = new LockService(
+                new LockRouter(LockMode.SINGLE, Map.of("127.0.0.1:" + REDIS_PORT, redissonClient)),
+                new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @Benchmark
+    public void lockAndUnlock() {
+        lockService.lock("1000000000");
+        lockService.unlock("1000000000");
+    }
+}
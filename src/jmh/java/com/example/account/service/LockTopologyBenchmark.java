@@ -0,0 +1,74 @@
+package com.example.account.service;
+
+import com.example.account.type.LockMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lock/unlock of random accounts from many threads, by lock mode and number of embedded
+ * Redis nodes. The time per operation divided into the thread count is the lock throughput,
+ * so {@code SHARDED} should get faster per node added while {@code QUORUM} gets slower.
+ * Each node is a separate process, so the nodes only add capacity when there are cores for them.
+ */
+@State(Scope.Benchmark)
+@Threads(16)
+public class LockTopologyBenchmark {
+    private static final int FIRST_PORT = 6400;
+    private static final int ACCOUNTS = 10_000;
+
+    // SHARDED:1 routes like SINGLE, but owns its client
+    @Param({"SHARDED:1", "SHARDED:2", "SHARDED:4", "QUORUM:3", "QUORUM:5"})
+    public String topology;
+
+    private final List<RedisServer> redisServers = new ArrayList<>();
+    private LockRouter lockRouter;
+    private LockService lockService;
+
+    @Setup
+    public void setUp() {
+        LockMode mode = LockMode.valueOf(topology.substring(0, topology.indexOf(':')));
+        int nodeCount = Integer.parseInt(topology.substring(topology.indexOf(':') + 1));
+
+        Map<String, RedissonClient> nodes = new LinkedHashMap<>();
+        for (int i = 0; i < nodeCount; i++) {
+            RedisServer redisServer = new RedisServer(FIRST_PORT + i);
+            redisServer.start();
+            redisServers.add(redisServer);
+
+            Config config = new Config();
+            config.useSingleServer().setAddress("redis://127.0.0.1:" + (FIRST_PORT + i));
+            nodes.put("127.0.0.1:" + (FIRST_PORT + i), Redisson.create(config));
+        }
+        lockRouter = new LockRouter(mode, nodes);
+        lockService = new LockService(lockRouter, new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        lockRouter.shutdown();
+        redisServers.forEach(RedisServer::stop);
+    }
+
+    @Benchmark
+    public void lockAndUnlock() {
+        String accountNumber = String.valueOf(1_000_000_000 + ThreadLocalRandom.current().nextInt(ACCOUNTS));
+        lockService.lock(accountNumber);
+        lockService.unlock(accountNumber);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.account.service;
+
+import com.example.account.shard.ShardRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.transaction.support.TransactionOperations;
+
+@State(Scope.Benchmark)
+public class TransactionIdBenchmark {
+    private final TransactionService transactionService = new TransactionService(null, null, null, null,
+            new ShardRouter(1, TransactionOperations.withoutTransaction(), Runnable::run), null, null, null);
+
+    @Benchmark
+    public String newTransactionId() {
+        return transactionService.newTransactionId();
+    }
+}
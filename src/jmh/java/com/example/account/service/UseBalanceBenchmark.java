@@ -0,0 +1,70 @@
+package com.example.account.service;
+
+import com.example.account.archive.TransactionArchive;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.rollup.TransactionRollup;
+import com.example.account.shard.ShardRouter;
+import com.example.account.type.AccountStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * {@link TransactionService#useBalance} without the database. The repositories
+ * are Mockito stubs, which allocate on every call themselves, so compare
+ * {@code -PjmhProfilers=gc} numbers between the params rather than in absolute terms.
+ */
+@State(Scope.Benchmark)
+public class UseBalanceBenchmark {
+    @Param({"0", "1"})
+    public long clockResolutionMillis;
+
+    private TransactionService transactionService;
+
+    @Setup
+    public void setUp() {
+        AccountUser user = AccountUser.builder().id(1L).name("benchmark").build();
+        Account account = Account.builder()
+                .accountNumber("1000000000")
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(Long.MAX_VALUE / 2)
+                .build();
+
+        AccountUserRepository accountUserRepository = mock(AccountUserRepository.class, withSettings().stubOnly());
+        AccountRepository accountRepository = mock(AccountRepository.class, withSettings().stubOnly());
+        TransactionRepository transactionRepository = mock(TransactionRepository.class, withSettings().stubOnly());
+        given(accountUserRepository.findById(1L)).willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber("1000000000")).willReturn(Optional.of(account));
+        given(transactionRepository.save(any(Transaction.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        transactionService = new TransactionService(transactionRepository, accountUserRepository, accountRepository,
+                new ClockService(Duration.ofMillis(clockResolutionMillis)),
+                new ShardRouter(1, TransactionOperations.withoutTransaction(), Runnable::run),
+                mock(TransactionArchive.class, withSettings().stubOnly()),
+                mock(TransactionRollup.class, withSettings().stubOnly()),
+                null);
+    }
+
+    @Benchmark
+    public TransactionDto useBalance() {
+        return transactionService.useBalance(1L, "1000000000", 10L);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.account.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies of one operation, measured from the scheduled send time so that a
+ * stalled server is charged for the requests queued behind it.
+ */
+class LatencyRecorder {
+    private final String operation;
+    private final long[] latencies;
+    private final AtomicInteger count = new AtomicInteger();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    LatencyRecorder(String operation, int capacity) {
+        this.operation = operation;
+        this.latencies = new long[capacity];
+    }
+
+    void record(long latencyNanos, String errorCode) {
+        int index = count.getAndIncrement();
+        if (index < latencies.length) {
+            latencies[index] = latencyNanos;
+        }
+        if (errorCode != null) {
+            errors.computeIfAbsent(errorCode, code -> new LongAdder()).increment();
+        }
+    }
+
+    int count() {
+        return Math.min(count.get(), latencies.length);
+    }
+
+    long errors(String errorCode) {
+        LongAdder adder = errors.get(errorCode);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    Map<String, LongAdder> errors() {
+        return errors;
+    }
+
+    String operation() {
+        return operation;
+    }
+
+    /**
+     * @return p50, p99, p999 and max in nanoseconds
+     */
+    long[] percentiles() {
+        long[] sorted = Arrays.copyOf(latencies, count());
+        Arrays.sort(sorted);
+        if (sorted.length == 0) {
+            return new long[4];
+        }
+        return new long[]{at(sorted, 0.50), at(sorted, 0.99), at(sorted, 0.999), sorted[sorted.length - 1]};
+    }
+
+    private static long at(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
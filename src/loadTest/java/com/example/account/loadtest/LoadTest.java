@@ -0,0 +1,299 @@
+package com.example.account.loadtest;
+
+import com.example.account.AccountApplication;
+import com.example.account.reactive.ReactiveAccountApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator against an in-process application with embedded Redis and H2.
+ * <p>
+ * Seeds one account per user, then sends use/cancel/get requests at a fixed arrival
+ * rate with a Zipf skew over accounts, and reports throughput, p50/p99/p999 and the
+ * share of {@code ACCOUNT_TRANSACTION_LOCK} failures. Run with
+ * {@code ./gradlew loadTest -PloadTestArgs="--zipf=1.2 --rate=1000"}; see
+ * {@link LoadTestOptions} for every option.
+ * <p>
+ * The generator shares the machine with the server, so compare runs made on the
+ * same machine only.
+ */
+public class LoadTest {
+    private static final String LOCK_FAILURE = "ACCOUNT_TRANSACTION_LOCK";
+    private static final int MAX_CANCELLABLE = 100_000;
+
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final ZipfSampler sampler;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Used> cancellable = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger cancellableSize = new AtomicInteger();
+    private final AtomicReferenceArray<String> recentTransactionIds = new AtomicReferenceArray<>(1024);
+    private final AtomicInteger recentCursor = new AtomicInteger();
+
+    private String baseUrl;
+    private List<Seeded> accounts;
+
+    private record Seeded(long userId, String accountNumber) {
+    }
+
+    private record Used(String transactionId, String accountNumber, long amount) {
+    }
+
+    private record Phase(LatencyRecorder use, LatencyRecorder cancel, LatencyRecorder get, AtomicInteger dropped) {
+        static Phase of(int capacity) {
+            return new Phase(new LatencyRecorder("use", capacity), new LatencyRecorder("cancel", capacity),
+                    new LatencyRecorder("get", capacity), new AtomicInteger());
+        }
+    }
+
+    LoadTest(LoadTestOptions options) {
+        this.options = options;
+        this.sampler = new ZipfSampler(options.accounts(), options.zipf());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        int exitCode;
+        try (ConfigurableApplicationContext context = boot(options)) {
+            exitCode = new LoadTest(options).run(context);
+        }
+        System.exit(exitCode);
+    }
+
+    private static ConfigurableApplicationContext boot(LoadTestOptions options) {
+        // command line arguments, so they win over application.yml
+        String[] args = {
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                "--account.server-timing.slow-sample-rate=0",
+                "--spring.threads.virtual.enabled=" + options.virtualThreads()
+        };
+        if (options.reactive()) {
+            return new SpringApplicationBuilder(ReactiveAccountApplication.class)
+                    .web(WebApplicationType.REACTIVE)
+                    .properties("spring.config.name=reactive")
+                    .run(args);
+        }
+        return new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run(args);
+    }
+
+    int run(ConfigurableApplicationContext context) throws Exception {
+        baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+        System.out.println(options);
+
+        long seedStartedAt = System.nanoTime();
+        accounts = seed(context);
+        System.out.printf("seeded %d accounts in %d ms, hottest account gets %.1f%% of requests%n",
+                accounts.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStartedAt),
+                sampler.hottestShare() * 100);
+
+        drive(options.warmup().toNanos(), Phase.of(capacity(options.warmup().toSeconds())));
+        Phase measured = Phase.of(capacity(options.duration().toSeconds()));
+        long elapsedNanos = drive(options.duration().toNanos(), measured);
+        report(measured, elapsedNanos);
+        return 0;
+    }
+
+    private int capacity(long seconds) {
+        return (int) Math.min(Integer.MAX_VALUE - 8, (seconds + 1) * options.rate() * 11 / 10);
+    }
+
+    private List<Seeded> seed(ConfigurableApplicationContext context) throws IOException, InterruptedException {
+        List<Long> userIds = options.reactive() ? seedReactiveUsers(context) : seedUsers(context);
+        List<Seeded> seeded = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            JsonNode response = objectMapper.readTree(httpClient.send(
+                    post("/account", "{\"userId\":" + userId + ",\"initialBalance\":" + options.initialBalance() + "}"),
+                    HttpResponse.BodyHandlers.ofString()).body());
+            if (!response.hasNonNull("accountNumber")) {
+                throw new IllegalStateException("Account seeding failed : " + response);
+            }
+            seeded.add(new Seeded(userId, response.get("accountNumber").asText()));
+        }
+        return seeded;
+    }
+
+    private List<Long> seedUsers(ConfigurableApplicationContext context) {
+        List<com.example.account.domain.AccountUser> users = new ArrayList<>(options.accounts());
+        for (int i = 0; i < options.accounts(); i++) {
+            users.add(com.example.account.domain.AccountUser.builder().name("load-" + i).build());
+        }
+        return context.getBean(com.example.account.repository.AccountUserRepository.class)
+                .saveAll(users)
+                .stream()
+                .map(com.example.account.domain.AccountUser::getId)
+                .toList();
+    }
+
+    private List<Long> seedReactiveUsers(ConfigurableApplicationContext context) {
+        return context.getBean(com.example.account.reactive.repository.AccountUserRepository.class)
+                .saveAll(Flux.range(0, options.accounts())
+                        .map(i -> com.example.account.reactive.domain.AccountUser.builder().name("load-" + i).build()))
+                .map(com.example.account.reactive.domain.AccountUser::getId)
+                .collectList()
+                .block();
+    }
+
+    /**
+     * Sends on schedule for {@code durationNanos}, then waits for outstanding responses.
+     *
+     * @return the time from the first send to the last response
+     */
+    private long drive(long durationNanos, Phase phase) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long startedAt = System.nanoTime();
+        for (long i = 0; i * intervalNanos < durationNanos; i++) {
+            long scheduledAt = startedAt + i * intervalNanos;
+            long waitNanos = scheduledAt - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            if (inFlight.get() >= options.maxInFlight()) {
+                phase.dropped().incrementAndGet();
+                continue;
+            }
+            send(scheduledAt, phase);
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return System.nanoTime() - startedAt;
+    }
+
+    private void send(long scheduledAt, Phase phase) {
+        int dice = ThreadLocalRandom.current().nextInt(100);
+        if (dice >= options.usePercent() + options.cancelPercent()) {
+            String transactionId = recentTransactionIds.get(ThreadLocalRandom.current().nextInt(recentTransactionIds.length()));
+            if (transactionId != null) {
+                execute(HttpRequest.newBuilder(URI.create(baseUrl + "/transaction/" + transactionId)).GET().build(),
+                        scheduledAt, phase.get(), null);
+                return;
+            }
+        } else if (dice >= options.usePercent()) {
+            Used used = cancellable.poll();
+            if (used != null) {
+                cancellableSize.decrementAndGet();
+                execute(post("/transaction/cancel", "{\"transactionId\":\"" + used.transactionId()
+                                + "\",\"accountNumber\":\"" + used.accountNumber() + "\",\"amount\":" + used.amount() + "}"),
+                        scheduledAt, phase.cancel(), null);
+                return;
+            }
+        }
+
+        Seeded account = accounts.get(sampler.next());
+        long amount = ThreadLocalRandom.current().nextLong(10, 1001);
+        execute(post("/transaction/use", "{\"userId\":" + account.userId() + ",\"accountNumber\":\""
+                        + account.accountNumber() + "\",\"amount\":" + amount + "}"),
+                scheduledAt, phase.use(), new Used(null, account.accountNumber(), amount));
+    }
+
+    private void execute(HttpRequest request, long scheduledAt, LatencyRecorder recorder, Used use) {
+        inFlight.incrementAndGet();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, e) -> {
+                    long latencyNanos = System.nanoTime() - scheduledAt;
+                    try {
+                        JsonNode body = e == null && response.statusCode() == 200 ? readTree(response.body()) : null;
+                        String errorCode = errorCode(response, e, body);
+                        recorder.record(latencyNanos, errorCode);
+                        if (errorCode == null && use != null) {
+                            remember(new Used(body.get("transactionId").asText(), use.accountNumber(), use.amount()));
+                        }
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+    }
+
+    private void remember(Used used) {
+        recentTransactionIds.set(Math.floorMod(recentCursor.getAndIncrement(), recentTransactionIds.length()),
+                used.transactionId());
+        if (cancellableSize.incrementAndGet() <= MAX_CANCELLABLE) {
+            cancellable.add(used);
+        } else {
+            cancellableSize.decrementAndGet();
+        }
+    }
+
+    private static String errorCode(HttpResponse<String> response, Throwable e, JsonNode body) {
+        if (e != null) {
+            return "IO_ERROR";
+        }
+        if (response.statusCode() != 200) {
+            return "HTTP_" + response.statusCode();
+        }
+        if (body == null) {
+            return "UNREADABLE_RESPONSE";
+        }
+        return body.hasNonNull("errorCode") ? body.get("errorCode").asText() : null;
+    }
+
+    private JsonNode readTree(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private void report(Phase phase, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%n%-8s %9s %12s %10s %10s %10s %10s %9s%n",
+                "op", "count", "throughput/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+        int total = 0;
+        Map<String, Long> errors = new TreeMap<>();
+        for (LatencyRecorder recorder : List.of(phase.use(), phase.cancel(), phase.get())) {
+            long[] percentiles = recorder.percentiles();
+            long failed = recorder.errors().values().stream().mapToLong(LongAdder::sum).sum();
+            System.out.printf("%-8s %9d %12.1f %10.2f %10.2f %10.2f %10.2f %9d%n",
+                    recorder.operation(), recorder.count(), recorder.count() / seconds,
+                    percentiles[0] / 1e6, percentiles[1] / 1e6, percentiles[2] / 1e6, percentiles[3] / 1e6, failed);
+            total += recorder.count();
+            recorder.errors().forEach((code, adder) -> errors.merge(code, adder.sum(), Long::sum));
+        }
+
+        long writes = phase.use().count() + phase.cancel().count();
+        long lockFailures = phase.use().errors(LOCK_FAILURE) + phase.cancel().errors(LOCK_FAILURE);
+        System.out.printf("%ntotal %d requests in %.1f s, %.1f/s%n", total, seconds, total / seconds);
+        System.out.printf("lock failures %d (%.2f%% of use/cancel)%n", lockFailures,
+                writes == 0 ? 0.0 : lockFailures * 100.0 / writes);
+        System.out.printf("dropped at max-in-flight %d%n", phase.dropped().get());
+        System.out.println("errors " + errors);
+    }
+}
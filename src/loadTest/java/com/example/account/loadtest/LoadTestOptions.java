@@ -0,0 +1,67 @@
+package com.example.account.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options, given as {@code --name=value}.
+ *
+ * @param accounts       number of seeded users, one account each
+ * @param initialBalance balance of every seeded account
+ * @param rate           requests per second, issued on schedule regardless of responses
+ * @param warmup         traffic sent before measuring
+ * @param duration       measured traffic
+ * @param zipf           skew over accounts; 0 is uniform, above 1 concentrates on a few hot accounts
+ * @param usePercent     share of use requests; cancel and get share the rest
+ * @param cancelPercent  share of cancels of earlier successful uses
+ * @param maxInFlight    requests beyond this many outstanding are dropped and counted
+ * @param reactive       boot the WebFlux + R2DBC application instead of the servlet one
+ * @param virtualThreads serve servlet requests on virtual threads
+ */
+record LoadTestOptions(int accounts,
+                       long initialBalance,
+                       int rate,
+                       Duration warmup,
+                       Duration duration,
+                       double zipf,
+                       int usePercent,
+                       int cancelPercent,
+                       int maxInFlight,
+                       boolean reactive,
+                       boolean virtualThreads) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                Integer.parseInt(values.getOrDefault("accounts", "1000")),
+                Long.parseLong(values.getOrDefault("initial-balance", "1000000000")),
+                Integer.parseInt(values.getOrDefault("rate", "500")),
+                Duration.parse("PT" + values.getOrDefault("warmup", "10s")),
+                Duration.parse("PT" + values.getOrDefault("duration", "30s")),
+                Double.parseDouble(values.getOrDefault("zipf", "1.1")),
+                Integer.parseInt(values.getOrDefault("use-percent", "70")),
+                Integer.parseInt(values.getOrDefault("cancel-percent", "10")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "2000")),
+                Boolean.parseBoolean(values.getOrDefault("reactive", "false")),
+                Boolean.parseBoolean(values.getOrDefault("virtual-threads", "false")));
+        if (options.usePercent + options.cancelPercent > 100) {
+            throw new IllegalArgumentException("use-percent + cancel-percent must not exceed 100");
+        }
+        return options;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("stack=%s threads=%s accounts=%d zipf=%.2f rate=%d/s warmup=%ds duration=%ds mix=use:%d,cancel:%d,get:%d",
+                reactive ? "webflux" : "servlet", virtualThreads ? "virtual" : "platform", accounts, zipf, rate,
+                warmup.toSeconds(), duration.toSeconds(), usePercent, cancelPercent, 100 - usePercent - cancelPercent);
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.account.loadtest;
+
+import redis.embedded.RedisServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to first request of the packaged application in each startup mode.
+ * <p>
+ * Every run launches a new process. The clock starts at launch and stops at the first
+ * successful {@code GET /account?user_id=1}, which needs Tomcat, the controllers and
+ * Hibernate. The prod modes connect to an embedded Redis started here, as they would
+ * to an external one.
+ * <ul>
+ *     <li>{@code local}: the default profile, which starts its own embedded Redis</li>
+ *     <li>{@code prod}: the prod profile</li>
+ *     <li>{@code prod-aot}: with the AOT-generated bean definitions ({@code -Dspring.aot.enabled=true})</li>
+ *     <li>{@code prod-aot-cds}: plus the class data sharing archive, when it exists</li>
+ *     <li>{@code native}: the native executable, when it exists</li>
+ * </ul>
+ * {@code --train} creates the archive instead: one run of {@code prod-aot} that exits
+ * after the context refresh and dumps the loaded classes.
+ * <p>
+ * Run with {@code ./gradlew startupBenchmark -PstartupRuns=5}; the application output
+ * of every run is kept next to the archive.
+ */
+public class StartupBenchmark {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final File app;
+    private final File archive;
+    private final File nativeExecutable;
+    private final int redisPort;
+    private final String java = ProcessHandle.current().info().command().orElse("java");
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    StartupBenchmark(File app, File archive, File nativeExecutable, int redisPort) {
+        this.app = app;
+        this.archive = archive;
+        this.nativeExecutable = nativeExecutable;
+        this.redisPort = redisPort;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator < 0 ? arg.length() : separator),
+                    separator < 0 ? "true" : arg.substring(separator + 1));
+        }
+        StartupBenchmark benchmark = new StartupBenchmark(
+                new File(options.getOrDefault("app", "build/cds/app.jar")),
+                new File(options.getOrDefault("archive", "build/cds/app.jsa")),
+                new File(options.getOrDefault("native", "build/native/nativeCompile/account")),
+                Integer.parseInt(options.getOrDefault("redis-port", "6391")));
+
+        RedisServer redisServer = new RedisServer(benchmark.redisPort);
+        redisServer.start();
+        try {
+            if (options.containsKey("train")) {
+                benchmark.train();
+            } else {
+                benchmark.report(Integer.parseInt(options.getOrDefault("runs", "5")));
+            }
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    void train() throws Exception {
+        List<String> command = new ArrayList<>(List.of(java,
+                "-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath(),
+                "-Dspring.aot.enabled=true",
+                "-Dspring.context.exit=onRefresh",
+                "-jar", app.getAbsolutePath()));
+        command.addAll(prodArgs(freePort()));
+
+        Process process = start(command, "train");
+        if (!process.waitFor(STARTUP_TIMEOUT.toSeconds(), TimeUnit.SECONDS) || !archive.isFile()) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Training run did not create " + archive + ", see " + logFile("train"));
+        }
+        System.out.printf("created %s (%d KB)%n", archive, archive.length() / 1024);
+    }
+
+    void report(int runs) throws Exception {
+        Map<String, List<Long>> results = new LinkedHashMap<>();
+        for (String mode : modes()) {
+            List<Long> millis = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                millis.add(timeToFirstRequest(mode, run));
+            }
+            results.put(mode, millis);
+        }
+
+        System.out.printf("%n%-14s %6s %10s %10s %10s%n", "mode", "runs", "min(ms)", "median(ms)", "max(ms)");
+        results.forEach((mode, millis) -> {
+            List<Long> sorted = millis.stream().sorted().toList();
+            System.out.printf("%-14s %6d %10d %10d %10d%n", mode, sorted.size(),
+                    sorted.get(0), sorted.get(sorted.size() / 2), sorted.get(sorted.size() - 1));
+        });
+    }
+
+    private List<String> modes() {
+        List<String> modes = new ArrayList<>(List.of("local", "prod", "prod-aot"));
+        if (archive.isFile()) {
+            modes.add("prod-aot-cds");
+        }
+        if (nativeExecutable.canExecute()) {
+            modes.add("native");
+        }
+        return modes;
+    }
+
+    private long timeToFirstRequest(String mode, int run) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        switch (mode) {
+            case "local" -> {
+                // its own embedded Redis, on another port than the one started here
+                command.addAll(List.of(java, "-jar", app.getAbsolutePath(),
+                        "--server.port=" + port, "--logging.level.root=WARN", "--spring.redis.port=" + freePort()));
+            }
+            case "prod" -> command.addAll(List.of(java, "-jar", app.getAbsolutePath()));
+            case "prod-aot" -> command.addAll(List.of(java, "-Dspring.aot.enabled=true", "-jar", app.getAbsolutePath()));
+            case "prod-aot-cds" -> command.addAll(List.of(java, "-XX:SharedArchiveFile=" + archive.getAbsolutePath(),
+                    "-Dspring.aot.enabled=true", "-jar", app.getAbsolutePath()));
+            case "native" -> command.add(nativeExecutable.getAbsolutePath());
+            default -> throw new IllegalArgumentException(mode);
+        }
+        if (!mode.equals("local")) {
+            command.addAll(prodArgs(port));
+        }
+
+        long startedAt = System.nanoTime();
+        Process process = start(command, mode + "-" + run);
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/account?user_id=1"))
+                    .timeout(Duration.ofSeconds(10))
+                    .build();
+            while (System.nanoTime() - startedAt < STARTUP_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode + " exited with " + process.exitValue() + ", see " + logFile(mode + "-" + run));
+                }
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException(mode + " did not answer within " + STARTUP_TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private List<String> prodArgs(int port) {
+        return List.of("--spring.profiles.active=prod", "--server.port=" + port, "--logging.level.root=WARN",
+                "--spring.redis.port=" + redisPort);
+    }
+
+    private Process start(List<String> command, String name) throws IOException {
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile(name))
+                .start();
+    }
+
+    private File logFile(String name) {
+        return new File(archive.getParentFile(), "startup-" + name + ".log");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
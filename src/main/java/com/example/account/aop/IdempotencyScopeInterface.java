@@ -0,0 +1,9 @@
+package com.example.account.aop;
+
+/**
+ * Requests whose idempotency keys are namespaced by their owner, so two clients
+ * choosing the same key never share an outcome.
+ */
+public interface IdempotencyScopeInterface {
+    String getIdempotencyScope();
+}
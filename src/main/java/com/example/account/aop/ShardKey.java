@@ -0,0 +1,13 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * The account number a {@link Sharded} method is routed by. Transactions are found by id
+ * through {@code ShardRouter#shardsOfTransaction} instead, as an id may name no shard.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ShardKey {
+}
@@ -0,0 +1,15 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * Runs the method on the shard of its {@link ShardKey} parameter, or on the shard
+ * that takes the next new account when it has none.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface Sharded {
+
+}
@@ -0,0 +1,120 @@
+package com.example.account.archive;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Fixed-size (80 byte) archived transaction.
+ * <pre>
+ * 0  transactionType ordinal
+ * 1  transactionResultType ordinal
+ * 2  flags: 1 canceled, 2 has originalTransactionId
+ * 8  accountNumber
+ * 16 amount
+ * 24 balanceSnapShot
+ * 32 transactedAt (epoch nanos, UTC)
+ * 40 canceledAt (epoch nanos, UTC)
+ * 48 transactionId (128 bit hex)
+ * 64 originalTransactionId (128 bit hex)
+ * </pre>
+ * Transaction ids compare as two unsigned longs, which is their string order.
+ */
+final class ArchiveRecord {
+    static final int SIZE = 80;
+    private static final int CANCELED = 1;
+    private static final int HAS_ORIGINAL = 2;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private ArchiveRecord() {
+    }
+
+    /**
+     * Only ids of 32 hex digits are archived; any other id is not in the archive.
+     */
+    static boolean isArchivable(String transactionId) {
+        if (transactionId == null || transactionId.length() != 32) {
+            return false;
+        }
+        for (int i = 0; i < transactionId.length(); i++) {
+            if (Character.digit(transactionId.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long idHigh(String transactionId) {
+        return Long.parseUnsignedLong(transactionId, 0, 16, 16);
+    }
+
+    static long idLow(String transactionId) {
+        return Long.parseUnsignedLong(transactionId, 16, 32, 16);
+    }
+
+    static int compareId(long high, long low, long otherHigh, long otherLow) {
+        int compared = Long.compareUnsigned(high, otherHigh);
+        return compared != 0 ? compared : Long.compareUnsigned(low, otherLow);
+    }
+
+    static void write(ByteBuffer buffer, int offset, Transaction transaction) {
+        int flags = (transaction.getCanceledAt() != null ? CANCELED : 0)
+                | (transaction.getOriginalTransactionId() != null ? HAS_ORIGINAL : 0);
+        buffer.put(offset, (byte) transaction.getTransactionType().ordinal());
+        buffer.put(offset + 1, (byte) transaction.getTransactionResultType().ordinal());
+        buffer.put(offset + 2, (byte) flags);
+        buffer.put(offset + 3, (byte) 0);
+        buffer.putInt(offset + 4, 0);
+        buffer.putLong(offset + 8, Long.parseLong(transaction.getAccount().getAccountNumber()));
+        buffer.putLong(offset + 16, transaction.getAmount());
+        buffer.putLong(offset + 24, transaction.getBalanceSnapShot());
+        buffer.putLong(offset + 32, toEpochNanos(transaction.getTransactedAt()));
+        buffer.putLong(offset + 40, (flags & CANCELED) != 0 ? toEpochNanos(transaction.getCanceledAt()) : 0);
+        buffer.putLong(offset + 48, idHigh(transaction.getTransactionId()));
+        buffer.putLong(offset + 56, idLow(transaction.getTransactionId()));
+        boolean hasOriginal = (flags & HAS_ORIGINAL) != 0;
+        buffer.putLong(offset + 64, hasOriginal ? idHigh(transaction.getOriginalTransactionId()) : 0);
+        buffer.putLong(offset + 72, hasOriginal ? idLow(transaction.getOriginalTransactionId()) : 0);
+    }
+
+    static TransactionDto read(ByteBuffer buffer, int offset) {
+        int flags = buffer.get(offset + 2);
+        return new TransactionDto(
+                Long.toString(buffer.getLong(offset + 8)),
+                TransactionType.values()[buffer.get(offset)],
+                TransactionResultType.values()[buffer.get(offset + 1)],
+                buffer.getLong(offset + 16),
+                buffer.getLong(offset + 24),
+                toId(buffer.getLong(offset + 48), buffer.getLong(offset + 56)),
+                fromEpochNanos(buffer.getLong(offset + 32)),
+                (flags & HAS_ORIGINAL) != 0 ? toId(buffer.getLong(offset + 64), buffer.getLong(offset + 72)) : null,
+                (flags & CANCELED) != 0 ? fromEpochNanos(buffer.getLong(offset + 40)) : null,
+                null);
+    }
+
+    static long idHighAt(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 48);
+    }
+
+    static long idLowAt(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 56);
+    }
+
+    private static String toId(long high, long low) {
+        return String.format("%016x%016x", high, low);
+    }
+
+    private static long toEpochNanos(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + dateTime.getNano();
+    }
+
+    private static LocalDateTime fromEpochNanos(long epochNanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(epochNanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+}
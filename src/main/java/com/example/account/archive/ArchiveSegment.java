@@ -0,0 +1,163 @@
+package com.example.account.archive;
+
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionArchiveSegment;
+import com.example.account.dto.TransactionDto;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The in-memory part of an archive segment: its bloom filter and sparse index, which
+ * point a lookup at the one block that may hold an id.
+ * <p>
+ * A segment holds its transactions sorted by id as {@link ArchiveRecord}s, deflated in
+ * blocks of {@link #BLOCK_ROWS}. The sparse index is the first id of each block.
+ */
+final class ArchiveSegment {
+    static final int BLOCK_ROWS = 128;
+
+    private final long id;
+    private final BloomFilter bloomFilter;
+    // high and low half of the first id of each block
+    private final long[] firstIds;
+
+    private ArchiveSegment(long id, BloomFilter bloomFilter, long[] firstIds) {
+        this.id = id;
+        this.bloomFilter = bloomFilter;
+        this.firstIds = firstIds;
+    }
+
+    static ArchiveSegment of(TransactionArchiveSegment segment) {
+        long[] firstIds = new long[segment.getSparseIndex().length / Long.BYTES];
+        ByteBuffer.wrap(segment.getSparseIndex()).asLongBuffer().get(firstIds);
+        return new ArchiveSegment(segment.getId(), BloomFilter.fromBytes(segment.getBloomFilter()), firstIds);
+    }
+
+    long getId() {
+        return id;
+    }
+
+    /**
+     * @return the block that holds the id if the segment does, -1 when it certainly does not
+     */
+    int blockOf(long high, long low) {
+        if (!bloomFilter.mightContain(high, low)) {
+            return -1;
+        }
+        // last block whose first id is not above the id
+        int lowBlock = 0;
+        int highBlock = firstIds.length / 2 - 1;
+        int found = -1;
+        while (lowBlock <= highBlock) {
+            int middle = (lowBlock + highBlock) >>> 1;
+            if (ArchiveRecord.compareId(firstIds[middle * 2], firstIds[middle * 2 + 1], high, low) <= 0) {
+                found = middle;
+                lowBlock = middle + 1;
+            } else {
+                highBlock = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    static Optional<TransactionDto> find(byte[] block, long high, long low) {
+        ByteBuffer records = ByteBuffer.wrap(inflate(block));
+        int lowRow = 0;
+        int highRow = records.limit() / ArchiveRecord.SIZE - 1;
+        while (lowRow <= highRow) {
+            int middle = (lowRow + highRow) >>> 1;
+            int offset = middle * ArchiveRecord.SIZE;
+            int compared = ArchiveRecord.compareId(ArchiveRecord.idHighAt(records, offset),
+                    ArchiveRecord.idLowAt(records, offset), high, low);
+            if (compared == 0) {
+                return Optional.of(ArchiveRecord.read(records, offset));
+            }
+            if (compared < 0) {
+                lowRow = middle + 1;
+            } else {
+                highRow = middle - 1;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Sorts the transactions by id and encodes them as deflated blocks with their
+     * sparse index and bloom filter.
+     */
+    static Encoded encode(List<Transaction> transactions) {
+        List<Transaction> sorted = new ArrayList<>(transactions);
+        sorted.sort((left, right) -> ArchiveRecord.compareId(
+                ArchiveRecord.idHigh(left.getTransactionId()), ArchiveRecord.idLow(left.getTransactionId()),
+                ArchiveRecord.idHigh(right.getTransactionId()), ArchiveRecord.idLow(right.getTransactionId())));
+
+        int blockCount = (sorted.size() + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        ByteBuffer sparseIndex = ByteBuffer.allocate(blockCount * 2 * Long.BYTES);
+        BloomFilter bloomFilter = BloomFilter.forKeys(sorted.size());
+        List<byte[]> blocks = new ArrayList<>(blockCount);
+        ByteBuffer records = ByteBuffer.allocate(BLOCK_ROWS * ArchiveRecord.SIZE);
+        Deflater deflater = new Deflater();
+        try {
+            for (int start = 0; start < sorted.size(); start += BLOCK_ROWS) {
+                List<Transaction> block = sorted.subList(start, Math.min(start + BLOCK_ROWS, sorted.size()));
+                records.clear();
+                for (int row = 0; row < block.size(); row++) {
+                    Transaction transaction = block.get(row);
+                    ArchiveRecord.write(records, row * ArchiveRecord.SIZE, transaction);
+                    bloomFilter.put(ArchiveRecord.idHigh(transaction.getTransactionId()),
+                            ArchiveRecord.idLow(transaction.getTransactionId()));
+                }
+                sparseIndex.putLong(ArchiveRecord.idHigh(block.get(0).getTransactionId()));
+                sparseIndex.putLong(ArchiveRecord.idLow(block.get(0).getTransactionId()));
+                blocks.add(deflate(deflater, records.array(), block.size() * ArchiveRecord.SIZE));
+            }
+        } finally {
+            deflater.end();
+        }
+        return new Encoded(blocks, sparseIndex.array(), bloomFilter.toBytes());
+    }
+
+    record Encoded(List<byte[]> blocks, byte[] sparseIndex, byte[] bloomFilter) {
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] input, int length) {
+        deflater.reset();
+        deflater.setInput(input, 0, length);
+        deflater.finish();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(length / 2);
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            output.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] block) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block);
+            byte[] records = new byte[BLOCK_ROWS * ArchiveRecord.SIZE];
+            int length = 0;
+            while (!inflater.finished() && length < records.length) {
+                int inflated = inflater.inflate(records, length, records.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated archive block");
+                }
+                length += inflated;
+            }
+            return length == records.length ? records : Arrays.copyOf(records, length);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archive block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.account.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bloom filter over 128 bit transaction ids, 10 bits and 7 probes per id (about 1% false
+ * positives). Lets a lookup skip the segments that cannot hold an id, since random ids
+ * give every segment the whole id range.
+ */
+final class BloomFilter {
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASHES = 7;
+
+    private final long[] words;
+
+    private BloomFilter(long[] words) {
+        this.words = words;
+    }
+
+    static BloomFilter forKeys(int keys) {
+        return new BloomFilter(new long[Math.max(1, (keys * BITS_PER_KEY + 63) / 64)]);
+    }
+
+    static BloomFilter fromBytes(byte[] bytes) {
+        long[] words = new long[bytes.length / Long.BYTES];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(words);
+        return new BloomFilter(words);
+    }
+
+    byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(words.length * Long.BYTES);
+        buffer.asLongBuffer().put(words);
+        return buffer.array();
+    }
+
+    void put(long high, long low) {
+        long hash1 = mix(low);
+        long hash2 = mix(high) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, words.length * 64L);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long high, long low) {
+        long hash1 = mix(low);
+        long hash2 = mix(high) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, words.length * 64L);
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // murmur3 finalizer, so ids that are not random still spread over the bits
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.account.archive;
+
+import com.example.account.domain.ArchivedBalance;
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionArchiveBlock;
+import com.example.account.domain.TransactionArchiveSegment;
+import com.example.account.dto.TransactionDto;
+import com.example.account.repository.ArchivedBalanceRepository;
+import com.example.account.repository.TransactionArchiveBlockRepository;
+import com.example.account.repository.TransactionArchiveSegmentRepository;
+import com.example.account.shard.ShardContext;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Transactions moved out of the {@code Transaction} table by the {@link TransactionArchiver},
+ * in append-only segments of the shard's database.
+ * <p>
+ * The bloom filter and sparse index of every segment are kept in memory, about 1.4 bytes
+ * per archived transaction, so a lookup reads at most one block of a segment that holds
+ * the id, and rarely one of another. Segments are never changed. New ones are picked up
+ * by the first lookup after {@code refresh-interval}, which reads only the segments created
+ * since the previous refresh; other lookups meanwhile use the segments already loaded.
+ */
+@Component
+public class TransactionArchive {
+    // segments are created before their transaction commits, and by the clocks of several nodes
+    private static final Duration WATERMARK_MARGIN = Duration.ofMinutes(10);
+
+    private final TransactionArchiveSegmentRepository segmentRepository;
+    private final TransactionArchiveBlockRepository blockRepository;
+    private final ArchivedBalanceRepository archivedBalanceRepository;
+    private final Duration refreshInterval;
+    private final Map<Integer, ShardSegments> segmentsByShard = new ConcurrentHashMap<>();
+    private final Counter found;
+    private final Counter notFound;
+
+    public TransactionArchive(TransactionArchiveSegmentRepository segmentRepository,
+                              TransactionArchiveBlockRepository blockRepository,
+                              ArchivedBalanceRepository archivedBalanceRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${account.archive.refresh-interval}") Duration refreshInterval) {
+        this.segmentRepository = segmentRepository;
+        this.blockRepository = blockRepository;
+        this.archivedBalanceRepository = archivedBalanceRepository;
+        this.refreshInterval = refreshInterval;
+        this.found = lookups(meterRegistry, "found");
+        this.notFound = lookups(meterRegistry, "not_found");
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("account.archive.lookups")
+                .description("Transactions looked up in the archive after a miss in the Transaction table")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Looks up an archived transaction on the current shard.
+     */
+    public Optional<TransactionDto> find(String transactionId) {
+        if (!ArchiveRecord.isArchivable(transactionId)) {
+            return Optional.empty();
+        }
+        long high = ArchiveRecord.idHigh(transactionId);
+        long low = ArchiveRecord.idLow(transactionId);
+        for (ArchiveSegment segment : segments()) {
+            int blockNo = segment.blockOf(high, low);
+            if (blockNo < 0) {
+                continue;
+            }
+            Optional<TransactionDto> transactionDto = blockRepository.findBySegmentIdAndBlockNo(segment.getId(), blockNo)
+                    .flatMap(block -> ArchiveSegment.find(block.getData(), high, low));
+            if (transactionDto.isPresent()) {
+                found.increment();
+                return transactionDto;
+            }
+        }
+        notFound.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Writes the transactions as a new segment on the current shard, and adds them to the
+     * {@link ArchivedBalance}s of their accounts, within the caller's transaction.
+     * The caller deletes them from the {@code Transaction} table.
+     */
+    public void append(List<Transaction> transactions) {
+        ArchiveSegment.Encoded encoded = ArchiveSegment.encode(transactions);
+        TransactionArchiveSegment segment = segmentRepository.save(TransactionArchiveSegment.builder()
+                .rowCount(transactions.size())
+                .blockCount(encoded.blocks().size())
+                .firstTransactedAt(transactions.get(0).getTransactedAt())
+                .lastTransactedAt(transactions.get(transactions.size() - 1).getTransactedAt())
+                .sparseIndex(encoded.sparseIndex())
+                .bloomFilter(encoded.bloomFilter())
+                .build());
+
+        List<TransactionArchiveBlock> blocks = new ArrayList<>(encoded.blocks().size());
+        for (int blockNo = 0; blockNo < encoded.blocks().size(); blockNo++) {
+            blocks.add(TransactionArchiveBlock.builder()
+                    .segmentId(segment.getId())
+                    .blockNo(blockNo)
+                    .data(encoded.blocks().get(blockNo))
+                    .build());
+        }
+        blockRepository.saveAll(blocks);
+        addToArchivedBalances(transactions);
+    }
+
+    private void addToArchivedBalances(List<Transaction> transactions) {
+        Map<Long, Long> netAmounts = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getTransactionResultType() == TransactionResultType.S) {
+                long amount = transaction.getTransactionType() == TransactionType.CANCEL
+                        ? transaction.getAmount()
+                        : -transaction.getAmount();
+                netAmounts.merge(transaction.getAccount().getId(), amount, Long::sum);
+            }
+        }
+        Map<Long, ArchivedBalance> archivedBalances = new HashMap<>();
+        archivedBalanceRepository.findAllById(netAmounts.keySet())
+                .forEach(archivedBalance -> archivedBalances.put(archivedBalance.getAccountId(), archivedBalance));
+        netAmounts.forEach((accountId, netAmount) -> {
+            ArchivedBalance archivedBalance = archivedBalances.computeIfAbsent(accountId,
+                    id -> ArchivedBalance.builder().accountId(id).build());
+            archivedBalance.setNetAmount(archivedBalance.getNetAmount() + netAmount);
+        });
+        archivedBalanceRepository.saveAll(archivedBalances.values());
+    }
+
+    private List<ArchiveSegment> segments() {
+        return segmentsByShard.computeIfAbsent(ShardContext.current(), shard -> new ShardSegments())
+                .get();
+    }
+
+    private class ShardSegments {
+        private final ReentrantLock refreshLock = new ReentrantLock();
+        private final Set<Long> ids = new HashSet<>();
+        private volatile List<ArchiveSegment> segments;
+        private volatile long refreshedAt;
+        // segments created up to this time are loaded
+        private LocalDateTime watermark;
+
+        List<ArchiveSegment> get() {
+            if (segments == null) {
+                // the first lookup of the shard waits for the segments to be loaded
+                refreshLock.lock();
+                try {
+                    if (segments == null) {
+                        refresh();
+                    }
+                } finally {
+                    refreshLock.unlock();
+                }
+            } else if (System.nanoTime() - refreshedAt > refreshInterval.toNanos() && refreshLock.tryLock()) {
+                try {
+                    if (System.nanoTime() - refreshedAt > refreshInterval.toNanos()) {
+                        refresh();
+                    }
+                } finally {
+                    refreshLock.unlock();
+                }
+            }
+            return segments;
+        }
+
+        // by creation time rather than the last id: sequence ids of several nodes do not commit in order
+        private void refresh() {
+            LocalDateTime startedAt = LocalDateTime.now();
+            List<Long> added = (watermark == null
+                    ? segmentRepository.findAllIds()
+                    : segmentRepository.findIdsByCreatedAtAfter(watermark.minus(WATERMARK_MARGIN))).stream()
+                    .filter(id -> !ids.contains(id))
+                    .toList();
+            if (segments == null || !added.isEmpty()) {
+                List<ArchiveSegment> refreshed = new ArrayList<>(segments == null ? List.of() : segments);
+                segmentRepository.findAllById(added).forEach(segment -> {
+                    refreshed.add(ArchiveSegment.of(segment));
+                    ids.add(segment.getId());
+                });
+                segments = List.copyOf(refreshed);
+            }
+            watermark = startedAt;
+            refreshedAt = System.nanoTime();
+        }
+    }
+}
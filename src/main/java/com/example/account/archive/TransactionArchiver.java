@@ -0,0 +1,122 @@
+package com.example.account.archive;
+
+import com.example.account.domain.Transaction;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.ClockService;
+import com.example.account.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves transactions that can no longer be canceled, plus a grace period, from the
+ * {@code Transaction} table to the {@link TransactionArchive}, so the table holds about
+ * a year of transactions.
+ * <p>
+ * Every interval each shard is drained in chunks, the oldest first. A chunk is written as
+ * one archive segment and deleted in the same database transaction. When several nodes
+ * archive at once, the one that deletes fewer rows than it read rolls its chunk back.
+ */
+@Slf4j
+public class TransactionArchiver {
+    public static final int MAX_CHUNK_SIZE = 100_000;
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchive transactionArchive;
+    private final ShardRouter shardRouter;
+    private final TransactionOperations transactions;
+    private final ClockService clockService;
+    private final Duration grace;
+    private final Duration interval;
+    private final int chunkSize;
+    private final Counter archivedRows;
+    private ScheduledExecutorService scheduler;
+
+    public TransactionArchiver(TransactionRepository transactionRepository, TransactionArchive transactionArchive,
+                               ShardRouter shardRouter, TransactionOperations transactions, ClockService clockService,
+                               Duration grace, Duration interval, int chunkSize, MeterRegistry meterRegistry) {
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("account.archive.chunk-size must be between 1 and " + MAX_CHUNK_SIZE);
+        }
+        this.transactionRepository = transactionRepository;
+        this.transactionArchive = transactionArchive;
+        this.shardRouter = shardRouter;
+        this.transactions = transactions;
+        this.clockService = clockService;
+        this.grace = grace;
+        this.interval = interval;
+        this.chunkSize = chunkSize;
+        this.archivedRows = Counter.builder("account.archive.rows")
+                .description("Transactions moved to the archive")
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::archiveQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * @return transactions archived
+     */
+    public int archive() {
+        LocalDateTime before = clockService.yearAgo().minus(grace);
+        int archived = 0;
+        for (int shard : shardRouter.allShards()) {
+            int moved;
+            do {
+                moved = ShardRouter.inShard(shard, () -> transactions.execute(status -> moveChunk(before, status)));
+                archived += moved;
+            } while (moved == chunkSize);
+        }
+        return archived;
+    }
+
+    private void archiveQuietly() {
+        try {
+            int archived = archive();
+            if (archived > 0) {
+                log.info("Archived {} transactions", archived);
+            }
+        } catch (Exception e) {
+            // a failed run must not cancel the next ones
+            log.warn("Transaction archiving failed", e);
+        }
+    }
+
+    private int moveChunk(LocalDateTime before, TransactionStatus status) {
+        List<Transaction> expired = transactionRepository.findByTransactedAtBeforeOrderByTransactedAt(before, Limit.of(chunkSize));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        transactionArchive.append(expired);
+        int deleted = transactionRepository.deleteByIdIn(expired.stream().map(Transaction::getId).toList());
+        if (deleted != expired.size()) {
+            log.debug("{} of {} transactions were archived by another node", expired.size() - deleted, expired.size());
+            status.setRollbackOnly();
+            return 0;
+        }
+        archivedRows.increment(deleted);
+        return deleted;
+    }
+}
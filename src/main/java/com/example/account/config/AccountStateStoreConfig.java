@@ -0,0 +1,21 @@
+package com.example.account.config;
+
+import com.example.account.engine.AccountStateStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(name = "account.engine.enabled", havingValue = "true")
+public class AccountStateStoreConfig {
+    @Value("${account.state-store.file}")
+    private String file;
+
+    @Bean
+    public AccountStateStore accountStateStore() {
+        return new AccountStateStore(Path.of(file));
+    }
+}
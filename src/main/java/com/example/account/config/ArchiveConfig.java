@@ -0,0 +1,44 @@
+package com.example.account.config;
+
+import com.example.account.archive.TransactionArchive;
+import com.example.account.archive.TransactionArchiver;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.ClockService;
+import com.example.account.shard.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * The archiver runs on every node where it is enabled; archived transactions are
+ * looked up by {@link TransactionArchive} whether or not it is.
+ */
+@Configuration
+@ConditionalOnProperty(name = "account.archive.enabled", havingValue = "true")
+public class ArchiveConfig {
+    @Value("${account.archive.grace}")
+    private Duration grace;
+
+    @Value("${account.archive.interval}")
+    private Duration interval;
+
+    @Value("${account.archive.chunk-size}")
+    private int chunkSize;
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public TransactionArchiver transactionArchiver(TransactionRepository transactionRepository,
+                                                   TransactionArchive transactionArchive,
+                                                   ShardRouter shardRouter,
+                                                   PlatformTransactionManager transactionManager,
+                                                   ClockService clockService,
+                                                   MeterRegistry meterRegistry) {
+        return new TransactionArchiver(transactionRepository, transactionArchive, shardRouter,
+                new TransactionTemplate(transactionManager), clockService, grace, interval, chunkSize, meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.account.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.LocalDateTime;
+
+/**
+ * Module beans are added to the auto-configured {@code ObjectMapper} after the
+ * well-known modules, so the serializer here replaces the one of the JavaTimeModule.
+ */
+@Configuration
+public class JacksonConfig {
+    /**
+     * Property access through generated lambdas instead of reflection.
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    public Module localDateTimeModule() {
+        return new SimpleModule("account-local-date-time")
+                .addSerializer(LocalDateTime.class, new IsoLocalDateTimeSerializer());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.account.config;
+
+import com.example.account.journal.BalanceJournal;
+import com.example.account.journal.FsyncPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(name = "account.journal.enabled", havingValue = "true")
+public class JournalConfig {
+    @Value("${account.journal.directory}")
+    private String directory;
+
+    @Value("${account.journal.segment-size}")
+    private int segmentSize;
+
+    @Value("${account.journal.fsync-policy}")
+    private FsyncPolicy fsyncPolicy;
+
+    @Value("${account.journal.fsync-batch-size}")
+    private int fsyncBatchSize;
+
+    @Bean
+    public BalanceJournal balanceJournal() {
+        return new BalanceJournal(Path.of(directory), segmentSize, fsyncPolicy, fsyncBatchSize);
+    }
+}
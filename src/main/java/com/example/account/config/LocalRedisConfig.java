@@ -1,30 +1,53 @@
 package com.example.account.config;
 
+import com.example.account.type.LockMode;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import redis.embedded.RedisServer;
 
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Embedded Redis for development and tests. {@code local} is the default profile;
+ * the {@code prod} profile connects to an external Redis instead.
+ * <p>
+ * With a {@code SHARDED} or {@code QUORUM} lock mode every {@code account.lock.nodes}
+ * entry gets an embedded server of its own, on the port of its address.
+ */
 @Configuration
+@Profile("local")
 public class LocalRedisConfig {
     @Value("${spring.redis.port}")
     private int redisPort;
 
+    @Value("${account.lock.mode}")
+    private LockMode lockMode;
 
-    private RedisServer redisServer;
+    @Value("${account.lock.nodes}")
+    private List<String> lockNodes;
+
+    private final List<RedisServer> redisServers = new ArrayList<>();
 
     @PostConstruct
     public void startRedis() {
-        redisServer = new RedisServer(redisPort);
-        redisServer.start();
+        start(redisPort);
+        if (lockMode != LockMode.SINGLE) {
+            lockNodes.forEach(address -> start(Integer.parseInt(address.substring(address.lastIndexOf(':') + 1))));
+        }
     }
 
     @PreDestroy
     public void stopRedis() {
-        if (redisServer != null) {
-            redisServer.stop();
-        }
+        redisServers.forEach(RedisServer::stop);
+    }
+
+    private void start(int port) {
+        RedisServer redisServer = new RedisServer(port);
+        redisServer.start();
+        redisServers.add(redisServer);
     }
 }
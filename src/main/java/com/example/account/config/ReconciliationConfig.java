@@ -0,0 +1,57 @@
+package com.example.account.config;
+
+import com.example.account.reconcile.LedgerVerifier;
+import com.example.account.reconcile.ReconciliationJob;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.ReconciliationChunkRepository;
+import com.example.account.repository.ReconciliationMismatchRepository;
+import com.example.account.repository.ReconciliationRunRepository;
+import com.example.account.service.ClockService;
+import com.example.account.service.LockRouter;
+import com.example.account.shard.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+
+/**
+ * The job is scheduled on every node where it is enabled; a Redis lock lets only one of
+ * them run it at a time.
+ */
+@Configuration
+@ConditionalOnProperty(name = "account.reconcile.enabled", havingValue = "true")
+public class ReconciliationConfig {
+    @Value("${account.reconcile.cron}")
+    private String cron;
+
+    @Value("${account.reconcile.chunk-size}")
+    private int chunkSize;
+
+    @Value("${account.reconcile.parallelism}")
+    private int parallelism;
+
+    @Value("${account.reconcile.report-directory}")
+    private Path reportDirectory;
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ReconciliationJob reconciliationJob(ShardRouter shardRouter,
+                                               LedgerVerifier ledgerVerifier,
+                                               AccountRepository accountRepository,
+                                               ReconciliationRunRepository runRepository,
+                                               ReconciliationChunkRepository chunkRepository,
+                                               ReconciliationMismatchRepository mismatchRepository,
+                                               PlatformTransactionManager transactionManager,
+                                               LockRouter lockRouter,
+                                               ClockService clockService,
+                                               MeterRegistry meterRegistry) {
+        return new ReconciliationJob(shardRouter, ledgerVerifier, accountRepository, runRepository, chunkRepository,
+                mismatchRepository, new TransactionTemplate(transactionManager), lockRouter, clockService,
+                CronExpression.parse(cron), chunkSize, parallelism, reportDirectory, meterRegistry);
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.account.config;
 
+import com.example.account.service.LockRouter;
+import com.example.account.type.LockMode;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
 import org.redisson.config.Config;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 public class RedisRepositoryConfig {
     @Value("${spring.redis.host}")
@@ -15,11 +22,40 @@ public class RedisRepositoryConfig {
     @Value("${spring.redis.port}")
     private int redisPort;
 
+    @Value("${account.lock.mode}")
+    private LockMode lockMode;
+
+    @Value("${account.lock.nodes}")
+    private List<String> lockNodes;
+
+    /**
+     * Takes {@link LocalRedisConfig}, when its profile is active, so the embedded server
+     * is running before the client connects.
+     */
     @Bean
-    public RedissonClient redissonClient() {
-        Config config = new Config();
-        config.useSingleServer().setAddress("redis://" + redisHost + ":" + redisPort);
+    public RedissonClient redissonClient(ObjectProvider<LocalRedisConfig> localRedisConfig) {
+        localRedisConfig.getIfAvailable();
+        return Redisson.create(singleServer(redisHost + ":" + redisPort));
+    }
 
-        return Redisson.create(config);
+    /**
+     * Account locks stay on the main client in {@code SINGLE} mode; the other modes get
+     * a client per {@code account.lock.nodes} entry. Idempotency keys always use the main one.
+     */
+    @Bean
+    public LockRouter lockRouter(RedissonClient redissonClient) {
+        Map<String, RedissonClient> nodes = new LinkedHashMap<>();
+        if (lockMode == LockMode.SINGLE) {
+            nodes.put(redisHost + ":" + redisPort, redissonClient);
+        } else {
+            lockNodes.forEach(address -> nodes.put(address, Redisson.create(singleServer(address))));
+        }
+        return new LockRouter(lockMode, nodes);
+    }
+
+    private static Config singleServer(String address) {
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://" + address);
+        return config;
     }
 }
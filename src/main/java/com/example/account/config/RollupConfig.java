@@ -0,0 +1,54 @@
+package com.example.account.config;
+
+import com.example.account.repository.DailyAccountRollupRepository;
+import com.example.account.repository.DailyUserRollupRepository;
+import com.example.account.repository.RollupWatermarkRepository;
+import com.example.account.rollup.RollupFlusher;
+import com.example.account.rollup.RollupRebuilder;
+import com.example.account.rollup.TransactionRollup;
+import com.example.account.service.ClockService;
+import com.example.account.service.LockRouter;
+import com.example.account.shard.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Every node flushes the totals of its own transactions; {@link TransactionRollup}
+ * collects nothing when rollups are disabled.
+ */
+@Configuration
+@ConditionalOnProperty(name = "account.rollup.enabled", havingValue = "true")
+public class RollupConfig {
+    @Value("${account.rollup.interval}")
+    private Duration interval;
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public RollupFlusher rollupFlusher(TransactionRollup transactionRollup,
+                                       DailyAccountRollupRepository accountRollupRepository,
+                                       DailyUserRollupRepository userRollupRepository,
+                                       RollupWatermarkRepository watermarkRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry) {
+        return new RollupFlusher(transactionRollup, accountRollupRepository, userRollupRepository, watermarkRepository,
+                new TransactionTemplate(transactionManager), interval, meterRegistry);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public RollupRebuilder rollupRebuilder(ShardRouter shardRouter,
+                                           DailyAccountRollupRepository accountRollupRepository,
+                                           DailyUserRollupRepository userRollupRepository,
+                                           RollupWatermarkRepository watermarkRepository,
+                                           PlatformTransactionManager transactionManager,
+                                           LockRouter lockRouter,
+                                           ClockService clockService) {
+        return new RollupRebuilder(shardRouter, accountRollupRepository, userRollupRepository, watermarkRepository,
+                new TransactionTemplate(transactionManager), lockRouter, clockService, interval);
+    }
+}
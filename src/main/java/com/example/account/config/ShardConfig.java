@@ -0,0 +1,33 @@
+package com.example.account.config;
+
+import com.example.account.shard.ShardRouter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * The shard router exists without sharding too, as a single shard.
+ */
+@Configuration
+public class ShardConfig {
+    @Value("${account.shard.enabled}")
+    private boolean enabled;
+
+    @Value("${account.shard.urls}")
+    private List<String> urls;
+
+    @Bean
+    public ShardRouter shardRouter(PlatformTransactionManager transactionManager,
+                                   @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+        TransactionTemplate readOnlyTransactions = new TransactionTemplate(transactionManager);
+        readOnlyTransactions.setReadOnly(true);
+        return new ShardRouter(enabled ? urls.size() : 1, readOnlyTransactions, executor);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.account.config;
+
+import com.example.account.shard.ShardConnectionProvider;
+import com.example.account.shard.AccountUserReplicator;
+import com.example.account.shard.ShardDataSources;
+import com.example.account.shard.ShardSchemaInitializer;
+import com.example.account.shard.ShardTenantResolver;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pool per {@code account.shard.urls} entry, used by Hibernate through multi-tenancy with
+ * the shard as tenant. Shard 0 is also the {@code DataSource} bean, for health checks and
+ * Hibernate's startup. The replica routing and the balance engine assume one database and
+ * cannot be combined with it.
+ */
+@Configuration
+@ConditionalOnProperty(name = "account.shard.enabled", havingValue = "true")
+public class ShardDataSourceConfig {
+    @Value("${account.shard.urls}")
+    private List<String> urls;
+
+    @Value("${account.shard.username}")
+    private String username;
+
+    @Value("${account.shard.password}")
+    private String password;
+
+    public ShardDataSourceConfig(@Value("${account.replica.enabled}") boolean replicaEnabled,
+                                 @Value("${account.engine.enabled}") boolean engineEnabled) {
+        if (replicaEnabled || engineEnabled) {
+            throw new IllegalStateException("account.shard.enabled cannot be combined with account.replica.enabled or account.engine.enabled");
+        }
+    }
+
+    @Bean
+    public ShardDataSources shardDataSources(MeterRegistry meterRegistry) {
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(shard))
+                    .username(username)
+                    .password(password)
+                    .build();
+            dataSource.setPoolName("shard-" + shard);
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            dataSources.add(dataSource);
+        }
+        return new ShardDataSources(dataSources);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources) {
+        return shardDataSources.get(0);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardTenancy(ShardDataSources shardDataSources) {
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, new ShardConnectionProvider(shardDataSources));
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new ShardTenantResolver());
+        };
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public AccountUserReplicator accountUserReplicator(ShardDataSources shardDataSources) {
+        return new AccountUserReplicator(shardDataSources);
+    }
+
+    @Bean(initMethod = "initialize")
+    @ConditionalOnProperty(name = "spring.jpa.hibernate.ddl-auto", havingValue = "create-drop")
+    public ShardSchemaInitializer shardSchemaInitializer(EntityManagerFactory entityManagerFactory,
+                                                         ShardDataSources shardDataSources) {
+        return new ShardSchemaInitializer(entityManagerFactory, shardDataSources.size());
+    }
+}
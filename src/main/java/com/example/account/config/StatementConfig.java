@@ -0,0 +1,47 @@
+package com.example.account.config;
+
+import com.example.account.repository.AccountRepository;
+import com.example.account.service.ClockService;
+import com.example.account.service.LockRouter;
+import com.example.account.shard.ShardRouter;
+import com.example.account.statement.StatementJob;
+import com.example.account.statement.StatementWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.nio.file.Path;
+
+/**
+ * The job is scheduled on every node where it is enabled; a Redis lock lets only one of
+ * them run it at a time.
+ */
+@Configuration
+@ConditionalOnProperty(name = "account.statement.enabled", havingValue = "true")
+public class StatementConfig {
+    @Value("${account.statement.cron}")
+    private String cron;
+
+    @Value("${account.statement.chunk-size}")
+    private int chunkSize;
+
+    @Value("${account.statement.threads}")
+    private int threads;
+
+    @Value("${account.statement.directory}")
+    private Path directory;
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public StatementJob statementJob(ShardRouter shardRouter,
+                                     StatementWriter statementWriter,
+                                     AccountRepository accountRepository,
+                                     LockRouter lockRouter,
+                                     ClockService clockService,
+                                     MeterRegistry meterRegistry) {
+        return new StatementJob(shardRouter, statementWriter, accountRepository, lockRouter, clockService,
+                CronExpression.parse(cron), chunkSize, threads, directory, meterRegistry);
+    }
+}
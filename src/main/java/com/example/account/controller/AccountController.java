@@ -6,6 +6,8 @@ import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
 import com.example.account.service.AccountService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,6 +16,8 @@ import java.util.List;
 @RestController
 @RequiredArgsConstructor
 public class AccountController {
+    private static final int MAX_BATCH_READ_ITEMS = 100;
+
     private final AccountService accountService;
 
 
@@ -36,6 +40,18 @@ public class AccountController {
     }
 
 
+    @GetMapping("/account/balance")
+    public List<AccountInfo> getAccountBalances(
+            @RequestParam("account_number") @NotEmpty @Size(max = MAX_BATCH_READ_ITEMS) List<String> accountNumbers) {
+        return accountService.getAccountsByAccountNumbers(accountNumbers)
+                .stream()
+                .map(accountDto -> AccountInfo.builder()
+                        .accountNumber(accountDto.getAccountNumber())
+                        .balance(accountDto.getBalance())
+                        .build())
+                .toList();
+    }
+
     @GetMapping("/account")
     public List<AccountInfo> getAccountByUserId(
             @RequestParam("user_id") Long userId) {
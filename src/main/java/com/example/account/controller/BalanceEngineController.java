@@ -0,0 +1,35 @@
+package com.example.account.controller;
+
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.UseBalance;
+import com.example.account.engine.BalanceEngine;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Use/cancel through the in-memory balance engine. The engine serializes every
+ * command itself, so these endpoints take no account lock, and failed attempts
+ * are recorded by the engine.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.engine.enabled", havingValue = "true")
+public class BalanceEngineController {
+    private final BalanceEngine balanceEngine;
+
+    @PostMapping("/engine/transaction/use")
+    public UseBalance.Response useBalance(@RequestBody @Valid UseBalance.Request request) {
+        return UseBalance.Response.from(
+                balanceEngine.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount()));
+    }
+
+    @PostMapping("/engine/transaction/cancel")
+    public CancelBalance.Response cancelBalance(@RequestBody @Valid CancelBalance.Request request) {
+        return CancelBalance.Response.from(
+                balanceEngine.cancelBalance(request.getTransactionId(), request.getAccountNumber(), request.getAmount()));
+    }
+}
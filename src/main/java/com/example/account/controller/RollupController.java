@@ -0,0 +1,51 @@
+package com.example.account.controller;
+
+import com.example.account.dto.DailyRollup;
+import com.example.account.rollup.RollupRebuilder;
+import com.example.account.service.RollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Daily totals for the finance dashboards. {@code from} and {@code to} are both included.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.rollup.enabled", havingValue = "true")
+public class RollupController {
+    private final RollupService rollupService;
+    private final RollupRebuilder rollupRebuilder;
+
+    @GetMapping("/rollup/account")
+    public List<DailyRollup> getAccountRollups(
+            @RequestParam("account_number") String accountNumber,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return rollupService.getAccountRollups(accountNumber, from, to);
+    }
+
+    @GetMapping("/rollup/user")
+    public List<DailyRollup> getUserRollups(
+            @RequestParam("user_id") Long userId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return rollupService.getUserRollups(userId, from, to);
+    }
+
+    /**
+     * Starts rebuilding the rollups of the days from the transactions, in the background.
+     */
+    @PostMapping("/rollup/rebuild")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void rebuildRollups(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        rollupRebuilder.submit(from, to);
+    }
+}
@@ -1,58 +1,107 @@
 package com.example.account.controller;
 
 import com.example.account.aop.AccountLock;
+import com.example.account.aop.Idempotent;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.QueryTransactionResponse;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.engine.BalanceEngine;
 import com.example.account.exception.AccountException;
+import com.example.account.metrics.ServerTiming;
+import com.example.account.service.TransactionBatchService;
 import com.example.account.service.TransactionService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
+/**
+ * While the balance engine is enabled it is the only writer of balances, so uses and
+ * cancels are sent through it, and failed attempts are recorded by the engine.
+ */
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class TransactionController {
+    private static final int MAX_BATCH_READ_ITEMS = 100;
+
     private final TransactionService transactionService;
+    private final TransactionBatchService transactionBatchService;
+    private final ObjectProvider<BalanceEngine> balanceEngine;
 
     @PostMapping("/transaction/use")
+    @Idempotent
     @AccountLock
     public UseBalance.Response useBalance(@RequestBody @Valid UseBalance.Request request) {
+        BalanceEngine engine = balanceEngine.getIfAvailable();
+        if (engine != null) {
+            return UseBalance.Response.from(
+                    engine.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount()));
+        }
 
         try {
             return UseBalance.Response.from(
                     transactionService.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount()));
         } catch (AccountException e) {
 
-            log.error("Failed to use balance");
+            log.debug("Failed to use balance");
+            long startedAt = System.nanoTime();
             transactionService.saveFailedUseTransaction(
                     request.getAccountNumber(),
                     request.getAmount()
             );
+            ServerTiming.record("failed", startedAt);
             throw e;
         }
     }
 
+    @PostMapping("/transaction/use/batch")
+    @Idempotent
+    public UseBalanceBatch.Response useBalanceBatch(@RequestBody @Valid UseBalanceBatch.Request request) {
+        return UseBalanceBatch.Response.from(transactionBatchService.useBalances(request.getItems()));
+    }
+
     @PostMapping("/transaction/cancel")
+    @Idempotent
     @AccountLock
     public CancelBalance.Response cancelBalance(@RequestBody @Valid CancelBalance.Request request) {
+        BalanceEngine engine = balanceEngine.getIfAvailable();
+        if (engine != null) {
+            return CancelBalance.Response.from(
+                    engine.cancelBalance(request.getTransactionId(), request.getAccountNumber(), request.getAmount()));
+        }
 
         try {
             return CancelBalance.Response.from(
                     transactionService.cancelBalance(request.getTransactionId(), request.getAccountNumber(), request.getAmount()));
         } catch (AccountException e) {
 
-            log.error("Failed to use balance");
+            log.debug("Failed to cancel balance");
+            long startedAt = System.nanoTime();
             transactionService.saveFailedCancelTransaction(
                     request.getAccountNumber(),
                     request.getAmount()
             );
+            ServerTiming.record("failed", startedAt);
             throw e;
         }
     }
 
+    @GetMapping("/transaction")
+    public List<QueryTransactionResponse> queryTransactions(
+            @RequestParam("transaction_id") @NotEmpty @Size(max = MAX_BATCH_READ_ITEMS) List<String> transactionIds) {
+        return transactionService.queryTransactions(transactionIds)
+                .stream()
+                .map(QueryTransactionResponse::from)
+                .toList();
+    }
+
     @GetMapping("/transaction/{transactionId}")
     public QueryTransactionResponse queryTransaction(@PathVariable String transactionId) {
         return QueryTransactionResponse.from(transactionService.queryTransaction(transactionId));
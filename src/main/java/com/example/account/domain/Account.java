@@ -5,6 +5,7 @@ import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -18,7 +19,13 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(columnList = "accountNumber", unique = true),
+        @Index(columnList = "updatedAt")
+})
 @EntityListeners(AuditingEntityListener.class)
+// only changed columns are written, so the balance engine's persister and an unregister never overwrite each other
+@DynamicUpdate
 public class Account {
     @Id
     @GeneratedValue
@@ -30,7 +37,10 @@ public class Account {
 
     @Enumerated(EnumType.STRING)
     private AccountStatus accountStatus;
-    private Long balance;
+    private long balance;
+    // the balance before any transaction, for the ledger reconciliation; null for accounts
+    // opened before it was kept, until the reconciliation backfills it
+    private Long initialBalance;
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
     @CreatedDate
@@ -38,13 +48,13 @@ public class Account {
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
-    public void useBalance(Long amount) {
+    public void useBalance(long amount) {
         if (amount > balance) {
             throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
         }
         balance -= amount;
     }
-    public void cancelBalance(Long amount) {
+    public void cancelBalance(long amount) {
         if (amount < 0) {
             throw new AccountException(ErrorCode.INVALID_REQUEST);
         }
@@ -1,5 +1,6 @@
 package com.example.account.domain;
 
+import com.example.account.shard.AccountUserReplicationListener;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
@@ -17,7 +18,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, AccountUserReplicationListener.class})
 public class AccountUser {
     @Id
     @GeneratedValue
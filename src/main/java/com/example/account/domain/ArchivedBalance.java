@@ -0,0 +1,24 @@
+package com.example.account.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * What the archived transactions of an account add to its balance: successful cancels
+ * minus successful uses. Kept by the archiver, so the ledger reconciliation does not
+ * read the archive.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+public class ArchivedBalance {
+    @Id
+    private Long accountId;
+    private long netAmount;
+    // null until saved, so a new row is inserted without a lookup first
+    @Version
+    private Long version;
+}
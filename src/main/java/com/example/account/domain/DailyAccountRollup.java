@@ -0,0 +1,43 @@
+package com.example.account.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Totals of an account's transactions on one day. Kept up to date from the transactions
+ * as they are saved, and rebuilt from the {@code Transaction} table on request.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@IdClass(DailyAccountRollup.Key.class)
+public class DailyAccountRollup {
+    @Id
+    private Long accountId;
+    @Id
+    private LocalDate transactedOn;
+    private Long userId;
+    // successful uses
+    private long useAmount;
+    // successful cancels
+    private long cancelAmount;
+    // failed uses and cancels
+    private long failedCount;
+    // null until saved, so a new row is inserted without a lookup first
+    @Version
+    private Long version;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long accountId;
+        private LocalDate transactedOn;
+    }
+}
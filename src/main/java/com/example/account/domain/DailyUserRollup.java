@@ -0,0 +1,39 @@
+package com.example.account.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Totals of the transactions of a user's accounts on one shard on one day; see
+ * {@link DailyAccountRollup}.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@IdClass(DailyUserRollup.Key.class)
+public class DailyUserRollup {
+    @Id
+    private Long userId;
+    @Id
+    private LocalDate transactedOn;
+    private long useAmount;
+    private long cancelAmount;
+    private long failedCount;
+    // null until saved, so a new row is inserted without a lookup first
+    @Version
+    private Long version;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate transactedOn;
+    }
+}
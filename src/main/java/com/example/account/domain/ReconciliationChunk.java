@@ -0,0 +1,31 @@
+package com.example.account.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of a reconciled account id range: accounts {@code chunkNo * chunk-size}
+ * up to the next chunk, on one shard.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(indexes = {
+        @Index(columnList = "runId, shard, chunkNo", unique = true)
+})
+public class ReconciliationChunk {
+    @Id
+    @GeneratedValue
+    private Long id;
+    private Long runId;
+    private int shard;
+    private long chunkNo;
+    private int accounts;
+    private int mismatches;
+    private LocalDateTime verifiedAt;
+}
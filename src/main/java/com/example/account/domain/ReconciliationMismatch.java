@@ -0,0 +1,27 @@
+package com.example.account.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * An account whose balance is not its initial balance plus its successful transactions.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(indexes = {
+        @Index(columnList = "runId")
+})
+public class ReconciliationMismatch {
+    @Id
+    @GeneratedValue
+    private Long id;
+    private Long runId;
+    private int shard;
+    private String accountNumber;
+    private long balance;
+    private long expectedBalance;
+}
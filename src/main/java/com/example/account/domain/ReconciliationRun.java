@@ -0,0 +1,27 @@
+package com.example.account.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One pass of the ledger reconciliation over every account. A run without
+ * {@code finishedAt} is resumed by the next one.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+public class ReconciliationRun {
+    @Id
+    @GeneratedValue
+    private Long id;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long accounts;
+    private long mismatches;
+    private String report;
+}
@@ -0,0 +1,26 @@
+package com.example.account.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * The last day whose rollup rows were rebuilt on the shard of this single row. Rebuilt rows
+ * count every transaction of their day, so totals of that day or an earlier one that are
+ * still to be flushed are dropped. Flushes and rebuilds lock the row first, so they do not
+ * interleave.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+public class RollupWatermark {
+    public static final Long ID = 1L;
+
+    @Id
+    private Long id;
+    private LocalDate rebuiltThrough;
+}
@@ -16,6 +16,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(columnList = "transactionId", unique = true),
+        @Index(columnList = "originalTransactionId", unique = true),
+        @Index(columnList = "transactedAt"),
+        @Index(columnList = "account_id, transactedAt")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Transaction {
     @Id
@@ -26,10 +32,12 @@ public class Transaction {
     private TransactionResultType transactionResultType;
     @ManyToOne
     private Account account;
-    private Long amount;
-    private Long balanceSnapShot;
+    private long amount;
+    private long balanceSnapShot;
     private String transactionId;
     private LocalDateTime transactedAt;
+    private String originalTransactionId;
+    private LocalDateTime canceledAt;
 
 
     @CreatedDate
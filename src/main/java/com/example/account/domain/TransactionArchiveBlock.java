@@ -0,0 +1,26 @@
+package com.example.account.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Deflated records of up to 128 consecutive transactions of a {@link TransactionArchiveSegment}.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(indexes = {
+        @Index(columnList = "segmentId, blockNo", unique = true)
+})
+public class TransactionArchiveBlock {
+    @Id
+    @GeneratedValue
+    private Long id;
+    private Long segmentId;
+    private int blockNo;
+    @Column(length = 65_536)
+    private byte[] data;
+}
@@ -0,0 +1,40 @@
+package com.example.account.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * One chunk of archived transactions, sorted by transaction id and split into
+ * {@link TransactionArchiveBlock}s. Written once and never changed.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(indexes = {
+        @Index(columnList = "createdAt")
+})
+@EntityListeners(AuditingEntityListener.class)
+public class TransactionArchiveSegment {
+    @Id
+    @GeneratedValue
+    private Long id;
+    private int rowCount;
+    private int blockCount;
+    private LocalDateTime firstTransactedAt;
+    private LocalDateTime lastTransactedAt;
+    // first transaction id of each block, 16 bytes each
+    @Column(length = 1_000_000)
+    private byte[] sparseIndex;
+    @Column(length = 1_000_000)
+    private byte[] bloomFilter;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+}
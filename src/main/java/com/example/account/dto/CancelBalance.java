@@ -1,7 +1,9 @@
 package com.example.account.dto;
 
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.IdempotencyScopeInterface;
 import com.example.account.type.TransactionResultType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
@@ -12,7 +14,7 @@ public class CancelBalance {
     @Setter
     @NoArgsConstructor
     @AllArgsConstructor
-    public static class Request implements AccountLockIdInterface {
+    public static class Request implements AccountLockIdInterface, IdempotencyScopeInterface {
         @NotBlank
         private String transactionId;
         @NotBlank
@@ -23,6 +25,11 @@ public class CancelBalance {
         @Max(1_000_000_000)
         private Long amount;
 
+        @JsonIgnore
+        @Override
+        public String getIdempotencyScope() {
+            return accountNumber;
+        }
     }
 
     @Getter
@@ -35,17 +42,16 @@ public class CancelBalance {
         private TransactionResultType transactionResult;
 
         private String transactionId;
-        private Long amount;
+        private long amount;
         private LocalDateTime transactedAt;
 
         public static Response from(TransactionDto transactionDto) {
-            return Response.builder()
-                    .accountNumber(transactionDto.getAccountNumber())
-                    .transactionResult(transactionDto.getTransactionResult())
-                    .transactionId(transactionDto.getTransactionId())
-                    .amount(transactionDto.getAmount())
-                    .transactedAt(transactionDto.getTransactedAt())
-                    .build();
+            return new Response(
+                    transactionDto.getAccountNumber(),
+                    transactionDto.getTransactionResult(),
+                    transactionDto.getTransactionId(),
+                    transactionDto.getAmount(),
+                    transactionDto.getTransactedAt());
         }
     }
 }
@@ -0,0 +1,34 @@
+package com.example.account.dto;
+
+import com.example.account.domain.DailyAccountRollup;
+import com.example.account.domain.DailyUserRollup;
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyRollup {
+    private LocalDate date;
+    private long useAmount;
+    private long cancelAmount;
+    private long failedCount;
+
+    public static DailyRollup fromEntity(DailyAccountRollup rollup) {
+        return new DailyRollup(rollup.getTransactedOn(), rollup.getUseAmount(), rollup.getCancelAmount(),
+                rollup.getFailedCount());
+    }
+
+    public static DailyRollup fromEntity(DailyUserRollup rollup) {
+        return new DailyRollup(rollup.getTransactedOn(), rollup.getUseAmount(), rollup.getCancelAmount(),
+                rollup.getFailedCount());
+    }
+
+    public DailyRollup plus(DailyRollup other) {
+        return new DailyRollup(date, useAmount + other.useAmount, cancelAmount + other.cancelAmount,
+                failedCount + other.failedCount);
+    }
+}
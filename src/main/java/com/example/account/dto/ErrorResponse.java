@@ -3,12 +3,37 @@ package com.example.account.dto;
 import com.example.account.type.ErrorCode;
 import lombok.*;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
 @Getter
-@Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class ErrorResponse {
+    private static final Map<ErrorCode, ErrorResponse> CACHE = new EnumMap<>(ErrorCode.class);
+
+    static {
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            CACHE.put(errorCode, new ErrorResponse(errorCode, errorCode.getDescription()));
+        }
+    }
+
     private ErrorCode errorCode;
     private String errorMessage;
+
+    /**
+     * Returns the shared response for {@code errorCode}. Cached instances are
+     * never modified, which is why this class has no setters.
+     */
+    public static ErrorResponse of(ErrorCode errorCode) {
+        return CACHE.get(errorCode);
+    }
+
+    public static ErrorResponse of(ErrorCode errorCode, String errorMessage) {
+        return Objects.equals(errorCode.getDescription(), errorMessage)
+                ? of(errorCode)
+                : new ErrorResponse(errorCode, errorMessage);
+    }
 }
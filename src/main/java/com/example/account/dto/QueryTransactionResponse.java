@@ -15,20 +15,19 @@ public class QueryTransactionResponse {
     private String accountNumber;
     private TransactionType transactionType;
     private TransactionResultType transactionResult;
-    private Long amount;
+    private long amount;
 
     private String transactionId;
     private LocalDateTime transactedAt;
 
     public static QueryTransactionResponse from(TransactionDto transactionDto) {
-        return QueryTransactionResponse.builder()
-                .accountNumber(transactionDto.getAccountNumber())
-                .transactionType(transactionDto.getTransactionType())
-                .transactionResult(transactionDto.getTransactionResult())
-                .amount(transactionDto.getAmount())
-                .transactionId(transactionDto.getTransactionId())
-                .transactedAt(transactionDto.getTransactedAt())
-                .build();
+        return new QueryTransactionResponse(
+                transactionDto.getAccountNumber(),
+                transactionDto.getTransactionType(),
+                transactionDto.getTransactionResult(),
+                transactionDto.getAmount(),
+                transactionDto.getTransactionId(),
+                transactionDto.getTransactedAt());
     }
 
 }
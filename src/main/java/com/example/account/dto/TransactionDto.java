@@ -1,6 +1,7 @@
 package com.example.account.dto;
 
 import com.example.account.domain.Transaction;
+import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.*;
@@ -16,21 +17,27 @@ public class TransactionDto {
     private String accountNumber;
     private TransactionType transactionType;
     private TransactionResultType transactionResult;
-    private Long amount;
-    private Long balanceSnapShot;
+    private long amount;
+    private long balanceSnapShot;
     private String transactionId;
     private LocalDateTime transactedAt;
+    private String originalTransactionId;
+    private LocalDateTime canceledAt;
+    private ErrorCode errorCode;
 
+    // called for every response, so the constructor instead of the builder
     public static TransactionDto fromEntity(Transaction transaction) {
-        return TransactionDto.builder()
-                .accountNumber(transaction.getAccount().getAccountNumber())
-                .transactionType(transaction.getTransactionType())
-                .transactionResult(transaction.getTransactionResultType())
-                .amount(transaction.getAmount())
-                .balanceSnapShot(transaction.getBalanceSnapShot())
-                .transactionId(transaction.getTransactionId())
-                .transactedAt(transaction.getTransactedAt())
-                .build();
+        return new TransactionDto(
+                transaction.getAccount().getAccountNumber(),
+                transaction.getTransactionType(),
+                transaction.getTransactionResultType(),
+                transaction.getAmount(),
+                transaction.getBalanceSnapShot(),
+                transaction.getTransactionId(),
+                transaction.getTransactedAt(),
+                transaction.getOriginalTransactionId(),
+                transaction.getCanceledAt(),
+                null);
     }
 
 
@@ -1,7 +1,9 @@
 package com.example.account.dto;
 
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.IdempotencyScopeInterface;
 import com.example.account.type.TransactionResultType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
@@ -12,7 +14,7 @@ public class UseBalance {
     @Setter
     @NoArgsConstructor
     @AllArgsConstructor
-    public static class Request implements AccountLockIdInterface {
+    public static class Request implements AccountLockIdInterface, IdempotencyScopeInterface {
         @NotNull
         @Min(1)
         private Long userId;
@@ -24,6 +26,11 @@ public class UseBalance {
         @Max(1_000_000_000)
         private Long amount;
 
+        @JsonIgnore
+        @Override
+        public String getIdempotencyScope() {
+            return userId + ":" + accountNumber;
+        }
     }
 
     @Getter
@@ -36,17 +43,16 @@ public class UseBalance {
         private TransactionResultType transactionResult;
 
         private String transactionId;
-        private Long amount;
+        private long amount;
         private LocalDateTime transactedAt;
 
         public static Response from(TransactionDto transactionDto) {
-            return Response.builder()
-                    .accountNumber(transactionDto.getAccountNumber())
-                    .transactionResult(transactionDto.getTransactionResult())
-                    .transactionId(transactionDto.getTransactionId())
-                    .amount(transactionDto.getAmount())
-                    .transactedAt(transactionDto.getTransactedAt())
-                    .build();
+            return new Response(
+                    transactionDto.getAccountNumber(),
+                    transactionDto.getTransactionResult(),
+                    transactionDto.getTransactionId(),
+                    transactionDto.getAmount(),
+                    transactionDto.getTransactedAt());
         }
     }
 }
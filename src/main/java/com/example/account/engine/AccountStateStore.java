@@ -0,0 +1,208 @@
+package com.example.account.engine;
+
+import com.example.account.domain.Account;
+import com.example.account.type.AccountStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Off-heap, memory-mapped store of fixed-size account records.
+ * <p>
+ * Account numbers are issued sequentially from {@value #FIRST_ACCOUNT_NUMBER},
+ * so a record is addressed directly by {@code accountNumber - FIRST_ACCOUNT_NUMBER}
+ * and no index has to live on the heap.
+ * <pre>
+ * header (64 bytes) : magic, clean shutdown flag, watermark (epoch millis, UTC)
+ * record (32 bytes) : balance, userId, version, status (0 = absent)
+ * </pre>
+ * The clean flag is cleared as soon as the store is opened, so a store left
+ * behind by a crash is never reported as warm. Records are written by a single
+ * thread.
+ */
+@Slf4j
+public class AccountStateStore implements Closeable {
+    public static final long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+
+    private static final int MAGIC = 0x41435354;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 32;
+    private static final int RECORDS_PER_CHUNK = 1 << 20;
+    private static final long CHUNK_SIZE = (long) RECORDS_PER_CHUNK * RECORD_SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> chunks = new CopyOnWriteArrayList<>();
+    private final boolean warm;
+
+    public AccountStateStore(Path file) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        warm = header.getInt(0) == MAGIC && header.get(4) == 1;
+        if (!warm) {
+            clear();
+        }
+        header.put(4, (byte) 0);
+        header.force();
+
+        log.info("Account state store opened. file : {}, warm : {}", file, warm);
+    }
+
+    /**
+     * @return true when the store was closed cleanly by {@link #markClean(LocalDateTime)}
+     * and only needs the accounts changed after {@link #getWatermark()}.
+     */
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public LocalDateTime getWatermark() {
+        long epochMillis = header.getLong(8);
+        return epochMillis == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    public void put(Account account) {
+        MappedByteBuffer chunk = chunk(account.getAccountNumber(), true);
+        int offset = offset(account.getAccountNumber());
+        chunk.putLong(offset, account.getBalance());
+        chunk.putLong(offset + 8, account.getAccountUser().getId());
+        chunk.putLong(offset + 16, chunk.getLong(offset + 16) + 1);
+        chunk.put(offset + 24, (byte) (account.getAccountStatus().ordinal() + 1));
+    }
+
+    public boolean contains(String accountNumber) {
+        if (!isAddressable(accountNumber)) {
+            return false;
+        }
+        MappedByteBuffer chunk = chunk(accountNumber, false);
+        return chunk != null && chunk.get(offset(accountNumber) + 24) != 0;
+    }
+
+    public long getBalance(String accountNumber) {
+        return chunk(accountNumber, false).getLong(offset(accountNumber));
+    }
+
+    public Long getUserId(String accountNumber) {
+        return chunk(accountNumber, false).getLong(offset(accountNumber) + 8);
+    }
+
+    public long getVersion(String accountNumber) {
+        return chunk(accountNumber, false).getLong(offset(accountNumber) + 16);
+    }
+
+    public AccountStatus getAccountStatus(String accountNumber) {
+        return AccountStatus.values()[chunk(accountNumber, false).get(offset(accountNumber) + 24) - 1];
+    }
+
+    public void setBalance(String accountNumber, long balance) {
+        MappedByteBuffer chunk = chunk(accountNumber, false);
+        int offset = offset(accountNumber);
+        chunk.putLong(offset, balance);
+        chunk.putLong(offset + 16, chunk.getLong(offset + 16) + 1);
+    }
+
+    public void setAccountStatus(String accountNumber, AccountStatus accountStatus) {
+        MappedByteBuffer chunk = chunk(accountNumber, false);
+        int offset = offset(accountNumber);
+        chunk.put(offset + 24, (byte) (accountStatus.ordinal() + 1));
+        chunk.putLong(offset + 16, chunk.getLong(offset + 16) + 1);
+    }
+
+    public void clear() {
+        try {
+            chunks.clear();
+            channel.truncate(HEADER_SIZE);
+            header.putInt(0, MAGIC);
+            header.put(4, (byte) 0);
+            header.putLong(8, 0L);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes every record and marks the store as consistent with the database
+     * as of {@code watermark}.
+     */
+    public void markClean(LocalDateTime watermark) {
+        forceChunks();
+        header.putLong(8, watermark == null ? 0L : watermark.toInstant(ZoneOffset.UTC).toEpochMilli());
+        header.put(4, (byte) 1);
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        forceChunks();
+        header.force();
+        channel.close();
+    }
+
+    private void forceChunks() {
+        for (MappedByteBuffer chunk : chunks) {
+            if (chunk != null) {
+                chunk.force();
+            }
+        }
+    }
+
+    private MappedByteBuffer chunk(String accountNumber, boolean create) {
+        int index = (int) (slot(accountNumber) / RECORDS_PER_CHUNK);
+        if (index < chunks.size() && chunks.get(index) != null) {
+            return chunks.get(index);
+        }
+        try {
+            if (!create && channel.size() < HEADER_SIZE + (index + 1) * CHUNK_SIZE) {
+                return null;
+            }
+            while (chunks.size() <= index) {
+                chunks.add(null);
+            }
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + index * CHUNK_SIZE, CHUNK_SIZE);
+            chunks.set(index, chunk);
+            return chunk;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static boolean isAddressable(String accountNumber) {
+        try {
+            return Long.parseLong(accountNumber) >= FIRST_ACCOUNT_NUMBER;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static long slot(String accountNumber) {
+        long slot = Long.parseLong(accountNumber) - FIRST_ACCOUNT_NUMBER;
+        if (slot < 0) {
+            throw new IllegalArgumentException("accountNumber out of range : " + accountNumber);
+        }
+        return slot;
+    }
+
+    private static int offset(String accountNumber) {
+        return (int) (slot(accountNumber) % RECORDS_PER_CHUNK) * RECORD_SIZE;
+    }
+}
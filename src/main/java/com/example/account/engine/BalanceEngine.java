@@ -0,0 +1,656 @@
+package com.example.account.engine;
+
+import com.example.account.archive.TransactionArchive;
+import com.example.account.domain.Account;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.journal.BalanceJournal;
+import com.example.account.journal.JournalRecord;
+import com.example.account.metrics.ServerTiming;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.ClockService;
+import com.example.account.service.TransactionService;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Processes use/cancel commands against balances held in an off-heap
+ * {@link AccountStateStore}.
+ * All commands are serialized through a {@link BalanceRingBuffer} onto a single
+ * consumer thread, so no account lock is needed. Results are persisted to JPA
+ * in batches on a separate thread, in the order they were applied.
+ * <p>
+ * The consumer thread never waits on the database. The original transaction of a
+ * cancel is looked up by the caller before the command is published, and again if the
+ * command is applied too long after. A command whose account is not in the store yet is
+ * sent back to be published again once a loader thread has read the account.
+ * <p>
+ * While enabled, the engine expects to be the only writer of account balances, and
+ * account status changes go through it as well.
+ * After a clean shutdown the store is reused on the next start and only accounts
+ * changed since its watermark are reloaded.
+ * <p>
+ * Commands are acknowledged before they are persisted, so a batch that fails to
+ * persist is retried until it does, and no other command is applied meanwhile.
+ * With {@code account.journal.enabled}, every result is first appended to the
+ * {@link BalanceJournal}, and whatever was journaled but not persisted when the
+ * engine last stopped is persisted before it starts. The commands drained from the ring
+ * buffer together are acknowledged together, once the journal has forced their results
+ * to disk (group commit), see {@link com.example.account.journal.FsyncPolicy}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.engine.enabled", havingValue = "true")
+public class BalanceEngine {
+    private static final Duration WATERMARK_MARGIN = Duration.ofMinutes(1);
+    private static final long MIN_PERSIST_BACKOFF_MILLIS = 100;
+    private static final long MAX_PERSIST_BACKOFF_MILLIS = 5000;
+    // a cancel of the same transaction persisted since the lookup is remembered for this long
+    private static final Duration CANCEL_LOOKUP_TIMEOUT = Duration.ofMinutes(1);
+    private static final AccountNotLoadedException ACCOUNT_NOT_LOADED = new AccountNotLoadedException();
+    private static final StaleLookupException STALE_LOOKUP = new StaleLookupException();
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchive transactionArchive;
+    private final TransactionService transactionService;
+    private final AccountStateStore accountStateStore;
+    // null when the journal is disabled
+    private final BalanceJournal balanceJournal;
+    private final ClockService clockService;
+    private final BalanceRingBuffer<BalanceEvent> ringBuffer;
+    private final int batchSize;
+
+    // applied results by transaction id, removed once persisted
+    private final Map<String, TransactionDto> unpersisted = new ConcurrentHashMap<>();
+    // original transaction ids canceled by the engine, until CANCEL_LOOKUP_TIMEOUT after they are persisted
+    private final Set<String> canceled = ConcurrentHashMap.newKeySet();
+    private final Queue<PersistedCancel> persistedCancels = new ArrayDeque<>();
+    // applied batches in order, removed once persisted
+    private final Queue<List<TransactionDto>> unpersistedBatches = new ConcurrentLinkedQueue<>();
+    private final ExecutorService persister = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "balance-engine-persister"));
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "balance-engine-loader"));
+
+    private List<TransactionDto> batch = new ArrayList<>();
+    // completions of the commands drained last, run once their results are journaled
+    private final List<Runnable> acknowledgements = new ArrayList<>();
+    private long journaledSequence;
+    private Thread consumer;
+    private volatile boolean running;
+    private volatile boolean persistFailing;
+
+    private record PersistedCancel(String originalTransactionId, long persistedAt) {
+    }
+
+    /**
+     * Sent back to the caller of a command whose account is not in the store yet.
+     */
+    private static class AccountNotLoadedException extends RuntimeException {
+        AccountNotLoadedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Sent back to the caller of a cancel applied more than {@link #CANCEL_LOOKUP_TIMEOUT}
+     * after its original was looked up.
+     */
+    private static class StaleLookupException extends RuntimeException {
+        StaleLookupException() {
+            super(null, null, false, false);
+        }
+    }
+
+    public BalanceEngine(AccountRepository accountRepository,
+                         TransactionRepository transactionRepository,
+                         TransactionArchive transactionArchive,
+                         TransactionService transactionService,
+                         AccountStateStore accountStateStore,
+                         ObjectProvider<BalanceJournal> balanceJournal,
+                         ClockService clockService,
+                         @Value("${account.engine.ring-size}") int ringSize,
+                         @Value("${account.engine.batch-size}") int batchSize) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionArchive = transactionArchive;
+        this.transactionService = transactionService;
+        this.accountStateStore = accountStateStore;
+        this.balanceJournal = balanceJournal.getIfAvailable();
+        this.clockService = clockService;
+        this.ringBuffer = new BalanceRingBuffer<>(ringSize, BalanceEvent::new);
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        replayJournal();
+
+        List<Account> loaded;
+        if (accountStateStore.isWarm()) {
+            LocalDateTime watermark = accountStateStore.getWatermark();
+            loaded = watermark == null
+                    ? accountRepository.findByAccountStatus(AccountStatus.IN_USE)
+                    : accountRepository.findByUpdatedAtAfter(watermark.minus(WATERMARK_MARGIN));
+        } else {
+            loaded = accountRepository.findByAccountStatus(AccountStatus.IN_USE);
+        }
+        loaded.stream()
+                .filter(account -> AccountStateStore.isAddressable(account.getAccountNumber()))
+                .forEach(accountStateStore::put);
+        log.info("Balance engine loaded {} accounts, warm : {}", loaded.size(), accountStateStore.isWarm());
+
+        running = true;
+        consumer = new Thread(this::consume, "balance-engine");
+        consumer.start();
+    }
+
+    /**
+     * Persists the journaled results that were not persisted before the last stop, so the
+     * accounts are loaded with them. The last batch may have been persisted without its
+     * checkpoint, so results already in the database are skipped.
+     */
+    private void replayJournal() {
+        if (balanceJournal == null) {
+            return;
+        }
+        List<TransactionDto> journaled = new ArrayList<>();
+        balanceJournal.replay(record -> journaled.add(record.toTransactionDto()));
+        List<TransactionDto> unpersisted = journaled.stream()
+                .filter(transactionDto -> transactionRepository.findByTransactionId(transactionDto.getTransactionId()).isEmpty())
+                .toList();
+        for (int from = 0; from < unpersisted.size(); from += batchSize) {
+            transactionService.saveEngineTransactions(unpersisted.subList(from, Math.min(from + batchSize, unpersisted.size())));
+        }
+        balanceJournal.markPersisted(balanceJournal.getLastSequence());
+        journaledSequence = balanceJournal.getLastSequence();
+        log.info("Balance engine replayed {} journaled transactions, {} were not persisted",
+                journaled.size(), unpersisted.size());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        consumer.join();
+        loader.shutdownNow();
+        persister.shutdown();
+        if (persister.awaitTermination(30, TimeUnit.SECONDS)) {
+            accountStateStore.markClean(accountRepository.findFirstByOrderByUpdatedAtDesc()
+                    .map(Account::getUpdatedAt)
+                    .orElse(null));
+            return;
+        }
+        // still retrying: the acknowledged transactions are logged so they can be recovered by hand
+        persister.shutdownNow();
+        unpersistedBatches.forEach(unpersisted -> unpersisted.forEach(transactionDto ->
+                log.error("Balance engine stopped before persisting transactionId : {}, accountNumber : {}, type : {}, "
+                                + "result : {}, amount : {}, balanceSnapShot : {}, transactedAt : {}, originalTransactionId : {}",
+                        transactionDto.getTransactionId(), transactionDto.getAccountNumber(),
+                        transactionDto.getTransactionType(), transactionDto.getTransactionResult(),
+                        transactionDto.getAmount(), transactionDto.getBalanceSnapShot(),
+                        transactionDto.getTransactedAt(), transactionDto.getOriginalTransactionId())));
+    }
+
+    public TransactionDto useBalance(Long userId, String accountNumber, long amount) {
+        return awaitCommitted(submitUse(userId, accountNumber, amount));
+    }
+
+    /**
+     * Publishes a use without waiting for it to be applied.
+     */
+    public CompletableFuture<TransactionDto> submitUse(Long userId, String accountNumber, long amount) {
+        return submit(accountNumber, account -> {
+            CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+            ringBuffer.publish(event -> event.setUse(userId, accountNumber, amount, account, result));
+            return result;
+        });
+    }
+
+    /**
+     * Looks the original up again if the cancel comes back as applied too long after the lookup.
+     */
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, long amount) {
+        while (true) {
+            try {
+                return awaitCommitted(submitCancel(transactionId, accountNumber, amount));
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof StaleLookupException)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<TransactionDto> submitCancel(String transactionId, String accountNumber, long amount) {
+        // in this order an applied use is found even if it is persisted in between
+        long lookedUpAt = System.nanoTime();
+        TransactionDto original = findUnpersistedUse(transactionId)
+                .or(() -> transactionRepository.findByTransactionId(transactionId).map(TransactionDto::fromEntity))
+                .or(() -> transactionArchive.find(transactionId))
+                .orElse(null);
+        ServerTiming.record("read", lookedUpAt);
+
+        return submit(accountNumber, account -> {
+            CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+            ringBuffer.publish(event -> event.setCancel(
+                    transactionId, accountNumber, amount, account, original, lookedUpAt, result));
+            return result;
+        });
+    }
+
+    /**
+     * Unregisters an account in the engine if its balance there is empty. No use or
+     * cancel applied afterwards sees the account in use.
+     */
+    public void unregisterAccount(Long userId, String accountNumber) {
+        await(submitAccountStatus(userId, accountNumber, AccountStatus.UNREGISTERED));
+    }
+
+    /**
+     * Puts back an account whose unregistering was rolled back in the database.
+     */
+    public void restoreAccount(String accountNumber) {
+        await(submitAccountStatus(null, accountNumber, AccountStatus.IN_USE));
+    }
+
+    /**
+     * A result applied but not persisted yet. It is removed only once the database has it,
+     * so looking here before the database finds every acknowledged result.
+     */
+    public Optional<TransactionDto> findUnpersisted(String transactionId) {
+        return Optional.ofNullable(unpersisted.get(transactionId));
+    }
+
+    /**
+     * The balance of an account in the engine, which is never behind the database's.
+     */
+    public OptionalLong findBalance(String accountNumber) {
+        return accountStateStore.contains(accountNumber)
+                ? OptionalLong.of(accountStateStore.getBalance(accountNumber))
+                : OptionalLong.empty();
+    }
+
+    private Optional<TransactionDto> findUnpersistedUse(String transactionId) {
+        return findUnpersisted(transactionId)
+                .filter(transactionDto -> transactionDto.getTransactionType() == TransactionType.USE
+                        && transactionDto.getTransactionResult() == TransactionResultType.S);
+    }
+
+    private CompletableFuture<TransactionDto> submitAccountStatus(Long userId, String accountNumber,
+                                                                  AccountStatus accountStatus) {
+        return submit(accountNumber, account -> {
+            CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+            ringBuffer.publish(event -> event.setAccountStatus(userId, accountNumber, accountStatus, account, result));
+            return result;
+        });
+    }
+
+    /**
+     * Waits for every applied command to be persisted, then compares the
+     * in-memory balances with the database.
+     *
+     * @return account numbers whose balances differ
+     */
+    public List<String> verifyAgainstDatabase() throws ExecutionException, InterruptedException {
+        persister.submit(() -> {
+        }).get();
+
+        List<String> mismatched = new ArrayList<>();
+        for (Account account : accountRepository.findAll()) {
+            String accountNumber = account.getAccountNumber();
+            if (accountStateStore.contains(accountNumber)
+                    && accountStateStore.getBalance(accountNumber) != account.getBalance()) {
+                log.warn("Balance mismatch for accountNumber : {}, engine : {}, database : {}",
+                        accountNumber, accountStateStore.getBalance(accountNumber), account.getBalance());
+                mismatched.add(account.getAccountNumber());
+            }
+        }
+        return mismatched;
+    }
+
+    private void consume() {
+        while (true) {
+            int drained = ringBuffer.drain(batchSize, this::handle);
+            if (drained == 0) {
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(50_000);
+                continue;
+            }
+
+            // acknowledged before the batch is handed over, so callers do not wait for the persister
+            Runnable acknowledge = takeAcknowledgements();
+            boolean journaled = commitJournal();
+            if (journaled) {
+                acknowledge.run();
+            }
+            if (!batch.isEmpty()) {
+                List<TransactionDto> applied = batch;
+                long appliedSequence = journaledSequence;
+                batch = new ArrayList<>(batchSize);
+                unpersistedBatches.add(applied);
+                persister.execute(() -> persist(applied, appliedSequence));
+            }
+            if (!journaled) {
+                // the results are only safe once persisted
+                persister.execute(acknowledge);
+            }
+        }
+    }
+
+    /**
+     * Completes a command right away without a journal, otherwise once the journal has
+     * forced its result.
+     */
+    private void acknowledge(Runnable completion) {
+        if (balanceJournal == null) {
+            completion.run();
+        } else {
+            acknowledgements.add(completion);
+        }
+    }
+
+    private Runnable takeAcknowledgements() {
+        if (acknowledgements.isEmpty()) {
+            return () -> {
+            };
+        }
+        List<Runnable> drained = List.copyOf(acknowledgements);
+        acknowledgements.clear();
+        return () -> drained.forEach(Runnable::run);
+    }
+
+    /**
+     * Forces the results journaled since the last call to disk, per the journal's
+     * {@link com.example.account.journal.FsyncPolicy}.
+     *
+     * @return false if the journal could not be forced
+     */
+    private boolean commitJournal() {
+        if (balanceJournal == null) {
+            return true;
+        }
+        try {
+            balanceJournal.commit();
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Balance engine failed to force the journal, acknowledging once persisted", e);
+            return false;
+        }
+    }
+
+    private void handle(BalanceEvent event) {
+        CompletableFuture<TransactionDto> result = event.getResult();
+        if (persistFailing) {
+            // nothing more is acknowledged until the applied commands are persisted
+            result.completeExceptionally(new AccountException(ErrorCode.INTERNAL_SERVER_ERROR));
+            event.clear();
+            return;
+        }
+        try {
+            TransactionDto transactionDto;
+            if (event.getTransactionType() == null) {
+                transactionDto = changeAccountStatus(event);
+            } else if (event.getTransactionType() == TransactionType.USE) {
+                transactionDto = use(event);
+            } else {
+                transactionDto = cancel(event);
+            }
+            if (transactionDto != null) {
+                record(transactionDto);
+            }
+            acknowledge(() -> result.complete(transactionDto));
+        } catch (AccountNotLoadedException | StaleLookupException e) {
+            result.completeExceptionally(e);
+        } catch (AccountException e) {
+            if (event.getTransactionType() != null && accountStateStore.contains(event.getAccountNumber())) {
+                recordFailure(event);
+            }
+            acknowledge(() -> result.completeExceptionally(e));
+        } catch (RuntimeException e) {
+            log.error("Balance engine failed to apply {}", event.getTransactionType(), e);
+            acknowledge(() -> result.completeExceptionally(e));
+        } finally {
+            event.clear();
+        }
+    }
+
+    private TransactionDto use(BalanceEvent event) {
+        String accountNumber = event.getAccountNumber();
+        loadAccountState(event);
+
+        if (!Objects.equals(event.getUserId(), accountStateStore.getUserId(accountNumber))) {
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCHED);
+        }
+        if (accountStateStore.getAccountStatus(accountNumber) != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        long balance = accountStateStore.getBalance(accountNumber);
+        if (balance < event.getAmount()) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+
+        return transaction(TransactionType.USE, TransactionResultType.S,
+                accountNumber, event.getAmount(), balance - event.getAmount());
+    }
+
+    private TransactionDto cancel(BalanceEvent event) {
+        String accountNumber = event.getAccountNumber();
+        // loaded first, so a cancel that fails is recorded against the account
+        loadAccountState(event);
+
+        if (System.nanoTime() - event.getLookedUpAt() > CANCEL_LOOKUP_TIMEOUT.toNanos()) {
+            // a cancel persisted after the lookup may no longer be remembered
+            throw STALE_LOOKUP;
+        }
+        TransactionDto original = findUnpersistedUse(event.getTransactionId()).orElse(event.getOriginal());
+        if (original == null) {
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+        }
+
+        if (original.getCanceledAt() != null || canceled.contains(original.getTransactionId())) {
+            throw new AccountException(ErrorCode.TRANSACTION_ALREADY_CANCELED);
+        }
+        if (!Objects.equals(original.getAccountNumber(), accountNumber)) {
+            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UNMATCHED);
+        }
+        if (original.getAmount() != event.getAmount()) {
+            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+        }
+        if (original.getTransactedAt().isBefore(clockService.yearAgo())) {
+            throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+        }
+
+        TransactionDto transactionDto = transaction(TransactionType.CANCEL, TransactionResultType.S,
+                accountNumber, event.getAmount(), accountStateStore.getBalance(accountNumber) + event.getAmount());
+        transactionDto.setOriginalTransactionId(original.getTransactionId());
+        return transactionDto;
+    }
+
+    /**
+     * Journals a result before it takes effect, then applies it to the store and
+     * queues it to be persisted.
+     */
+    private void record(TransactionDto transactionDto) {
+        if (balanceJournal != null) {
+            journaledSequence = balanceJournal.append(JournalRecord.from(transactionDto));
+        }
+        if (transactionDto.getTransactionResult() == TransactionResultType.S) {
+            accountStateStore.setBalance(transactionDto.getAccountNumber(), transactionDto.getBalanceSnapShot());
+            if (transactionDto.getTransactionType() == TransactionType.CANCEL) {
+                canceled.add(transactionDto.getOriginalTransactionId());
+            }
+        }
+        unpersisted.put(transactionDto.getTransactionId(), transactionDto);
+        batch.add(transactionDto);
+    }
+
+    private void recordFailure(BalanceEvent event) {
+        try {
+            record(transaction(event.getTransactionType(), TransactionResultType.F,
+                    event.getAccountNumber(), event.getAmount(), accountStateStore.getBalance(event.getAccountNumber())));
+        } catch (RuntimeException e) {
+            log.error("Balance engine failed to record a failed {}", event.getTransactionType(), e);
+        }
+    }
+
+    private TransactionDto changeAccountStatus(BalanceEvent event) {
+        String accountNumber = event.getAccountNumber();
+        loadAccountState(event);
+
+        if (event.getAccountStatus() == AccountStatus.UNREGISTERED) {
+            if (!Objects.equals(event.getUserId(), accountStateStore.getUserId(accountNumber))) {
+                throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCHED);
+            }
+            if (accountStateStore.getAccountStatus(accountNumber) == AccountStatus.UNREGISTERED) {
+                throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            if (accountStateStore.getBalance(accountNumber) > 0) {
+                throw new AccountException(ErrorCode.BALANCE_NOT_EMPTY);
+            }
+        }
+        accountStateStore.setAccountStatus(accountNumber, event.getAccountStatus());
+        return null;
+    }
+
+    private void loadAccountState(BalanceEvent event) {
+        if (!accountStateStore.contains(event.getAccountNumber())) {
+            // accounts opened after the engine started are read by the loader on first use
+            if (event.getAccount() == null) {
+                throw ACCOUNT_NOT_LOADED;
+            }
+            accountStateStore.put(event.getAccount());
+        }
+    }
+
+    /**
+     * Publishes a command, and publishes it again with its account once the loader
+     * has read it if the consumer sent it back.
+     */
+    private CompletableFuture<TransactionDto> submit(String accountNumber,
+                                                     Function<Account, CompletableFuture<TransactionDto>> publish) {
+        return publish.apply(null).exceptionallyCompose(e -> e instanceof AccountNotLoadedException
+                ? CompletableFuture.supplyAsync(() -> findAccount(accountNumber), loader).thenCompose(publish)
+                : CompletableFuture.failedFuture(e));
+    }
+
+    private Account findAccount(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .filter(found -> AccountStateStore.isAddressable(found.getAccountNumber()))
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+    }
+
+    private void persist(List<TransactionDto> transactionDtos, long journaledUpTo) {
+        long backoffMillis = MIN_PERSIST_BACKOFF_MILLIS;
+        while (true) {
+            try {
+                transactionService.saveEngineTransactions(transactionDtos);
+                break;
+            } catch (RuntimeException e) {
+                persistFailing = true;
+                log.error("Balance engine failed to persist {} transactions, retrying in {} ms",
+                        transactionDtos.size(), backoffMillis, e);
+            }
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoffMillis = Math.min(backoffMillis * 2, MAX_PERSIST_BACKOFF_MILLIS);
+        }
+
+        unpersistedBatches.remove();
+        if (balanceJournal != null) {
+            balanceJournal.markPersisted(journaledUpTo);
+        }
+        long persistedAt = System.nanoTime();
+        transactionDtos.forEach(transactionDto -> {
+            unpersisted.remove(transactionDto.getTransactionId());
+            if (transactionDto.getOriginalTransactionId() != null) {
+                persistedCancels.add(new PersistedCancel(transactionDto.getOriginalTransactionId(), persistedAt));
+            }
+        });
+        PersistedCancel oldest;
+        while ((oldest = persistedCancels.peek()) != null
+                && persistedAt - oldest.persistedAt() > CANCEL_LOOKUP_TIMEOUT.toNanos()) {
+            canceled.remove(persistedCancels.remove().originalTransactionId());
+        }
+        if (persistFailing) {
+            persistFailing = false;
+            log.info("Balance engine persisted {} transactions, resuming", transactionDtos.size());
+        }
+    }
+
+    private TransactionDto transaction(TransactionType transactionType, TransactionResultType transactionResultType,
+                                       String accountNumber, long amount, long balanceSnapShot) {
+        return TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(transactionType)
+                .transactionResult(transactionResultType)
+                .amount(amount)
+                .balanceSnapShot(balanceSnapShot)
+                .transactionId(UUID.randomUUID().toString().replace("-", ""))
+                .transactedAt(clockService.now())
+                .build();
+    }
+
+    /**
+     * Waits for a use or cancel to be applied and, with the journal, forced to disk: the
+     * {@code commit} phase of the request.
+     */
+    private static TransactionDto awaitCommitted(CompletableFuture<TransactionDto> result) {
+        long commitStartedAt = System.nanoTime();
+        try {
+            return await(result);
+        } finally {
+            ServerTiming.record("commit", commitStartedAt);
+        }
+    }
+
+    private static TransactionDto await(CompletableFuture<TransactionDto> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AccountException accountException) {
+                throw accountException;
+            }
+            throw e;
+        }
+    }
+}
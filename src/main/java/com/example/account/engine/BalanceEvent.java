@@ -0,0 +1,79 @@
+package com.example.account.engine;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.TransactionDto;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.TransactionType;
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Mutable ring buffer slot, reused for every command that passes through it.
+ * Whatever the command needs from the database is looked up before it is
+ * published: the account when it is not in the store yet, and the original
+ * transaction of a cancel. A status change of an account has no transaction type.
+ */
+@Getter
+public class BalanceEvent {
+    private TransactionType transactionType;
+    private Long userId;
+    private String transactionId;
+    private String accountNumber;
+    private long amount;
+    private AccountStatus accountStatus;
+    private Account account;
+    private TransactionDto original;
+    private long lookedUpAt;
+    private CompletableFuture<TransactionDto> result;
+
+    void setUse(Long userId, String accountNumber, long amount, Account account,
+                CompletableFuture<TransactionDto> result) {
+        this.transactionType = TransactionType.USE;
+        this.userId = userId;
+        this.transactionId = null;
+        this.accountNumber = accountNumber;
+        this.amount = amount;
+        this.accountStatus = null;
+        this.account = account;
+        this.original = null;
+        this.lookedUpAt = 0;
+        this.result = result;
+    }
+
+    void setCancel(String transactionId, String accountNumber, long amount, Account account,
+                   TransactionDto original, long lookedUpAt, CompletableFuture<TransactionDto> result) {
+        this.transactionType = TransactionType.CANCEL;
+        this.userId = null;
+        this.transactionId = transactionId;
+        this.accountNumber = accountNumber;
+        this.amount = amount;
+        this.accountStatus = null;
+        this.account = account;
+        this.original = original;
+        this.lookedUpAt = lookedUpAt;
+        this.result = result;
+    }
+
+    void setAccountStatus(Long userId, String accountNumber, AccountStatus accountStatus, Account account,
+                          CompletableFuture<TransactionDto> result) {
+        this.transactionType = null;
+        this.userId = userId;
+        this.transactionId = null;
+        this.accountNumber = accountNumber;
+        this.amount = 0;
+        this.accountStatus = accountStatus;
+        this.account = account;
+        this.original = null;
+        this.lookedUpAt = 0;
+        this.result = result;
+    }
+
+    void clear() {
+        this.transactionId = null;
+        this.accountNumber = null;
+        this.account = null;
+        this.original = null;
+        this.result = null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.account.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Pre-allocated ring buffer in the style of the LMAX disruptor.
+ * Producers claim a sequence, fill the slot in place and publish it;
+ * a single consumer drains published slots in batches.
+ */
+public class BalanceRingBuffer<E> {
+    private final Object[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private volatile long consumed = -1;
+
+    public BalanceRingBuffer(int capacity, Supplier<E> factory) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        this.slots = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = factory.get();
+            published.set(i, -1);
+        }
+    }
+
+    public void publish(Consumer<E> translator) {
+        long sequence = claimed.incrementAndGet();
+        while (sequence - consumed > slots.length) {
+            LockSupport.parkNanos(1_000);
+        }
+        int index = (int) (sequence & mask);
+        translator.accept(slot(index));
+        published.set(index, sequence);
+    }
+
+    /**
+     * Hands every published slot, up to {@code maxBatch}, to the handler and
+     * releases them afterwards. Must be called from a single consumer thread.
+     *
+     * @return the number of slots drained
+     */
+    public int drain(int maxBatch, Consumer<E> handler) {
+        long next = consumed + 1;
+        int count = 0;
+        while (count < maxBatch && published.get((int) ((next + count) & mask)) == next + count) {
+            handler.accept(slot((int) ((next + count) & mask)));
+            count++;
+        }
+        if (count > 0) {
+            consumed = next + count - 1;
+        }
+        return count;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E slot(int index) {
+        return (E) slots[index];
+    }
+}
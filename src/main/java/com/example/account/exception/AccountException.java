@@ -16,4 +16,13 @@ public class AccountException extends RuntimeException {
         this.errorCode = errorCode;
         this.errorMessage = errorCode.getDescription();
     }
+
+    /**
+     * Business errors are expected outcomes, such as a balance that is too low,
+     * so capturing a stack trace would only cost CPU.
+     */
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
 }
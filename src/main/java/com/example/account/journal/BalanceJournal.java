@@ -0,0 +1,248 @@
+package com.example.account.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only write-ahead journal of balance mutations, kept in memory-mapped segment
+ * files of fixed-size {@link JournalRecord}s.
+ * <p>
+ * A record is appended before its transaction is written to the database, and the
+ * writer marks the sequence it has persisted up to with {@link #markPersisted(long)}.
+ * {@link #replay(Consumer)} returns only the records after that checkpoint, and a
+ * segment whose records are all persisted is deleted when the journal rolls over.
+ * The checkpoint is not synced, so a record may be replayed after it was persisted.
+ */
+@Slf4j
+public class BalanceJournal implements Closeable {
+    private static final String SEGMENT_PREFIX = "balance-journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "balance-journal.checkpoint";
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final FsyncPolicy fsyncPolicy;
+    private final int fsyncBatchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final FileChannel checkpointChannel;
+    private final MappedByteBuffer checkpoint;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int position;
+    private int unsyncedFrom;
+    private long lastSequence;
+
+    public BalanceJournal(Path directory, int segmentSize, FsyncPolicy fsyncPolicy, int fsyncBatchSize) {
+        if (segmentSize < JournalRecord.SIZE) {
+            throw new IllegalArgumentException("segmentSize must hold at least one record");
+        }
+        this.directory = directory;
+        this.recordsPerSegment = segmentSize / JournalRecord.SIZE;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncBatchSize = Math.max(1, fsyncBatchSize);
+
+        try {
+            Files.createDirectories(directory);
+            checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            checkpoint = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long append(JournalRecord record) {
+        lock.lock();
+        try {
+            if (position == recordsPerSegment) {
+                roll(lastSequence + 1);
+            }
+            long sequence = ++lastSequence;
+            record.writeTo(segment, position * JournalRecord.SIZE, sequence);
+            position++;
+            sync(false);
+
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replays, in sequence order, every record after the last {@link #markPersisted(long)}
+     * checkpoint. Replay stops at the first empty slot or torn record of the last segment.
+     */
+    public void replay(Consumer<JournalRecord> consumer) {
+        lock.lock();
+        try {
+            long persistedSequence = getPersistedSequence();
+            List<Path> segments = segments();
+            for (int s = 0; s < segments.size(); s++) {
+                if (s + 1 < segments.size() && firstSequenceOf(segments.get(s + 1)) <= persistedSequence + 1) {
+                    continue;
+                }
+                try (FileChannel readChannel = FileChannel.open(segments.get(s), StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                    int slots = (int) (readChannel.size() / JournalRecord.SIZE);
+                    for (int i = 0; i < slots && JournalRecord.isValid(buffer, i * JournalRecord.SIZE); i++) {
+                        if (buffer.getLong(i * JournalRecord.SIZE + 8) > persistedSequence) {
+                            consumer.accept(JournalRecord.readFrom(buffer, i * JournalRecord.SIZE));
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Records that every record up to {@code sequence} is in the database.
+     */
+    public void markPersisted(long sequence) {
+        checkpoint.putLong(0, sequence);
+    }
+
+    public long getPersistedSequence() {
+        return checkpoint.getLong(0);
+    }
+
+    /**
+     * Forces the records appended since the last force, unless the policy is
+     * {@link FsyncPolicy#NONE}. The balance engine calls it once per batch of commands,
+     * before it acknowledges them.
+     */
+    public void commit() {
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        lock.lock();
+        try {
+            sync(true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (channel != null) {
+                sync(true);
+                channel.close();
+                channel = null;
+                segment = null;
+                checkpoint.force();
+                checkpointChannel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            roll(1);
+            return;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        open(last);
+        while (position < recordsPerSegment && JournalRecord.isValid(segment, position * JournalRecord.SIZE)) {
+            lastSequence = segment.getLong(position * JournalRecord.SIZE + 8);
+            position++;
+        }
+        if (position == 0) {
+            lastSequence = firstSequenceOf(last) - 1;
+        }
+        // anything past the last valid record is a torn write from a crash
+        for (int offset = position * JournalRecord.SIZE; offset < segment.capacity(); offset += Long.BYTES) {
+            segment.putLong(offset, 0L);
+        }
+        segment.force();
+        unsyncedFrom = position;
+
+        log.info("Balance journal recovered. segments : {}, lastSequence : {}", segments.size(), lastSequence);
+    }
+
+    private void roll(long firstSequence) throws IOException {
+        if (channel != null) {
+            sync(true);
+            channel.close();
+        }
+        open(directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX)));
+        deletePersistedSegments();
+    }
+
+    private void deletePersistedSegments() throws IOException {
+        long persistedSequence = getPersistedSequence();
+        List<Path> segments = segments();
+        for (int s = 0; s + 1 < segments.size(); s++) {
+            if (firstSequenceOf(segments.get(s + 1)) > persistedSequence + 1) {
+                return;
+            }
+            Files.delete(segments.get(s));
+        }
+    }
+
+    private void open(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * JournalRecord.SIZE);
+        position = 0;
+        unsyncedFrom = 0;
+    }
+
+    private void sync(boolean force) {
+        int pending = position - unsyncedFrom;
+        if (pending == 0) {
+            return;
+        }
+        if (force || fsyncPolicy == FsyncPolicy.ALWAYS
+                || (fsyncPolicy == FsyncPolicy.BATCH && pending >= fsyncBatchSize)) {
+            segment.force(unsyncedFrom * JournalRecord.SIZE, pending * JournalRecord.SIZE);
+            unsyncedFrom = position;
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
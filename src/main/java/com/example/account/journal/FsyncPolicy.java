@@ -0,0 +1,24 @@
+package com.example.account.journal;
+
+/**
+ * When {@link BalanceJournal} forces appended records to disk. With {@code ALWAYS} and
+ * {@code BATCH} the balance engine acknowledges a command only once its record is forced,
+ * so an acknowledged result survives a crash of the machine.
+ */
+public enum FsyncPolicy {
+    /**
+     * Every record is forced as it is appended.
+     */
+    ALWAYS,
+    /**
+     * Records are forced once per batch of commands the engine applies (group commit), and
+     * every {@code fsync-batch-size} records within a larger one.
+     */
+    BATCH,
+    /**
+     * Records are left to the operating system. They survive a crash of the process, but
+     * the ones not yet written back, usually the last 30 seconds or so, are lost with the
+     * machine.
+     */
+    NONE
+}
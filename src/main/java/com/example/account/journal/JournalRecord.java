@@ -0,0 +1,134 @@
+package com.example.account.journal;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+
+/**
+ * Fixed-size (96 byte) journal record, enough to write the transaction row again.
+ * <pre>
+ * 0  crc32 of bytes 4..95
+ * 4  transactionType ordinal
+ * 5  transactionResultType ordinal
+ * 6  flags: 1 originalTransactionId, 2 canceledAt
+ * 8  sequence
+ * 16 accountNumber
+ * 24 amount
+ * 32 balanceSnapShot
+ * 40 transactedAt (epoch millis, UTC)
+ * 48 transactionId (128 bit hex)
+ * 64 originalTransactionId (128 bit hex)
+ * 80 canceledAt (epoch millis, UTC)
+ * 88 reserved
+ * </pre>
+ * {@code canceledAt} of a successful cancel is when its original transaction was canceled.
+ */
+@Getter
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@ToString
+@EqualsAndHashCode
+public class JournalRecord {
+    public static final int SIZE = 96;
+
+    private static final short HAS_ORIGINAL_TRANSACTION_ID = 1;
+    private static final short HAS_CANCELED_AT = 2;
+
+    private long sequence;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+    private String accountNumber;
+    private long amount;
+    private long balanceSnapShot;
+    private String transactionId;
+    private LocalDateTime transactedAt;
+    private String originalTransactionId;
+    private LocalDateTime canceledAt;
+
+    public static JournalRecord from(TransactionDto transactionDto) {
+        boolean cancels = transactionDto.getOriginalTransactionId() != null
+                && transactionDto.getTransactionResult() == TransactionResultType.S;
+        return JournalRecord.builder()
+                .transactionType(transactionDto.getTransactionType())
+                .transactionResultType(transactionDto.getTransactionResult())
+                .accountNumber(transactionDto.getAccountNumber())
+                .amount(transactionDto.getAmount())
+                .balanceSnapShot(transactionDto.getBalanceSnapShot())
+                .transactionId(transactionDto.getTransactionId())
+                .transactedAt(transactionDto.getTransactedAt())
+                .originalTransactionId(transactionDto.getOriginalTransactionId())
+                .canceledAt(cancels ? transactionDto.getTransactedAt() : null)
+                .build();
+    }
+
+    public TransactionDto toTransactionDto() {
+        return TransactionDto.builder()
+                .transactionType(transactionType)
+                .transactionResult(transactionResultType)
+                .accountNumber(accountNumber)
+                .amount(amount)
+                .balanceSnapShot(balanceSnapShot)
+                .transactionId(transactionId)
+                .transactedAt(transactedAt)
+                .originalTransactionId(originalTransactionId)
+                .build();
+    }
+
+    void writeTo(ByteBuffer buffer, int offset, long sequence) {
+        buffer.put(offset + 4, (byte) transactionType.ordinal());
+        buffer.put(offset + 5, (byte) transactionResultType.ordinal());
+        buffer.putShort(offset + 6, (short) ((originalTransactionId == null ? 0 : HAS_ORIGINAL_TRANSACTION_ID)
+                | (canceledAt == null ? 0 : HAS_CANCELED_AT)));
+        buffer.putLong(offset + 8, sequence);
+        buffer.putLong(offset + 16, Long.parseLong(accountNumber));
+        buffer.putLong(offset + 24, amount);
+        buffer.putLong(offset + 32, balanceSnapShot);
+        buffer.putLong(offset + 40, transactedAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+        buffer.putLong(offset + 48, Long.parseUnsignedLong(transactionId.substring(0, 16), 16));
+        buffer.putLong(offset + 56, Long.parseUnsignedLong(transactionId.substring(16, 32), 16));
+        buffer.putLong(offset + 64, originalTransactionId == null ? 0L : Long.parseUnsignedLong(originalTransactionId.substring(0, 16), 16));
+        buffer.putLong(offset + 72, originalTransactionId == null ? 0L : Long.parseUnsignedLong(originalTransactionId.substring(16, 32), 16));
+        buffer.putLong(offset + 80, canceledAt == null ? 0L : canceledAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+        buffer.putLong(offset + 88, 0L);
+        buffer.putInt(offset, checksum(buffer, offset));
+    }
+
+    static JournalRecord readFrom(ByteBuffer buffer, int offset) {
+        short flags = buffer.getShort(offset + 6);
+        return JournalRecord.builder()
+                .transactionType(TransactionType.values()[buffer.get(offset + 4)])
+                .transactionResultType(TransactionResultType.values()[buffer.get(offset + 5)])
+                .sequence(buffer.getLong(offset + 8))
+                .accountNumber(Long.toString(buffer.getLong(offset + 16)))
+                .amount(buffer.getLong(offset + 24))
+                .balanceSnapShot(buffer.getLong(offset + 32))
+                .transactedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong(offset + 40)), ZoneOffset.UTC))
+                .transactionId(String.format("%016x%016x", buffer.getLong(offset + 48), buffer.getLong(offset + 56)))
+                .originalTransactionId((flags & HAS_ORIGINAL_TRANSACTION_ID) == 0 ? null
+                        : String.format("%016x%016x", buffer.getLong(offset + 64), buffer.getLong(offset + 72)))
+                .canceledAt((flags & HAS_CANCELED_AT) == 0 ? null
+                        : LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong(offset + 80)), ZoneOffset.UTC))
+                .build();
+    }
+
+    /**
+     * A slot is valid when it carries a sequence and its checksum matches.
+     * An empty slot or a torn write marks the end of the journal.
+     */
+    static boolean isValid(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 8) > 0 && buffer.getInt(offset) == checksum(buffer, offset);
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset + 4, SIZE - 4));
+        return (int) crc.getValue();
+    }
+}
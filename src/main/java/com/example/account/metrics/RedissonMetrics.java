@@ -0,0 +1,52 @@
+package com.example.account.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.Redisson;
+import org.redisson.api.Node;
+import org.redisson.api.RedissonClient;
+import org.redisson.connection.ConnectionManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Connection gauges for the Redisson client, which has no Micrometer binder of its own.
+ * Redisson does not expose its pool occupancy, so open connections are taken from
+ * {@code INFO CLIENTS} of each node on every scrape.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedissonMetrics implements MeterBinder {
+    private final RedissonClient redissonClient;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("redisson.nodes", redissonClient, client -> client.getNodesGroup().getNodes().size())
+                .description("Redis nodes known to the client")
+                .register(registry);
+        if (redissonClient instanceof Redisson redisson) {
+            ConnectionManager connectionManager = redisson.getConnectionManager();
+            Gauge.builder("redisson.connections.max", connectionManager,
+                            manager -> manager.getEntrySet().size() * manager.getConfig().getMasterConnectionPoolSize())
+                    .description("Command connection pool size of the master nodes")
+                    .register(registry);
+        }
+        Gauge.builder("redis.clients.connected", redissonClient, RedissonMetrics::connectedClients)
+                .description("Clients connected to the Redis nodes, from every application node")
+                .register(registry);
+    }
+
+    private static double connectedClients(RedissonClient redissonClient) {
+        try {
+            return redissonClient.getNodesGroup().getNodes().stream()
+                    .mapToLong(node -> Long.parseLong(node.info(Node.InfoSection.CLIENTS).get("connected_clients")))
+                    .sum();
+        } catch (Exception e) {
+            log.debug("Redis INFO CLIENTS failed");
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.account.metrics;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Phase durations of the current request, returned as a {@code Server-Timing} header.
+ * Bound to the request thread by {@link ServerTimingFilter}; outside of a request every
+ * call is a no-op, so services and aspects can record unconditionally.
+ */
+public final class ServerTiming {
+    public static final String HEADER = "Server-Timing";
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>(8);
+
+    private ServerTiming() {
+    }
+
+    static ServerTiming begin() {
+        ServerTiming serverTiming = new ServerTiming();
+        CURRENT.set(serverTiming);
+        return serverTiming;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static ServerTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Adds the time since {@code startedAt} ({@link System#nanoTime()}) to the phase.
+     * A phase recorded more than once is summed.
+     */
+    public static void record(String phase, long startedAt) {
+        ServerTiming serverTiming = CURRENT.get();
+        if (serverTiming != null) {
+            serverTiming.add(phase, System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * Records the commit of the current transaction, including the flush, as {@code commit}.
+     */
+    public static void recordCommit() {
+        ServerTiming serverTiming = CURRENT.get();
+        if (serverTiming == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long commitStartedAt;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitStartedAt = System.nanoTime();
+            }
+
+            @Override
+            public void afterCommit() {
+                serverTiming.add("commit", System.nanoTime() - commitStartedAt);
+            }
+        });
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    private void add(String phase, long nanos) {
+        phases.merge(phase, nanos, Long::sum);
+    }
+
+    /**
+     * @return e.g. {@code lock;dur=0.8, read;dur=1.2, commit;dur=2.1, total;dur=5.0}, in milliseconds
+     */
+    String toHeaderValue() {
+        StringBuilder builder = new StringBuilder(16 * (phases.size() + 1));
+        phases.forEach((phase, nanos) -> appendMetric(builder, phase, nanos).append(", "));
+        return appendMetric(builder, "total", elapsedNanos()).toString();
+    }
+
+    private static StringBuilder appendMetric(StringBuilder builder, String phase, long nanos) {
+        long tenthsOfMillis = nanos / 100_000;
+        return builder.append(phase).append(";dur=").append(tenthsOfMillis / 10).append('.').append(tenthsOfMillis % 10);
+    }
+}
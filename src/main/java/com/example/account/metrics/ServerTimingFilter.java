@@ -0,0 +1,49 @@
+package com.example.account.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Binds a {@link ServerTiming} to each request and logs a sample of the requests
+ * slower than {@code account.server-timing.slow-threshold} as one key=value line.
+ * The header itself is written by {@link ServerTimingResponseAdvice} before the body.
+ */
+@Slf4j
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+    private final long slowThresholdNanos;
+    private final double slowSampleRate;
+
+    public ServerTimingFilter(@Value("${account.server-timing.slow-threshold}") Duration slowThreshold,
+                              @Value("${account.server-timing.slow-sample-rate}") double slowSampleRate) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.slowSampleRate = slowSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ServerTiming serverTiming = ServerTiming.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ServerTiming.end();
+            if (serverTiming.elapsedNanos() > slowThresholdNanos
+                    && ThreadLocalRandom.current().nextDouble() < slowSampleRate) {
+                log.warn("event=slow_request method={} path={} status={} timing=\"{}\"",
+                        request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        serverTiming.toHeaderValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.account.metrics;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Counts {@code TransactionService} and {@code BalanceEngine} outcomes as
+ * {@code account.transactions}, tagged by type, result and error code. Runs outside of the
+ * transactional proxy so only committed results count as success.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@Order(1)
+public class TransactionMetricsAopAspect {
+    static final String TRANSACTIONS = "account.transactions";
+    private static final String NONE = "NONE";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(* com.example.account.service.TransactionService.useBalance(..))"
+            + " || execution(* com.example.account.engine.BalanceEngine.useBalance(..))")
+    public Object aroundUse(ProceedingJoinPoint pjp) throws Throwable {
+        return count(pjp, TransactionType.USE);
+    }
+
+    @Around("execution(* com.example.account.service.TransactionService.cancelBalance(..))"
+            + " || execution(* com.example.account.engine.BalanceEngine.cancelBalance(..))")
+    public Object aroundCancel(ProceedingJoinPoint pjp) throws Throwable {
+        return count(pjp, TransactionType.CANCEL);
+    }
+
+    /**
+     * A batch either returns a result per request or fails the whole account group.
+     */
+    @Around("execution(* com.example.account.service.TransactionService.useBalances(..)) && args(accountNumber, requests)")
+    public Object aroundUseAll(ProceedingJoinPoint pjp, String accountNumber, List<?> requests) throws Throwable {
+        try {
+            @SuppressWarnings("unchecked")
+            List<TransactionDto> transactionDtos = (List<TransactionDto>) pjp.proceed();
+            transactionDtos.forEach(transactionDto -> increment(transactionDto.getTransactionType(),
+                    transactionDto.getTransactionResult(), transactionDto.getErrorCode()));
+            return transactionDtos;
+        } catch (AccountException e) {
+            requests.forEach(request -> increment(TransactionType.USE, TransactionResultType.F, e.getErrorCode()));
+            throw e;
+        } catch (RuntimeException e) {
+            requests.forEach(request -> increment(TransactionType.USE, TransactionResultType.F, ErrorCode.INTERNAL_SERVER_ERROR));
+            throw e;
+        }
+    }
+
+    /**
+     * A use sent to the engine is counted when it completes, before its caller sees the result.
+     */
+    @Around("execution(* com.example.account.engine.BalanceEngine.submitUse(..))")
+    public Object aroundSubmitUse(ProceedingJoinPoint pjp) throws Throwable {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<TransactionDto> result = (CompletableFuture<TransactionDto>) pjp.proceed();
+        return result.whenComplete((transactionDto, e) -> {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause == null) {
+                increment(TransactionType.USE, TransactionResultType.S, null);
+            } else {
+                increment(TransactionType.USE, TransactionResultType.F, cause instanceof AccountException accountException
+                        ? accountException.getErrorCode()
+                        : ErrorCode.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    private Object count(ProceedingJoinPoint pjp, TransactionType transactionType) throws Throwable {
+        try {
+            Object result = pjp.proceed();
+            increment(transactionType, TransactionResultType.S, null);
+            return result;
+        } catch (AccountException e) {
+            increment(transactionType, TransactionResultType.F, e.getErrorCode());
+            throw e;
+        } catch (RuntimeException e) {
+            increment(transactionType, TransactionResultType.F, ErrorCode.INTERNAL_SERVER_ERROR);
+            throw e;
+        }
+    }
+
+    private void increment(TransactionType transactionType, TransactionResultType resultType, ErrorCode errorCode) {
+        Counter.builder(TRANSACTIONS)
+                .description("Transaction outcomes")
+                .tag("type", transactionType.name())
+                .tag("result", resultType.name())
+                .tag("error", errorCode == null ? NONE : errorCode.name())
+                .register(meterRegistry)
+                .increment();
+    }
+}
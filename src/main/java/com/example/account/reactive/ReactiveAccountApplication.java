@@ -0,0 +1,30 @@
+package com.example.account.reactive;
+
+import com.example.account.config.LocalRedisConfig;
+import com.example.account.config.RedisRepositoryConfig;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
+
+/**
+ * Entry point of the reactive (WebFlux + R2DBC) variant of the account API.
+ * It reads {@code reactive.yml} instead of {@code application.yml} and only
+ * scans this package, so it never shares beans with {@code AccountApplication}.
+ */
+@SpringBootApplication
+@EnableR2dbcAuditing
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Import({LocalRedisConfig.class, RedisRepositoryConfig.class})
+public class ReactiveAccountApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveAccountApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .properties("spring.config.name=reactive")
+                .run(args);
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.example.account.reactive.controller;
+
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.reactive.service.ReactiveLockService;
+import com.example.account.reactive.service.ReactiveTransactionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTransactionController {
+    private final ReactiveTransactionService transactionService;
+    private final ReactiveLockService lockService;
+
+    @PostMapping("/transaction/use")
+    public Mono<UseBalance.Response> useBalance(@RequestBody @Valid UseBalance.Request request) {
+        return lockService.withLock(request.getAccountNumber(), () -> transactionService
+                .useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount())
+                .map(UseBalance.Response::from)
+                .onErrorResume(AccountException.class, e -> {
+                    log.debug("Failed to use balance");
+                    return transactionService.saveFailedUseTransaction(request.getAccountNumber(), request.getAmount())
+                            .then(Mono.error(e));
+                }));
+    }
+
+    @PostMapping("/transaction/cancel")
+    public Mono<CancelBalance.Response> cancelBalance(@RequestBody @Valid CancelBalance.Request request) {
+        return lockService.withLock(request.getAccountNumber(), () -> transactionService
+                .cancelBalance(request.getTransactionId(), request.getAccountNumber(), request.getAmount())
+                .map(CancelBalance.Response::from)
+                .onErrorResume(AccountException.class, e -> {
+                    log.debug("Failed to cancel balance");
+                    return transactionService.saveFailedCancelTransaction(request.getAccountNumber(), request.getAmount())
+                            .then(Mono.error(e));
+                }));
+    }
+
+    @GetMapping("/transaction/{transactionId}")
+    public Mono<QueryTransactionResponse> queryTransaction(@PathVariable String transactionId) {
+        return transactionService.queryTransaction(transactionId)
+                .map(QueryTransactionResponse::from);
+    }
+}
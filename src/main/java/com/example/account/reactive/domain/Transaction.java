@@ -0,0 +1,34 @@
+package com.example.account.reactive.domain;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class Transaction {
+    @Id
+    private Long id;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+    private Long accountId;
+    private Long amount;
+    private Long balanceSnapShot;
+    private String transactionId;
+    private LocalDateTime transactedAt;
+    private String originalTransactionId;
+    private LocalDateTime canceledAt;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,44 @@
+package com.example.account.reactive.exception;
+
+import com.example.account.dto.ErrorResponse;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+@Slf4j
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+    @ExceptionHandler(AccountException.class)
+    public ErrorResponse handleAccountException(AccountException e) {
+        log.debug("{} is occurred.", e.getErrorCode());
+
+        return ErrorResponse.of(e.getErrorCode(), e.getErrorMessage());
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ErrorResponse handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+        log.error("{} is occurred.", e);
+
+        return ErrorResponse.of(ErrorCode.INVALID_REQUEST);
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ErrorResponse handleWebExchangeBindException(WebExchangeBindException e) {
+        log.error("{} is occurred.", e);
+
+        return ErrorResponse.of(ErrorCode.INVALID_REQUEST);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ErrorResponse handleException(Exception e) {
+        log.error("{} is occurred.", e);
+
+        return ErrorResponse.of(ErrorCode.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.account.reactive.repository;
+
+import com.example.account.reactive.domain.Account;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface AccountRepository extends R2dbcRepository<Account, Long> {
+    Mono<Account> findFirstByOrderByIdDesc();
+
+    Mono<Account> findByAccountNumber(String accountNumber);
+
+    Flux<Account> findByAccountUserId(Long accountUserId);
+
+    Mono<Long> countByAccountUserId(Long accountUserId);
+}
@@ -0,0 +1,7 @@
+package com.example.account.reactive.repository;
+
+import com.example.account.reactive.domain.AccountUser;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+public interface AccountUserRepository extends R2dbcRepository<AccountUser, Long> {
+}
@@ -0,0 +1,9 @@
+package com.example.account.reactive.repository;
+
+import com.example.account.reactive.domain.Transaction;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Mono;
+
+public interface TransactionRepository extends R2dbcRepository<Transaction, Long> {
+    Mono<Transaction> findByTransactionId(String transactionId);
+}
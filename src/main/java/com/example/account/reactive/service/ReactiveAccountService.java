@@ -0,0 +1,107 @@
+package com.example.account.reactive.service;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.reactive.domain.Account;
+import com.example.account.reactive.domain.AccountUser;
+import com.example.account.reactive.repository.AccountRepository;
+import com.example.account.reactive.repository.AccountUserRepository;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.AccountStatus.UNREGISTERED;
+
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountService {
+    private final AccountRepository accountRepository;
+    private final AccountUserRepository accountUserRepository;
+
+    @Transactional
+    public Mono<AccountDto> createAccount(Long userId, Long initialBalance) {
+        return getAccountUser(userId)
+                .flatMap(accountUser -> validateCreateAccount(accountUser)
+                        .then(accountRepository.findFirstByOrderByIdDesc()
+                                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
+                                .defaultIfEmpty("1000000000"))
+                        .flatMap(newAccountNumber -> accountRepository.save(
+                                Account.builder()
+                                        .accountUserId(accountUser.getId())
+                                        .accountNumber(newAccountNumber)
+                                        .balance(initialBalance)
+                                        .accountStatus(IN_USE)
+                                        .registeredAt(LocalDateTime.now())
+                                        .build())))
+                .map(ReactiveAccountService::toDto);
+    }
+
+
+    @Transactional
+    public Mono<AccountDto> deleteAccount(Long userId, String accountNumber) {
+        return getAccountUser(userId)
+                .flatMap(accountUser -> accountRepository.findByAccountNumber(accountNumber)
+                        .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND)))
+                        .flatMap(account -> {
+                            validateDeleteAccount(accountUser, account);
+
+                            account.setAccountStatus(UNREGISTERED);
+                            account.setUnRegisteredAt(LocalDateTime.now());
+                            return accountRepository.save(account);
+                        }))
+                .map(ReactiveAccountService::toDto);
+    }
+
+    private void validateDeleteAccount(AccountUser accountUser, Account account) {
+        if (!Objects.equals(accountUser.getId(), account.getAccountUserId())) {
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCHED);
+        }
+        if (account.getAccountStatus() == UNREGISTERED) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if (account.getBalance() > 0) {
+            throw new AccountException(ErrorCode.BALANCE_NOT_EMPTY);
+        }
+
+    }
+
+
+    public Flux<AccountDto> getAccountsByUserId(Long userId) {
+        return getAccountUser(userId)
+                .flatMapMany(accountUser -> accountRepository.findByAccountUserId(accountUser.getId()))
+                .map(ReactiveAccountService::toDto);
+    }
+
+    private Mono<AccountUser> getAccountUser(Long userId) {
+        return accountUserRepository.findById(userId)
+                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.USER_NOT_FOUND)));
+    }
+
+    private Mono<Void> validateCreateAccount(AccountUser accountUser) {
+        return accountRepository.countByAccountUserId(accountUser.getId())
+                .flatMap(count -> count >= 10
+                        ? Mono.error(new AccountException(ErrorCode.USER_ACCOUNT_PER_USER_10))
+                        : Mono.empty());
+    }
+
+    private static AccountDto toDto(Account account) {
+        return AccountDto.builder()
+                .userId(account.getAccountUserId())
+                .accountNumber(account.getAccountNumber())
+                .balance(account.getBalance())
+                .registeredAt(account.getRegisteredAt())
+                .unRegisteredAt(account.getUnRegisteredAt())
+                .build();
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.example.account.reactive.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.service.LockRouter;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking counterpart of {@code LockService}. A waiting request holds no
+ * thread; the lock is owned by a random id instead of the calling thread.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLockService {
+    private final LockRouter lockRouter;
+
+    public <T> Mono<T> withLock(String accountNumber, Supplier<Mono<T>> action) {
+        return Mono.usingWhen(
+                lock(accountNumber),
+                lockOwner -> action.get(),
+                lockOwner -> unlock(accountNumber, lockOwner));
+    }
+
+    private Mono<Long> lock(String accountNumber) {
+        long lockOwner = ThreadLocalRandom.current().nextLong();
+        log.debug("Trying lock for accountNumber : {}", accountNumber);
+
+        return lockRouter.getReactiveLock(getLockKey(accountNumber))
+                .tryLock(1, 5, TimeUnit.SECONDS, lockOwner)
+                .flatMap(isLock -> {
+                    if (!isLock) {
+                        log.debug("Lock acquisition failed for accountNumber : {}", accountNumber);
+                        return Mono.error(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+                    }
+                    return Mono.just(lockOwner);
+                });
+    }
+
+    private Mono<Void> unlock(String accountNumber, long lockOwner) {
+        log.debug("Unlock for accountNumber : {}", accountNumber);
+        return lockRouter.getReactiveLock(getLockKey(accountNumber)).unlock(lockOwner);
+    }
+
+    private static String getLockKey(String accountNumber) {
+        return "ACLK:" + accountNumber;
+    }
+
+}
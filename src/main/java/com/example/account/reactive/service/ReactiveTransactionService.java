@@ -0,0 +1,154 @@
+package com.example.account.reactive.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.reactive.domain.Account;
+import com.example.account.reactive.domain.AccountUser;
+import com.example.account.reactive.domain.Transaction;
+import com.example.account.reactive.repository.AccountRepository;
+import com.example.account.reactive.repository.AccountUserRepository;
+import com.example.account.reactive.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Reactive counterpart of {@code TransactionService} with the same validation
+ * and error codes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTransactionService {
+    private final TransactionRepository transactionRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final AccountRepository accountRepository;
+
+    @Transactional
+    public Mono<TransactionDto> useBalance(Long userId, String accountNumber, Long amount) {
+        return accountUserRepository.findById(userId)
+                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.USER_NOT_FOUND)))
+                .flatMap(user -> getAccount(accountNumber)
+                        .flatMap(account -> {
+                            validateUserBalance(user, account, amount);
+
+                            account.useBalance(amount);
+
+                            return accountRepository.save(account);
+                        }))
+                .flatMap(account -> saveAndGetTransaction(TransactionResultType.S, amount, account, TransactionType.USE, null));
+    }
+
+
+    private void validateUserBalance(AccountUser user, Account account, Long amount) {
+        if (!Objects.equals(user.getId(), account.getAccountUserId())) {
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCHED);
+        }
+        if (account.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if (account.getBalance() < amount) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+
+    }
+
+    @Transactional
+    public Mono<TransactionDto> saveFailedUseTransaction(String accountNumber, Long amount) {
+        return getAccount(accountNumber)
+                .flatMap(account -> saveAndGetTransaction(TransactionResultType.F, amount, account, TransactionType.USE, null));
+    }
+
+    private Mono<TransactionDto> saveAndGetTransaction(TransactionResultType transactionResultType, Long amount, Account account,
+                                                       TransactionType transactionType, String originalTransactionId) {
+        return transactionRepository.save(
+                        Transaction.builder()
+                                .transactionType(transactionType)
+                                .transactionResultType(transactionResultType)
+                                .accountId(account.getId())
+                                .amount(amount)
+                                .balanceSnapShot(account.getBalance())
+                                .transactionId(UUID.randomUUID().toString().replace("-", ""))
+                                .transactedAt(LocalDateTime.now())
+                                .originalTransactionId(originalTransactionId)
+                                .build())
+                .map(transaction -> toDto(transaction, account));
+    }
+
+    @Transactional
+    public Mono<TransactionDto> cancelBalance(String transactionId, String accountNumber, Long amount) {
+        return transactionRepository.findByTransactionId(transactionId)
+                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)))
+                .flatMap(transaction -> getAccount(accountNumber)
+                        .flatMap(account -> {
+                            validateCancelBalance(transaction, account, amount);
+                            account.cancelBalance(amount);
+                            transaction.setCanceledAt(LocalDateTime.now());
+
+                            return transactionRepository.save(transaction)
+                                    .then(accountRepository.save(account));
+                        }))
+                .flatMap(account -> saveAndGetTransaction(TransactionResultType.S, amount, account,
+                        TransactionType.CANCEL, transactionId));
+    }
+
+    private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
+        if (transaction.getCanceledAt() != null) {
+            throw new AccountException(ErrorCode.TRANSACTION_ALREADY_CANCELED);
+        }
+        if (!Objects.equals(transaction.getAccountId(), account.getId())) {
+            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UNMATCHED);
+        }
+        if (!Objects.equals(transaction.getAmount(), amount)) {
+            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+        }
+        if (transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))) {
+            throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+        }
+
+    }
+
+    @Transactional
+    public Mono<TransactionDto> saveFailedCancelTransaction(String accountNumber, Long amount) {
+        return getAccount(accountNumber)
+                .flatMap(account -> saveAndGetTransaction(TransactionResultType.F, amount, account, TransactionType.CANCEL, null));
+    }
+
+    public Mono<TransactionDto> queryTransaction(String transactionId) {
+        return transactionRepository.findByTransactionId(transactionId)
+                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)))
+                .flatMap(transaction -> accountRepository.findById(transaction.getAccountId())
+                        .map(account -> toDto(transaction, account)));
+    }
+
+    private Mono<Account> getAccount(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND)));
+    }
+
+    private static TransactionDto toDto(Transaction transaction, Account account) {
+        return TransactionDto.builder()
+                .accountNumber(account.getAccountNumber())
+                .transactionType(transaction.getTransactionType())
+                .transactionResult(transaction.getTransactionResultType())
+                .amount(transaction.getAmount())
+                .balanceSnapShot(transaction.getBalanceSnapShot())
+                .transactionId(transaction.getTransactionId())
+                .transactedAt(transaction.getTransactedAt())
+                .originalTransactionId(transaction.getOriginalTransactionId())
+                .canceledAt(transaction.getCanceledAt())
+                .build();
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.account.reconcile;
+
+public record AccountBalance(Long id, String accountNumber, long balance, Long initialBalance) {
+}
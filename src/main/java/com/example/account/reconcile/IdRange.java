@@ -0,0 +1,7 @@
+package com.example.account.reconcile;
+
+/**
+ * Smallest and largest account id, both null without accounts.
+ */
+public record IdRange(Long min, Long max) {
+}
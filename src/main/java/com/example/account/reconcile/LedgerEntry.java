@@ -0,0 +1,12 @@
+package com.example.account.reconcile;
+
+import com.example.account.type.TransactionType;
+
+/**
+ * A successful transaction, as far as the balance of its account is concerned.
+ */
+public record LedgerEntry(Long accountId, TransactionType transactionType, long amount) {
+    public long balanceChange() {
+        return transactionType == TransactionType.CANCEL ? amount : -amount;
+    }
+}
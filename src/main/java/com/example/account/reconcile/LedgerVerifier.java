@@ -0,0 +1,109 @@
+package com.example.account.reconcile;
+
+import com.example.account.aop.ReplicaRead;
+import com.example.account.domain.ArchivedBalance;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.ArchivedBalanceRepository;
+import com.example.account.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Checks that the balance of each account in an id range is its initial balance plus its
+ * successful transactions, the archived ones included.
+ * <p>
+ * The accounts of the range are read first; their transactions are then streamed in
+ * account order and merged into them, so only the range's accounts are held in memory.
+ * All reads see one snapshot (repeatable read), which on MVCC databases takes no locks,
+ * so a balance change committed meanwhile is not seen without its transaction.
+ * <p>
+ * Accounts whose initial balance is unknown, opened before it was kept, are skipped.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerVerifier {
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ArchivedBalanceRepository archivedBalanceRepository;
+
+    public record Mismatch(String accountNumber, long balance, long expectedBalance) {
+    }
+
+    /**
+     * @param accounts accounts verified, the ones with an unknown initial balance left out
+     */
+    public record Result(int accounts, List<Mismatch> mismatches) {
+    }
+
+    /**
+     * Verifies the accounts with {@code fromId <= id < toId} on the current shard.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    @ReplicaRead
+    public Result verify(long fromId, long toId) {
+        List<AccountBalance> accounts = accountRepository.findBalancesByIdRange(fromId, toId);
+        if (accounts.isEmpty()) {
+            return new Result(0, List.of());
+        }
+        long[] expected = new long[accounts.size()];
+        for (int i = 0; i < accounts.size(); i++) {
+            Long initialBalance = accounts.get(i).initialBalance();
+            expected[i] = initialBalance == null ? 0L : initialBalance;
+        }
+
+        int position = 0;
+        for (ArchivedBalance archivedBalance : archivedBalanceRepository.findByAccountIdRange(fromId, toId)) {
+            position = seek(accounts, position, archivedBalance.getAccountId());
+            if (isAt(accounts, position, archivedBalance.getAccountId())) {
+                expected[position] += archivedBalance.getNetAmount();
+            }
+        }
+
+        try (Stream<LedgerEntry> entries = transactionRepository.streamLedger(fromId, toId)) {
+            position = 0;
+            for (Iterator<LedgerEntry> iterator = entries.iterator(); iterator.hasNext(); ) {
+                LedgerEntry entry = iterator.next();
+                position = seek(accounts, position, entry.accountId());
+                if (isAt(accounts, position, entry.accountId())) {
+                    expected[position] += entry.balanceChange();
+                }
+            }
+        }
+
+        int verified = 0;
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (int i = 0; i < accounts.size(); i++) {
+            AccountBalance account = accounts.get(i);
+            if (account.initialBalance() == null) {
+                continue;
+            }
+            verified++;
+            if (account.balance() != expected[i]) {
+                mismatches.add(new Mismatch(account.accountNumber(), account.balance(), expected[i]));
+            }
+        }
+        return new Result(verified, mismatches);
+    }
+
+    /**
+     * Position of the first account from {@code position} on whose id is not below
+     * {@code accountId}. Both sides are in id order, so each list is walked once.
+     */
+    private static int seek(List<AccountBalance> accounts, int position, Long accountId) {
+        while (position < accounts.size() && accounts.get(position).id() < accountId) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isAt(List<AccountBalance> accounts, int position, Long accountId) {
+        return position < accounts.size() && accounts.get(position).id().equals(accountId);
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.account.reconcile;
+
+import com.example.account.domain.ReconciliationChunk;
+import com.example.account.domain.ReconciliationMismatch;
+import com.example.account.domain.ReconciliationRun;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.ReconciliationChunkRepository;
+import com.example.account.repository.ReconciliationMismatchRepository;
+import com.example.account.repository.ReconciliationRunRepository;
+import com.example.account.service.ClockService;
+import com.example.account.service.LockRouter;
+import com.example.account.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Nightly ledger reconciliation of every account, on the {@code account.reconcile.cron}
+ * schedule and on one node at a time.
+ * <p>
+ * Accounts are split into chunks of {@code chunk-size} account ids per shard, verified by
+ * {@link LedgerVerifier} in parallel on a fork-join pool of {@code parallelism} threads.
+ * Each verified chunk is checkpointed with its mismatches; a run that stops half way is
+ * resumed by the next one, which skips the checkpointed chunks. At the end the mismatches
+ * are written to {@code reconciliation-<run id>.csv} in the report directory.
+ * <p>
+ * Accounts opened before their initial balance was kept get it backfilled, on the primary,
+ * just before their chunk is verified: their current balance less their successful
+ * transactions, archived ones included. They are verified against it from then on.
+ * <p>
+ * Every chunk holds a connection while it is verified, from the pool that serves the
+ * requests, or from the replica pool when reads go to a replica.
+ */
+@Slf4j
+public class ReconciliationJob {
+    private static final String LOCK_KEY = "RECLK";
+    private static final int REPORT_PAGE_SIZE = 1000;
+
+    private final ShardRouter shardRouter;
+    private final LedgerVerifier ledgerVerifier;
+    private final AccountRepository accountRepository;
+    private final ReconciliationRunRepository runRepository;
+    private final ReconciliationChunkRepository chunkRepository;
+    private final ReconciliationMismatchRepository mismatchRepository;
+    private final TransactionOperations transactions;
+    private final LockRouter lockRouter;
+    private final ClockService clockService;
+    private final CronExpression cron;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Path reportDirectory;
+    private final Counter verifiedAccounts;
+    private final Counter foundMismatches;
+    private ScheduledExecutorService scheduler;
+
+    private record ChunkKey(int shard, long chunkNo) {
+    }
+
+    public ReconciliationJob(ShardRouter shardRouter, LedgerVerifier ledgerVerifier, AccountRepository accountRepository,
+                             ReconciliationRunRepository runRepository, ReconciliationChunkRepository chunkRepository,
+                             ReconciliationMismatchRepository mismatchRepository, TransactionOperations transactions,
+                             LockRouter lockRouter, ClockService clockService, CronExpression cron,
+                             int chunkSize, int parallelism, Path reportDirectory, MeterRegistry meterRegistry) {
+        if (chunkSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("account.reconcile.chunk-size and parallelism must be positive");
+        }
+        this.shardRouter = shardRouter;
+        this.ledgerVerifier = ledgerVerifier;
+        this.accountRepository = accountRepository;
+        this.runRepository = runRepository;
+        this.chunkRepository = chunkRepository;
+        this.mismatchRepository = mismatchRepository;
+        this.transactions = transactions;
+        this.lockRouter = lockRouter;
+        this.clockService = clockService;
+        this.cron = cron;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.reportDirectory = reportDirectory;
+        this.verifiedAccounts = Counter.builder("account.reconcile.accounts")
+                .description("Accounts verified by the ledger reconciliation")
+                .register(meterRegistry);
+        this.foundMismatches = Counter.builder("account.reconcile.mismatches")
+                .description("Accounts whose balance does not match their transactions")
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-reconciliation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleNext();
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void scheduleNext() {
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime next = cron.next(now);
+        if (next != null) {
+            scheduler.schedule(this::runScheduled, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runScheduled() {
+        try {
+            RLock lock = lockRouter.getLock(LOCK_KEY);
+            if (!lock.tryLock(0, TimeUnit.SECONDS)) {
+                log.info("Ledger reconciliation is running on another node");
+                return;
+            }
+            try {
+                run();
+            } finally {
+                lock.unlock();
+            }
+        } catch (Exception e) {
+            // the next run resumes from the last checkpoint
+            log.warn("Ledger reconciliation failed", e);
+        } finally {
+            scheduleNext();
+        }
+    }
+
+    /**
+     * Runs, or resumes, a reconciliation of every account.
+     */
+    public ReconciliationRun run() throws IOException {
+        // runs, checkpoints and mismatches are kept on the first shard
+        ReconciliationRun run = onFirstShard(() -> runRepository.findFirstByFinishedAtIsNullOrderByIdDesc()
+                .orElseGet(() -> runRepository.save(ReconciliationRun.builder().startedAt(clockService.now()).build())));
+        Set<ChunkKey> verified = onFirstShard(() -> chunkRepository.findByRunId(run.getId()).stream()
+                .map(chunk -> new ChunkKey(chunk.getShard(), chunk.getChunkNo()))
+                .collect(Collectors.toSet()));
+        log.info("Ledger reconciliation {} started, {} chunks already verified", run.getId(), verified.size());
+
+        List<ChunkTask> tasks = new ArrayList<>();
+        for (int shard : shardRouter.allShards()) {
+            IdRange idRange = ShardRouter.inShard(shard, accountRepository::findIdRange);
+            if (idRange.min() != null) {
+                tasks.add(new ChunkTask(run.getId(), shard, idRange.min() / chunkSize, idRange.max() / chunkSize + 1, verified));
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        } finally {
+            pool.shutdown();
+        }
+
+        ReconciliationRun finished = onFirstShard(() -> {
+            run.setAccounts(chunkRepository.sumAccountsByRunId(run.getId()));
+            run.setMismatches(mismatchRepository.countByRunId(run.getId()));
+            return runRepository.save(run);
+        });
+        finished.setReport(writeReport(finished).toString());
+        finished.setFinishedAt(clockService.now());
+        onFirstShard(() -> runRepository.save(finished));
+        log.info("Ledger reconciliation {} verified {} accounts, {} mismatches, report {}",
+                finished.getId(), finished.getAccounts(), finished.getMismatches(), finished.getReport());
+        return finished;
+    }
+
+    private class ChunkTask extends RecursiveAction {
+        private final Long runId;
+        private final int shard;
+        private final long fromChunk;
+        private final long toChunk;
+        private final Set<ChunkKey> verified;
+
+        ChunkTask(Long runId, int shard, long fromChunk, long toChunk, Set<ChunkKey> verified) {
+            this.runId = runId;
+            this.shard = shard;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.verified = verified;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                long middle = (fromChunk + toChunk) >>> 1;
+                invokeAll(new ChunkTask(runId, shard, fromChunk, middle, verified),
+                        new ChunkTask(runId, shard, middle, toChunk, verified));
+            } else if (!verified.contains(new ChunkKey(shard, fromChunk))) {
+                verifyChunk(runId, shard, fromChunk);
+            }
+        }
+    }
+
+    private void verifyChunk(Long runId, int shard, long chunkNo) {
+        int backfilled = ShardRouter.inShard(shard, () -> transactions.execute(status ->
+                accountRepository.backfillInitialBalances(chunkNo * chunkSize, (chunkNo + 1) * chunkSize)));
+        if (backfilled > 0) {
+            log.info("Backfilled the initial balance of {} accounts of shard {}, chunk {}", backfilled, shard, chunkNo);
+        }
+        LedgerVerifier.Result result = ShardRouter.inShard(shard,
+                () -> ledgerVerifier.verify(chunkNo * chunkSize, (chunkNo + 1) * chunkSize));
+        onFirstShard(() -> {
+            mismatchRepository.saveAll(result.mismatches().stream()
+                    .map(mismatch -> ReconciliationMismatch.builder()
+                            .runId(runId)
+                            .shard(shard)
+                            .accountNumber(mismatch.accountNumber())
+                            .balance(mismatch.balance())
+                            .expectedBalance(mismatch.expectedBalance())
+                            .build())
+                    .toList());
+            return chunkRepository.save(ReconciliationChunk.builder()
+                    .runId(runId)
+                    .shard(shard)
+                    .chunkNo(chunkNo)
+                    .accounts(result.accounts())
+                    .mismatches(result.mismatches().size())
+                    .verifiedAt(clockService.now())
+                    .build());
+        });
+        verifiedAccounts.increment(result.accounts());
+        foundMismatches.increment(result.mismatches().size());
+    }
+
+    private Path writeReport(ReconciliationRun run) throws IOException {
+        Files.createDirectories(reportDirectory);
+        Path report = reportDirectory.resolve("reconciliation-" + run.getId() + ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(report)) {
+            writer.write("shard,account_number,balance,expected_balance,difference");
+            writer.newLine();
+            long lastId = 0;
+            List<ReconciliationMismatch> page;
+            do {
+                long after = lastId;
+                page = onFirstShard(() -> mismatchRepository.findByRunIdAndIdGreaterThanOrderById(
+                        run.getId(), after, Limit.of(REPORT_PAGE_SIZE)));
+                for (ReconciliationMismatch mismatch : page) {
+                    writer.write(mismatch.getShard() + "," + mismatch.getAccountNumber() + "," + mismatch.getBalance()
+                            + "," + mismatch.getExpectedBalance() + "," + (mismatch.getBalance() - mismatch.getExpectedBalance()));
+                    writer.newLine();
+                    lastId = mismatch.getId();
+                }
+            } while (page.size() == REPORT_PAGE_SIZE);
+        }
+        return report;
+    }
+
+    private <T> T onFirstShard(Supplier<T> action) {
+        return ShardRouter.inShard(0, () -> transactions.execute(status -> action.get()));
+    }
+}
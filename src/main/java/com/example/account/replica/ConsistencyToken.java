@@ -0,0 +1,68 @@
+package com.example.account.replica;
+
+/**
+ * Read-your-writes across requests. A request that commits a write gets a
+ * {@code Consistency-Token} header with the commit time; a later request that sends it
+ * back is only served by a replica that has replicated a heartbeat newer than that.
+ * Bound to the request thread by {@link ConsistencyTokenFilter}; outside of a request
+ * nothing is required and nothing is recorded.
+ */
+public final class ConsistencyToken {
+    public static final String HEADER = "Consistency-Token";
+
+    private static final ThreadLocal<ConsistencyToken> CURRENT = new ThreadLocal<>();
+
+    private final long required;
+    // written by the request thread and the executor threads working for it
+    private volatile long committedAt;
+
+    private ConsistencyToken(long required) {
+        this.required = required;
+    }
+
+    static ConsistencyToken begin(long required) {
+        ConsistencyToken token = new ConsistencyToken(required);
+        CURRENT.set(token);
+        return token;
+    }
+
+    /**
+     * Binds the token of a request to a thread that works for it, see {@link ConsistencyTokenTaskDecorator}.
+     */
+    static void bind(ConsistencyToken token) {
+        CURRENT.set(token);
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static ConsistencyToken current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return the epoch millis a replica must have caught up to, including the writes
+     * of the current request; 0 when there is none
+     */
+    static long required() {
+        ConsistencyToken token = CURRENT.get();
+        return token == null ? 0 : Math.max(token.required, token.committedAt);
+    }
+
+    static void recordCommit(long committedAt) {
+        ConsistencyToken token = CURRENT.get();
+        if (token != null) {
+            synchronized (token) {
+                token.committedAt = Math.max(token.committedAt, committedAt);
+            }
+        }
+    }
+
+    /**
+     * @return the header value, or {@code null} when the request committed nothing
+     */
+    String toHeaderValue() {
+        return committedAt == 0 ? null : Long.toString(committedAt);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.account.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds a {@link ConsistencyToken} to each request. A missing or malformed header
+ * requires nothing. The response header is written by {@link ConsistencyTokenResponseAdvice}.
+ */
+@Component
+@ConditionalOnProperty(name = "account.replica.enabled", havingValue = "true")
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ConsistencyToken.begin(parse(request.getHeader(ConsistencyToken.HEADER)));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ConsistencyToken.end();
+        }
+    }
+
+    private static long parse(String header) {
+        if (header == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
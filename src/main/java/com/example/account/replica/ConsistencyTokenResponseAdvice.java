@@ -0,0 +1,34 @@
+package com.example.account.replica;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the {@code Consistency-Token} header to responses of requests that committed a write.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "account.replica.enabled", havingValue = "true")
+public class ConsistencyTokenResponseAdvice implements ResponseBodyAdvice<Object> {
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        ConsistencyToken token = ConsistencyToken.current();
+        String value = token == null ? null : token.toHeaderValue();
+        if (value != null) {
+            response.getHeaders().set(ConsistencyToken.HEADER, value);
+        }
+        return body;
+    }
+}
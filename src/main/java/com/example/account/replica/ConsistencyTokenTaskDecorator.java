@@ -0,0 +1,29 @@
+package com.example.account.replica;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the {@link ConsistencyToken} of a request to the application task executor, so
+ * the commits of a batch running there are part of the token the request returns.
+ */
+@Component
+@ConditionalOnProperty(name = "account.replica.enabled", havingValue = "true")
+public class ConsistencyTokenTaskDecorator implements TaskDecorator {
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        ConsistencyToken token = ConsistencyToken.current();
+        if (token == null) {
+            return runnable;
+        }
+        return () -> {
+            ConsistencyToken.bind(token);
+            try {
+                runnable.run();
+            } finally {
+                ConsistencyToken.end();
+            }
+        };
+    }
+}
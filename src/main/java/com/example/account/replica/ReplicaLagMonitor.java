@@ -0,0 +1,125 @@
+package com.example.account.replica;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replication lag from a heartbeat row. Every interval the primary's {@code replica_heartbeat}
+ * row is set to the current time and the replica's copy is read back, so the lag is the age
+ * of the replica's copy (at most two intervals when replication keeps up). The replica must
+ * replicate the table; when it does not, or cannot be read, its lag only grows.
+ * <p>
+ * Several application nodes may beat; the row only moves forward, so their clocks should
+ * agree to well within {@code account.replica.max-lag}. Exported as {@code account.replica.lag}.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)";
+    private static final String UPDATE_BEAT = "UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1 AND beat_at < ?";
+    private static final String INSERT_BEAT = "INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)";
+    private static final String SELECT_BEAT = "SELECT beat_at FROM replica_heartbeat WHERE id = 1";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final Clock clock;
+    private final Duration interval;
+    private ScheduledExecutorService scheduler;
+    // 0 until the replica has been read once
+    private volatile long replicaBeatAt;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Clock clock, Duration interval,
+                             MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.clock = clock;
+        this.interval = interval;
+        Gauge.builder("account.replica.lag", this, monitor -> monitor.lagMillis() / 1000.0)
+                .description("Age of the heartbeat last read from the replica")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public void start() throws SQLException {
+        try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE);
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::beat, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    long now() {
+        return clock.millis();
+    }
+
+    /**
+     * @return milliseconds the replica is behind, {@link Long#MAX_VALUE} before it has been read
+     */
+    public long lagMillis() {
+        long beatAt = replicaBeatAt;
+        return beatAt == 0 ? Long.MAX_VALUE : Math.max(0, now() - beatAt);
+    }
+
+    /**
+     * A heartbeat written after {@code committedAt} has reached the replica, and with it
+     * every write committed before.
+     */
+    public boolean hasCaughtUpTo(long committedAt) {
+        return replicaBeatAt > committedAt;
+    }
+
+    void beat() {
+        long beatAt = now();
+        try (Connection connection = primary.getConnection();
+             PreparedStatement update = connection.prepareStatement(UPDATE_BEAT)) {
+            update.setLong(1, beatAt);
+            update.setLong(2, beatAt);
+            if (update.executeUpdate() == 0) {
+                insertFirstBeat(connection, beatAt);
+            }
+        } catch (SQLException e) {
+            log.debug("Heartbeat on the primary failed", e);
+        }
+        try (Connection connection = replica.getConnection();
+             PreparedStatement select = connection.prepareStatement(SELECT_BEAT);
+             ResultSet resultSet = select.executeQuery()) {
+            if (resultSet.next()) {
+                replicaBeatAt = resultSet.getLong(1);
+            }
+        } catch (SQLException e) {
+            log.debug("Heartbeat on the replica could not be read", e);
+        }
+    }
+
+    private static void insertFirstBeat(Connection connection, long beatAt) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_BEAT)) {
+            insert.setLong(1, beatAt);
+            insert.executeUpdate();
+        } catch (SQLException e) {
+            // another node inserted it first, or its beat is newer
+            log.debug("Heartbeat row not inserted: {}", e.getMessage());
+        }
+    }
+}
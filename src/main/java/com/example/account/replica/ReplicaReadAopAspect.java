@@ -0,0 +1,31 @@
+package com.example.account.replica;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lets the read-only transaction of a {@code @ReplicaRead} method use the replica.
+ * Other read-only transactions, like the ones Spring Data opens for repository reads
+ * outside of a service transaction, stay on the primary.
+ */
+@Aspect
+@Component
+@Order(1)
+@ConditionalOnProperty(name = "account.replica.enabled", havingValue = "true")
+public class ReplicaReadAopAspect {
+    @Around("@annotation(com.example.account.aop.ReplicaRead)")
+    public Object aroundMethod(ProceedingJoinPoint pjp) throws Throwable {
+        boolean outer = ReplicaRoutingDataSource.allowReplica();
+        try {
+            return pjp.proceed();
+        } finally {
+            if (outer) {
+                ReplicaRoutingDataSource.disallowReplica();
+            }
+        }
+    }
+}
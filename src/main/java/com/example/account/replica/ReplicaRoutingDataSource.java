@@ -0,0 +1,103 @@
+package com.example.account.replica;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends the read-only transactions of {@code @ReplicaRead} methods to the replica pool and
+ * everything else to the primary. A read falls back to the primary when the replica is more
+ * than {@code account.replica.max-lag} behind, or has not caught up with the request's
+ * {@link ConsistencyToken}. Routed reads are counted as {@code account.replica.reads},
+ * tagged by route: {@code replica}, {@code lag} or {@code token}.
+ * <p>
+ * Needs a {@code LazyConnectionDataSourceProxy} in front, so the connection is picked
+ * after the transaction has been marked read-only.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final long maxLagMillis;
+    private final Counter replicaReads;
+    private final Counter lagFallbacks;
+    private final Counter tokenFallbacks;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                    Duration maxLag, MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.maxLagMillis = maxLag.toMillis();
+        this.replicaReads = reads(meterRegistry, "replica");
+        this.lagFallbacks = reads(meterRegistry, "lag");
+        this.tokenFallbacks = reads(meterRegistry, "token");
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * @return whether the flag was set here, and is to be cleared by the same caller
+     */
+    static boolean allowReplica() {
+        if (REPLICA_READ.get() != null) {
+            return false;
+        }
+        REPLICA_READ.set(Boolean.TRUE);
+        return true;
+    }
+
+    static void disallowReplica() {
+        REPLICA_READ.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordCommitTime();
+            return Target.PRIMARY;
+        }
+        if (REPLICA_READ.get() == null) {
+            return Target.PRIMARY;
+        }
+        if (lagMonitor.lagMillis() > maxLagMillis) {
+            lagFallbacks.increment();
+            return Target.PRIMARY;
+        }
+        if (!lagMonitor.hasCaughtUpTo(ConsistencyToken.required())) {
+            tokenFallbacks.increment();
+            return Target.PRIMARY;
+        }
+        replicaReads.increment();
+        return Target.REPLICA;
+    }
+
+    private void recordCommitTime() {
+        if (ConsistencyToken.current() == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ConsistencyToken.recordCommit(lagMonitor.now());
+            }
+        });
+    }
+
+    private static Counter reads(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("account.replica.reads")
+                .description("Reads of @ReplicaRead methods, by where they were routed")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+}
@@ -2,9 +2,19 @@ package com.example.account.repository;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.reconcile.AccountBalance;
+import com.example.account.reconcile.IdRange;
+import com.example.account.statement.StatementAccount;
+import com.example.account.type.AccountStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,9 +24,44 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    @EntityGraph(attributePaths = "accountUser")
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
     List<Account> findAccountByAccountUser(AccountUser accountUser);
 
     Integer countByAccountUser(AccountUser accountUser);
 
+    List<Account> findByAccountStatus(AccountStatus accountStatus);
+
+    List<Account> findByUpdatedAtAfter(LocalDateTime updatedAt);
+
+    Optional<Account> findFirstByOrderByUpdatedAtDesc();
+
+    @Query("select new com.example.account.reconcile.IdRange(min(a.id), max(a.id)) from Account a")
+    IdRange findIdRange();
+
+    @Query("select new com.example.account.reconcile.AccountBalance(a.id, a.accountNumber, a.balance, a.initialBalance)"
+            + " from Account a where a.id >= :from and a.id < :to order by a.id")
+    List<AccountBalance> findBalancesByIdRange(@Param("from") long from, @Param("to") long to);
+
+    /**
+     * Sets the unknown initial balances of an account id range to what their successful
+     * transactions, archived ones included, leave of the current balance.
+     */
+    @Modifying
+    @Query("update Account a set a.initialBalance = a.balance"
+            + " - coalesce((select sum(case when t.transactionType = com.example.account.type.TransactionType.CANCEL"
+            + " then t.amount else -t.amount end) from Transaction t where t.account.id = a.id"
+            + " and t.transactionResultType = com.example.account.type.TransactionResultType.S), 0)"
+            + " - coalesce((select b.netAmount from ArchivedBalance b where b.accountId = a.id), 0)"
+            + " where a.id >= :from and a.id < :to and a.initialBalance is null")
+    int backfillInitialBalances(@Param("from") long from, @Param("to") long to);
+
+    @Query("select new com.example.account.statement.StatementAccount(a.id, a.accountNumber, a.balance)"
+            + " from Account a where a.id >= :from and a.id < :to"
+            + " and a.accountStatus = com.example.account.type.AccountStatus.IN_USE and a.registeredAt < :registeredBefore"
+            + " order by a.id")
+    List<StatementAccount> findStatementAccountsByIdRange(@Param("from") long from, @Param("to") long to,
+                                                          @Param("registeredBefore") LocalDateTime registeredBefore);
 
 }
@@ -2,6 +2,19 @@ package com.example.account.repository;
 
 import com.example.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 
 public interface AccountUserRepository extends JpaRepository<AccountUser, Long> {
+    /**
+     * Inserts a copy of a user of shard 0 on the current shard, with the same id.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO account_user (id, name, created_at, updated_at) VALUES (:id, :name, :createdAt, :updatedAt)",
+            nativeQuery = true)
+    int insertCopy(@Param("id") Long id, @Param("name") String name,
+                   @Param("createdAt") LocalDateTime createdAt, @Param("updatedAt") LocalDateTime updatedAt);
 }
@@ -0,0 +1,13 @@
+package com.example.account.repository;
+
+import com.example.account.domain.ArchivedBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ArchivedBalanceRepository extends JpaRepository<ArchivedBalance, Long> {
+    @Query("select b from ArchivedBalance b where b.accountId >= :from and b.accountId < :to order by b.accountId")
+    List<ArchivedBalance> findByAccountIdRange(@Param("from") long from, @Param("to") long to);
+}
@@ -0,0 +1,47 @@
+package com.example.account.repository;
+
+import com.example.account.domain.DailyAccountRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailyAccountRollupRepository extends JpaRepository<DailyAccountRollup, DailyAccountRollup.Key> {
+    List<DailyAccountRollup> findByAccountIdAndTransactedOnBetweenOrderByTransactedOn(Long accountId, LocalDate from, LocalDate to);
+
+    /**
+     * @return 0 when there is no row for the day yet
+     */
+    @Modifying
+    @Query("update DailyAccountRollup r set r.useAmount = r.useAmount + :useAmount,"
+            + " r.cancelAmount = r.cancelAmount + :cancelAmount, r.failedCount = r.failedCount + :failedCount"
+            + " where r.accountId = :accountId and r.transactedOn = :transactedOn")
+    int addToDay(@Param("accountId") Long accountId, @Param("transactedOn") LocalDate transactedOn,
+                 @Param("useAmount") long useAmount, @Param("cancelAmount") long cancelAmount,
+                 @Param("failedCount") long failedCount);
+
+    @Modifying
+    @Query("delete from DailyAccountRollup r where r.transactedOn = :transactedOn")
+    int deleteByTransactedOn(@Param("transactedOn") LocalDate transactedOn);
+
+    /**
+     * Recomputes the rows of a day from the transactions of {@code from <= transactedAt < to}.
+     */
+    @Modifying
+    @Query("insert into DailyAccountRollup (accountId, transactedOn, userId, useAmount, cancelAmount, failedCount)"
+            + " select t.account.id, cast(t.transactedAt as LocalDate), t.account.accountUser.id,"
+            + " sum(case when t.transactionResultType = com.example.account.type.TransactionResultType.S"
+            + " and t.transactionType = com.example.account.type.TransactionType.USE then t.amount else 0L end),"
+            + " sum(case when t.transactionResultType = com.example.account.type.TransactionResultType.S"
+            + " and t.transactionType = com.example.account.type.TransactionType.CANCEL then t.amount else 0L end),"
+            + " sum(case when t.transactionResultType = com.example.account.type.TransactionResultType.F then 1L else 0L end)"
+            + " from Transaction t where t.transactedAt >= :from and t.transactedAt < :to"
+            + " group by t.account.id, cast(t.transactedAt as LocalDate), t.account.accountUser.id")
+    int insertFromTransactions(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,40 @@
+package com.example.account.repository;
+
+import com.example.account.domain.DailyUserRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyUserRollupRepository extends JpaRepository<DailyUserRollup, DailyUserRollup.Key> {
+    List<DailyUserRollup> findByUserIdAndTransactedOnBetweenOrderByTransactedOn(Long userId, LocalDate from, LocalDate to);
+
+    /**
+     * @return 0 when there is no row for the day yet
+     */
+    @Modifying
+    @Query("update DailyUserRollup r set r.useAmount = r.useAmount + :useAmount,"
+            + " r.cancelAmount = r.cancelAmount + :cancelAmount, r.failedCount = r.failedCount + :failedCount"
+            + " where r.userId = :userId and r.transactedOn = :transactedOn")
+    int addToDay(@Param("userId") Long userId, @Param("transactedOn") LocalDate transactedOn,
+                 @Param("useAmount") long useAmount, @Param("cancelAmount") long cancelAmount,
+                 @Param("failedCount") long failedCount);
+
+    @Modifying
+    @Query("delete from DailyUserRollup r where r.transactedOn = :transactedOn")
+    int deleteByTransactedOn(@Param("transactedOn") LocalDate transactedOn);
+
+    /**
+     * Recomputes the rows of a day from the {@code DailyAccountRollup}s of the day.
+     */
+    @Modifying
+    @Query("insert into DailyUserRollup (userId, transactedOn, useAmount, cancelAmount, failedCount)"
+            + " select r.userId, r.transactedOn, sum(r.useAmount), sum(r.cancelAmount), sum(r.failedCount)"
+            + " from DailyAccountRollup r where r.transactedOn = :transactedOn group by r.userId, r.transactedOn")
+    int insertFromAccountRollups(@Param("transactedOn") LocalDate transactedOn);
+}
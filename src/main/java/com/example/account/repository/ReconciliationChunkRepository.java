@@ -0,0 +1,15 @@
+package com.example.account.repository;
+
+import com.example.account.domain.ReconciliationChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ReconciliationChunkRepository extends JpaRepository<ReconciliationChunk, Long> {
+    List<ReconciliationChunk> findByRunId(Long runId);
+
+    @Query("select coalesce(sum(c.accounts), 0) from ReconciliationChunk c where c.runId = :runId")
+    long sumAccountsByRunId(@Param("runId") Long runId);
+}
@@ -0,0 +1,13 @@
+package com.example.account.repository;
+
+import com.example.account.domain.ReconciliationMismatch;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ReconciliationMismatchRepository extends JpaRepository<ReconciliationMismatch, Long> {
+    List<ReconciliationMismatch> findByRunIdAndIdGreaterThanOrderById(Long runId, Long id, Limit limit);
+
+    long countByRunId(Long runId);
+}
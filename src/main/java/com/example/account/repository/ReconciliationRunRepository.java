@@ -0,0 +1,10 @@
+package com.example.account.repository;
+
+import com.example.account.domain.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Long> {
+    Optional<ReconciliationRun> findFirstByFinishedAtIsNullOrderByIdDesc();
+}
@@ -0,0 +1,30 @@
+package com.example.account.repository;
+
+import com.example.account.domain.RollupWatermark;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RollupWatermarkRepository extends JpaRepository<RollupWatermark, Long> {
+    /**
+     * Reads the watermark and locks it until the end of the transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from RollupWatermark w where w.id = :id")
+    Optional<RollupWatermark> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Reads and locks the watermark of the current shard, saving it the first time. Two
+     * first saves conflict, and the transaction of one of them fails.
+     */
+    default RollupWatermark lockWatermark() {
+        return findByIdForUpdate(RollupWatermark.ID)
+                .orElseGet(() -> saveAndFlush(RollupWatermark.builder().id(RollupWatermark.ID).build()));
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.account.repository;
+
+import com.example.account.domain.TransactionArchiveBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface TransactionArchiveBlockRepository extends JpaRepository<TransactionArchiveBlock, Long> {
+    Optional<TransactionArchiveBlock> findBySegmentIdAndBlockNo(Long segmentId, int blockNo);
+}
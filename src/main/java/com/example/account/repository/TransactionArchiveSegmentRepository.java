@@ -0,0 +1,17 @@
+package com.example.account.repository;
+
+import com.example.account.domain.TransactionArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TransactionArchiveSegmentRepository extends JpaRepository<TransactionArchiveSegment, Long> {
+    @Query("select s.id from TransactionArchiveSegment s")
+    List<Long> findAllIds();
+
+    @Query("select s.id from TransactionArchiveSegment s where s.createdAt > :createdAfter")
+    List<Long> findIdsByCreatedAtAfter(@Param("createdAfter") LocalDateTime createdAfter);
+}
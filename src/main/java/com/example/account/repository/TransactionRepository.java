@@ -1,10 +1,75 @@
 package com.example.account.repository;
 
 import com.example.account.domain.Transaction;
+import com.example.account.reconcile.LedgerEntry;
+import com.example.account.statement.BalanceChange;
+import com.example.account.statement.StatementLine;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     Optional<Transaction> findByTransactionId(String transactionId);
+
+    @EntityGraph(attributePaths = {"account", "account.accountUser"})
+    List<Transaction> findByTransactionIdIn(Collection<String> transactionIds);
+
+    @EntityGraph(attributePaths = "account")
+    List<Transaction> findByTransactedAtBeforeOrderByTransactedAt(LocalDateTime transactedAt, Limit limit);
+
+    /**
+     * Successful transactions of an account id range, ordered by account; read as it is consumed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.account.reconcile.LedgerEntry(t.account.id, t.transactionType, t.amount)"
+            + " from Transaction t where t.account.id >= :from and t.account.id < :to"
+            + " and t.transactionResultType = com.example.account.type.TransactionResultType.S order by t.account.id")
+    Stream<LedgerEntry> streamLedger(@Param("from") long from, @Param("to") long to);
+
+    /**
+     * Balance changes of the accounts of an id range that have successful transactions since {@code monthStart}.
+     */
+    @Query("select new com.example.account.statement.BalanceChange(t.account.id,"
+            + " sum(case when t.transactionType = com.example.account.type.TransactionType.CANCEL then t.amount else -t.amount end),"
+            + " sum(case when t.transactedAt < :monthEnd then 0L"
+            + " when t.transactionType = com.example.account.type.TransactionType.CANCEL then t.amount else -t.amount end))"
+            + " from Transaction t where t.account.id >= :from and t.account.id < :to and t.transactedAt >= :monthStart"
+            + " and t.transactionResultType = com.example.account.type.TransactionResultType.S group by t.account.id")
+    List<BalanceChange> findBalanceChanges(@Param("from") long from, @Param("to") long to,
+                                           @Param("monthStart") LocalDateTime monthStart,
+                                           @Param("monthEnd") LocalDateTime monthEnd);
+
+    /**
+     * A page of the transactions of an account id range in a month, in statement order, after the given
+     * (account id, transactedAt, id) key.
+     */
+    @Query("select new com.example.account.statement.StatementLine(t.id, t.account.id, t.transactedAt, t.transactionId,"
+            + " t.transactionType, t.transactionResultType, t.amount, t.balanceSnapShot)"
+            + " from Transaction t where t.account.id < :to and t.transactedAt >= :monthStart and t.transactedAt < :monthEnd"
+            + " and (t.account.id > :accountId or (t.account.id = :accountId and (t.transactedAt > :transactedAt"
+            + " or (t.transactedAt = :transactedAt and t.id > :id))))"
+            + " order by t.account.id, t.transactedAt, t.id")
+    List<StatementLine> findStatementLinesAfter(@Param("to") long to,
+                                                @Param("monthStart") LocalDateTime monthStart,
+                                                @Param("monthEnd") LocalDateTime monthEnd,
+                                                @Param("accountId") long accountId,
+                                                @Param("transactedAt") LocalDateTime transactedAt,
+                                                @Param("id") long id,
+                                                Limit limit);
+
+    @Modifying
+    @Query("delete from Transaction t where t.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,24 @@
+package com.example.account.rollup;
+
+import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+/**
+ * What saved transactions add to the rollup of their day.
+ */
+public record RollupDelta(long useAmount, long cancelAmount, long failedCount) {
+    public static RollupDelta of(Transaction transaction) {
+        if (transaction.getTransactionResultType() == TransactionResultType.F) {
+            return new RollupDelta(0, 0, 1);
+        }
+        return transaction.getTransactionType() == TransactionType.CANCEL
+                ? new RollupDelta(0, transaction.getAmount(), 0)
+                : new RollupDelta(transaction.getAmount(), 0, 0);
+    }
+
+    public RollupDelta plus(RollupDelta other) {
+        return new RollupDelta(useAmount + other.useAmount, cancelAmount + other.cancelAmount,
+                failedCount + other.failedCount);
+    }
+}
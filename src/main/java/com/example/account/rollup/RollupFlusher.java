@@ -0,0 +1,150 @@
+package com.example.account.rollup;
+
+import com.example.account.domain.DailyAccountRollup;
+import com.example.account.domain.DailyUserRollup;
+import com.example.account.repository.DailyAccountRollupRepository;
+import com.example.account.repository.DailyUserRollupRepository;
+import com.example.account.repository.RollupWatermarkRepository;
+import com.example.account.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the totals collected by {@link TransactionRollup} to the rollup tables every
+ * interval, off the request path: one row update per account day and per user day, in
+ * one database transaction per shard. Rows are added to, so every node flushes its own
+ * totals; a day's first total inserts its row.
+ * <p>
+ * When a shard's write fails, for instance because another node inserted the same row
+ * first, its totals are put back and written with the next flush. Totals of days up to the
+ * shard's {@link com.example.account.domain.RollupWatermark}, already counted by a rebuild,
+ * are dropped instead, whether they were put back or collected before the rebuild.
+ */
+@Slf4j
+public class RollupFlusher {
+    private static final Comparator<RollupKey> ROW_ORDER = Comparator.comparing(RollupKey::accountId)
+            .thenComparing(RollupKey::transactedOn);
+
+    private final TransactionRollup transactionRollup;
+    private final DailyAccountRollupRepository accountRollupRepository;
+    private final DailyUserRollupRepository userRollupRepository;
+    private final RollupWatermarkRepository watermarkRepository;
+    private final TransactionOperations transactions;
+    private final Duration interval;
+    private final Counter flushedDays;
+    private final Counter droppedDays;
+    private ScheduledExecutorService scheduler;
+
+    private record UserDay(Long userId, LocalDate transactedOn) {
+    }
+
+    public RollupFlusher(TransactionRollup transactionRollup, DailyAccountRollupRepository accountRollupRepository,
+                         DailyUserRollupRepository userRollupRepository, RollupWatermarkRepository watermarkRepository,
+                         TransactionOperations transactions, Duration interval, MeterRegistry meterRegistry) {
+        this.transactionRollup = transactionRollup;
+        this.accountRollupRepository = accountRollupRepository;
+        this.userRollupRepository = userRollupRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.transactions = transactions;
+        this.interval = interval;
+        this.flushedDays = Counter.builder("account.rollup.flushed")
+                .description("Account days written to the rollup tables")
+                .register(meterRegistry);
+        this.droppedDays = Counter.builder("account.rollup.dropped")
+                .description("Account days not written as a rebuild already counted them")
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rollup-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        // what is left is written by this thread, the scheduler no longer runs
+        flush();
+    }
+
+    /**
+     * Writes the totals collected so far.
+     */
+    public void flush() {
+        Map<Integer, Map<RollupKey, RollupDelta>> deltasByShard = transactionRollup.drain().entrySet().stream()
+                .collect(Collectors.groupingBy(entry -> entry.getKey().shard(),
+                        Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+        deltasByShard.forEach((shard, deltas) -> {
+            try {
+                int written = ShardRouter.inShard(shard, () -> transactions.execute(status -> write(deltas)));
+                flushedDays.increment(written);
+                droppedDays.increment(deltas.size() - written);
+            } catch (Exception e) {
+                // retried with the next flush
+                log.warn("Writing {} rollup days of shard {} failed", deltas.size(), shard, e);
+                transactionRollup.restore(deltas);
+            }
+        });
+    }
+
+    /**
+     * @return account days written
+     */
+    private int write(Map<RollupKey, RollupDelta> deltas) {
+        // locked before any rollup row, like a rebuild does
+        LocalDate rebuiltThrough = watermarkRepository.lockWatermark().getRebuiltThrough();
+        // in key order, so nodes flushing the same rows take their locks in the same order
+        List<RollupKey> keys = deltas.keySet().stream()
+                .filter(key -> rebuiltThrough == null || key.transactedOn().isAfter(rebuiltThrough))
+                .sorted(ROW_ORDER)
+                .toList();
+        Map<UserDay, RollupDelta> userDeltas = new TreeMap<>(Comparator.comparing(UserDay::userId)
+                .thenComparing(UserDay::transactedOn));
+        for (RollupKey key : keys) {
+            RollupDelta delta = deltas.get(key);
+            userDeltas.merge(new UserDay(key.userId(), key.transactedOn()), delta, RollupDelta::plus);
+            if (accountRollupRepository.addToDay(key.accountId(), key.transactedOn(),
+                    delta.useAmount(), delta.cancelAmount(), delta.failedCount()) == 0) {
+                accountRollupRepository.save(DailyAccountRollup.builder()
+                        .accountId(key.accountId())
+                        .transactedOn(key.transactedOn())
+                        .userId(key.userId())
+                        .useAmount(delta.useAmount())
+                        .cancelAmount(delta.cancelAmount())
+                        .failedCount(delta.failedCount())
+                        .build());
+            }
+        }
+        userDeltas.forEach((userDay, delta) -> {
+            if (userRollupRepository.addToDay(userDay.userId(), userDay.transactedOn(),
+                    delta.useAmount(), delta.cancelAmount(), delta.failedCount()) == 0) {
+                userRollupRepository.save(DailyUserRollup.builder()
+                        .userId(userDay.userId())
+                        .transactedOn(userDay.transactedOn())
+                        .useAmount(delta.useAmount())
+                        .cancelAmount(delta.cancelAmount())
+                        .failedCount(delta.failedCount())
+                        .build());
+            }
+        });
+        return keys.size();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.account.rollup;
+
+import java.time.LocalDate;
+
+/**
+ * An account's day on a shard; its user is carried along for the user rollup.
+ */
+public record RollupKey(int shard, Long accountId, Long userId, LocalDate transactedOn) {
+}
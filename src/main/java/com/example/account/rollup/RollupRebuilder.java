@@ -0,0 +1,140 @@
+package com.example.account.rollup;
+
+import com.example.account.domain.RollupWatermark;
+import com.example.account.repository.DailyAccountRollupRepository;
+import com.example.account.repository.DailyUserRollupRepository;
+import com.example.account.repository.RollupWatermarkRepository;
+import com.example.account.service.ClockService;
+import com.example.account.service.LockRouter;
+import com.example.account.shard.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds the rollup rows of a range of days from the {@code Transaction} table, to repair
+ * totals lost or written twice. Each day of each shard is replaced in one database
+ * transaction, by a grouped insert in the database.
+ * <p>
+ * Only days whose transactions are all in the table and whose totals have all been
+ * flushed can be rebuilt: from the day after the cancel window began, since archived
+ * transactions are older than that, up to the day before today, once every node's
+ * {@link RollupFlusher} has had two intervals to write it.
+ * <p>
+ * A rebuilt day moves the shard's {@link com.example.account.domain.RollupWatermark} up to
+ * it, so totals of it not yet flushed, on any node, are dropped rather than added again. A
+ * transaction of such a day that is only saved after the rebuild, which only a balance
+ * engine whose writes failed for longer than that can do, is left out until the next one.
+ */
+@Slf4j
+public class RollupRebuilder {
+    private static final String LOCK_KEY = "RLRLK";
+
+    private final ShardRouter shardRouter;
+    private final DailyAccountRollupRepository accountRollupRepository;
+    private final DailyUserRollupRepository userRollupRepository;
+    private final RollupWatermarkRepository watermarkRepository;
+    private final TransactionOperations transactions;
+    private final LockRouter lockRouter;
+    private final ClockService clockService;
+    private final Duration flushInterval;
+    private ExecutorService executor;
+
+    public RollupRebuilder(ShardRouter shardRouter, DailyAccountRollupRepository accountRollupRepository,
+                           DailyUserRollupRepository userRollupRepository, RollupWatermarkRepository watermarkRepository,
+                           TransactionOperations transactions, LockRouter lockRouter, ClockService clockService,
+                           Duration flushInterval) {
+        this.shardRouter = shardRouter;
+        this.accountRollupRepository = accountRollupRepository;
+        this.userRollupRepository = userRollupRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.transactions = transactions;
+        this.lockRouter = lockRouter;
+        this.clockService = clockService;
+        this.flushInterval = flushInterval;
+    }
+
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rollup-rebuilder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Rebuilds the days in the background, on one node at a time.
+     */
+    public void submit(LocalDate from, LocalDate to) {
+        executor.execute(() -> {
+            try {
+                RLock lock = lockRouter.getLock(LOCK_KEY);
+                if (!lock.tryLock(0, TimeUnit.SECONDS)) {
+                    log.info("Rollups are being rebuilt on another node");
+                    return;
+                }
+                try {
+                    rebuild(from, to);
+                } finally {
+                    lock.unlock();
+                }
+            } catch (Exception e) {
+                log.warn("Rollup rebuild of {} to {} failed", from, to, e);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the days from {@code from} to {@code to}, both included, limited to the ones
+     * that can be rebuilt.
+     *
+     * @return days rebuilt
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        LocalDate first = max(from, clockService.yearAgo().toLocalDate().plusDays(1));
+        LocalDate last = min(to, clockService.now().minus(flushInterval.multipliedBy(2)).toLocalDate().minusDays(1));
+        int days = 0;
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            LocalDate rebuilt = day;
+            for (int shard : shardRouter.allShards()) {
+                ShardRouter.inShard(shard, () -> transactions.execute(status -> rebuildDay(rebuilt)));
+            }
+            days++;
+        }
+        log.info("Rebuilt the rollups of {} days, {} to {}", days, first, last);
+        return days;
+    }
+
+    private int rebuildDay(LocalDate day) {
+        // waits for a flush of the shard in progress, and holds off the next one until committed
+        RollupWatermark watermark = watermarkRepository.lockWatermark();
+        if (watermark.getRebuiltThrough() == null || day.isAfter(watermark.getRebuiltThrough())) {
+            watermark.setRebuiltThrough(day);
+        }
+        accountRollupRepository.deleteByTransactedOn(day);
+        userRollupRepository.deleteByTransactedOn(day);
+        int accounts = accountRollupRepository.insertFromTransactions(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        userRollupRepository.insertFromAccountRollups(day);
+        return accounts;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.account.rollup;
+
+import com.example.account.domain.Transaction;
+import com.example.account.shard.ShardContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Daily totals of the saved transactions not yet written to the rollup tables, summed per
+ * account and day. A transaction is added once its database transaction commits; the
+ * {@link RollupFlusher} writes and removes the totals every interval.
+ * <p>
+ * Totals not yet written are lost if the node stops; {@link RollupRebuilder} repairs them.
+ */
+@Component
+public class TransactionRollup {
+    private final boolean enabled;
+    private final Map<RollupKey, RollupDelta> pending = new ConcurrentHashMap<>();
+
+    public TransactionRollup(@Value("${account.rollup.enabled}") boolean enabled, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        Gauge.builder("account.rollup.pending", pending, Map::size)
+                .description("Account days with totals not yet written to the rollup tables")
+                .register(meterRegistry);
+    }
+
+    public void add(Transaction transaction) {
+        if (!enabled) {
+            return;
+        }
+        RollupKey key = new RollupKey(ShardContext.current(), transaction.getAccount().getId(),
+                transaction.getAccount().getAccountUser().getId(), transaction.getTransactedAt().toLocalDate());
+        RollupDelta delta = RollupDelta.of(transaction);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.merge(key, delta, RollupDelta::plus);
+                }
+            });
+        } else {
+            pending.merge(key, delta, RollupDelta::plus);
+        }
+    }
+
+    /**
+     * Removes and returns the totals added so far.
+     */
+    Map<RollupKey, RollupDelta> drain() {
+        Map<RollupKey, RollupDelta> drained = new HashMap<>();
+        for (RollupKey key : pending.keySet()) {
+            RollupDelta delta = pending.remove(key);
+            if (delta != null) {
+                drained.put(key, delta);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Puts back totals that could not be written.
+     */
+    void restore(Map<RollupKey, RollupDelta> deltas) {
+        deltas.forEach((key, delta) -> pending.merge(key, delta, RollupDelta::plus));
+    }
+}
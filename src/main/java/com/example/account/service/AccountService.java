@@ -1,19 +1,31 @@
 package com.example.account.service;
 
+import com.example.account.aop.ReplicaRead;
+import com.example.account.aop.ShardKey;
+import com.example.account.aop.Sharded;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.engine.BalanceEngine;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.shard.AccountUserReplicator;
+import com.example.account.shard.ShardContext;
+import com.example.account.shard.ShardRouter;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 import static com.example.account.type.AccountStatus.IN_USE;
 import static com.example.account.type.AccountStatus.UNREGISTERED;
@@ -24,16 +36,22 @@ import static com.example.account.type.AccountStatus.UNREGISTERED;
 public class AccountService {
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final ClockService clockService;
+    private final ShardRouter shardRouter;
+    private final ObjectProvider<BalanceEngine> balanceEngine;
+    private final ObjectProvider<AccountUserReplicator> accountUserReplicator;
 
     @Transactional
+    @Sharded
     public AccountDto createAccount(Long userId, Long initialBalance) {
-        AccountUser accountUser = getAccountUser(userId);
+        AccountUser accountUser = getOrCopyAccountUser(userId);
 
         validateCreateAccount(accountUser);
 
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-                .orElse("1000000000");
+        int shard = ShardContext.current();
+        String newAccountNumber = shardRouter.nextAccountNumber(shard, accountRepository.findFirstByOrderByIdDesc()
+                .map(Account::getAccountNumber)
+                .orElse(null));
 
 
         Account account = accountRepository.save(
@@ -41,8 +59,9 @@ public class AccountService {
                         .accountUser(accountUser)
                         .accountNumber(newAccountNumber)
                         .balance(initialBalance)
+                        .initialBalance(initialBalance)
                         .accountStatus(IN_USE)
-                        .registeredAt(LocalDateTime.now())
+                        .registeredAt(clockService.now())
                         .build());
 
         return AccountDto.fromEntity(account);
@@ -50,20 +69,42 @@ public class AccountService {
 
 
     @Transactional
-    public AccountDto deleteAccount(Long userId, String accountNumber) {
+    @Sharded
+    public AccountDto deleteAccount(Long userId, @ShardKey String accountNumber) {
         AccountUser accountUser = getAccountUser(userId);
 
         Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
-        validateDeleteAccount(accountUser, account);
+        BalanceEngine engine = balanceEngine.getIfAvailable();
+        if (engine == null) {
+            validateDeleteAccount(accountUser, account);
+        } else {
+            unregisterInEngine(engine, userId, accountNumber);
+        }
 
         account.setAccountStatus(UNREGISTERED);
-        account.setUnRegisteredAt(LocalDateTime.now());
+        account.setUnRegisteredAt(clockService.now());
         accountRepository.save(account);
 
         return AccountDto.fromEntity(account);
     }
 
+    /**
+     * The balance in the database lags behind the engine's, so the engine checks and
+     * unregisters the account itself, and puts it back if the transaction rolls back.
+     */
+    private static void unregisterInEngine(BalanceEngine engine, Long userId, String accountNumber) {
+        engine.unregisterAccount(userId, accountNumber);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    engine.restoreAccount(accountNumber);
+                }
+            }
+        });
+    }
+
     private void validateDeleteAccount(AccountUser accountUser, Account account) {
         if (!Objects.equals(accountUser.getId(), account.getAccountUser().getId())) {
             throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCHED);
@@ -78,10 +119,44 @@ public class AccountService {
     }
 
 
+    /**
+     * A user's accounts can be on every shard, which are read in parallel.
+     */
+    @ReplicaRead
     public List<AccountDto> getAccountsByUserId(Long userId) {
         AccountUser accountUser = getAccountUser(userId);
 
-        return accountRepository.findAccountByAccountUser(accountUser).stream().map(AccountDto::fromEntity).toList();
+        return withEngineBalances(shardRouter.readFromShards(shardRouter.allShards(), shard ->
+                accountRepository.findAccountByAccountUser(accountUser).stream().map(AccountDto::fromEntity).toList()));
+    }
+
+    /**
+     * Looks up all accounts with one IN query per shard. Unknown account numbers are left
+     * out and the rest keep the order of {@code accountNumbers}.
+     */
+    @ReplicaRead
+    public List<AccountDto> getAccountsByAccountNumbers(List<String> accountNumbers) {
+        Map<Integer, List<String>> accountNumbersByShard = shardRouter.groupByShard(accountNumbers, shardRouter::shardOfAccount);
+        Map<String, AccountDto> found = new HashMap<>();
+        shardRouter.readFromShards(accountNumbersByShard.keySet(), shard ->
+                        accountRepository.findByAccountNumberIn(accountNumbersByShard.get(shard)).stream()
+                                .map(AccountDto::fromEntity)
+                                .toList())
+                .forEach(accountDto -> found.put(accountDto.getAccountNumber(), accountDto));
+
+        return withEngineBalances(accountNumbers.stream().distinct().map(found::get).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * The database lags behind the balance engine, which acknowledges a result before
+     * persisting it, so the engine's balances replace the ones read.
+     */
+    private List<AccountDto> withEngineBalances(List<AccountDto> accountDtos) {
+        BalanceEngine engine = balanceEngine.getIfAvailable();
+        if (engine != null) {
+            accountDtos.forEach(accountDto -> engine.findBalance(accountDto.getAccountNumber()).ifPresent(accountDto::setBalance));
+        }
+        return accountDtos;
     }
 
     private AccountUser getAccountUser(Long userId) {
@@ -89,8 +164,28 @@ public class AccountService {
                 .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
     }
 
+    /**
+     * A user missing from a shard other than 0, because copying it there failed, is copied
+     * from shard 0 within this transaction.
+     */
+    private AccountUser getOrCopyAccountUser(Long userId) {
+        Optional<AccountUser> accountUser = accountUserRepository.findById(userId);
+        if (accountUser.isEmpty() && ShardContext.current() != 0) {
+            accountUserReplicator.ifAvailable(replicator -> replicator.findOnFirstShard(userId)
+                    .ifPresent(copy -> accountUserRepository.insertCopy(
+                            copy.getId(), copy.getName(), copy.getCreatedAt(), copy.getUpdatedAt())));
+            accountUser = accountUserRepository.findById(userId);
+        }
+        return accountUser.orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+    }
+
     private void validateCreateAccount(AccountUser accountUser) {
-        if (accountRepository.countByAccountUser(accountUser) >= 10) {
+        int accounts = shardRouter.readFromShards(shardRouter.allShards(),
+                        shard -> List.of(accountRepository.countByAccountUser(accountUser)))
+                .stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+        if (accounts >= 10) {
             throw new AccountException(ErrorCode.USER_ACCOUNT_PER_USER_10);
         }
     }
@@ -0,0 +1,61 @@
+package com.example.account.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Current time for accounts and transactions. The clock is read at most once per
+ * {@code account.clock.resolution}, and requests in between share the same
+ * {@link LocalDateTime}, so the balance hot path allocates no time objects.
+ */
+@Service
+public class ClockService {
+    private final Clock clock;
+    private final long resolutionNanos;
+    private volatile Tick tick;
+
+    private record Tick(long readAt, LocalDateTime now, LocalDateTime yearAgo) {
+    }
+
+    @Autowired
+    public ClockService(@Value("${account.clock.resolution}") Duration resolution) {
+        this(Clock.systemDefaultZone(), resolution);
+    }
+
+    public ClockService(Clock clock, Duration resolution) {
+        this.clock = clock;
+        this.resolutionNanos = resolution.toNanos();
+        this.tick = read(System.nanoTime());
+    }
+
+    public LocalDateTime now() {
+        return current().now();
+    }
+
+    /**
+     * Transactions made before this can no longer be canceled.
+     */
+    public LocalDateTime yearAgo() {
+        return current().yearAgo();
+    }
+
+    private Tick current() {
+        Tick current = tick;
+        long nanoTime = System.nanoTime();
+        if (nanoTime - current.readAt() >= resolutionNanos) {
+            current = read(nanoTime);
+            tick = current;
+        }
+        return current;
+    }
+
+    private Tick read(long nanoTime) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        return new Tick(nanoTime, now, now.minusYears(1));
+    }
+}
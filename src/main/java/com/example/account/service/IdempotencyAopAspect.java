@@ -0,0 +1,52 @@
+package com.example.account.service;
+
+import com.example.account.aop.Idempotent;
+import com.example.account.aop.IdempotencyScopeInterface;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Runs before {@link LockAopAspect}, so a replayed request never takes the account lock.
+ * Keys are namespaced by the method and the owner of the request.
+ */
+@Aspect
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@Order(1)
+public class IdempotencyAopAspect {
+    private final IdempotencyService idempotencyService;
+
+    @Around("@annotation(idempotent) && args(request)")
+    public Object aroundMethod(ProceedingJoinPoint pjp, Idempotent idempotent,
+                               IdempotencyScopeInterface request) throws Throwable {
+        String idempotencyKey = getIdempotencyKey(idempotent.header());
+        if (idempotencyKey == null) {
+            return pjp.proceed();
+        }
+
+        MethodSignature signature = (MethodSignature) pjp.getSignature();
+        return idempotencyService.execute(
+                signature.getName() + ":" + request.getIdempotencyScope(),
+                idempotencyKey,
+                request,
+                signature.getReturnType(),
+                pjp::proceed);
+    }
+
+    private static String getIdempotencyKey(String header) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return null;
+        }
+        String value = attributes.getRequest().getHeader(header);
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stores the outcome of use/cancel requests by idempotency key and replays it
+ * for retries. Outcomes live in a bounded local cache and in Redis, both with a TTL.
+ * A duplicate that arrives while the original is still running waits for it.
+ * <p>
+ * Every outcome is stored with a fingerprint of its request, and a key reused for a
+ * different request is refused. While a request runs its key is only leased, for
+ * {@code wait-timeout} plus the account lock lease and refreshed until it ends, so a
+ * node that dies mid-request holds the key no longer than its account lock. Outcomes
+ * the client may retry, such as a busy account, are not stored and release the key.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final String PENDING_PREFIX = "P:";
+    private static final String ERROR_PREFIX = "E:";
+    private static final String RESPONSE_PREFIX = "R:";
+    private static final Set<ErrorCode> RETRYABLE = EnumSet.of(
+            ErrorCode.ACCOUNT_TRANSACTION_LOCK, ErrorCode.INTERNAL_SERVER_ERROR);
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Duration pendingLease;
+    private final Map<String, Claim> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Outcome> completed;
+    private final ReentrantLock completedLock = new ReentrantLock();
+    private final ScheduledExecutorService leaseRefresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdempotencyService(RedissonClient redissonClient,
+                              ObjectMapper objectMapper,
+                              @Value("${account.idempotency.ttl}") Duration ttl,
+                              @Value("${account.idempotency.wait-timeout}") Duration waitTimeout,
+                              @Value("${account.idempotency.local-max-size}") int localMaxSize) {
+        this.redissonClient = redissonClient;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.pendingLease = waitTimeout.plus(LockService.LEASE);
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Outcome> eldest) {
+                return size() > localMaxSize;
+            }
+        };
+    }
+
+    @PreDestroy
+    public void stop() {
+        leaseRefresher.shutdownNow();
+    }
+
+    @FunctionalInterface
+    public interface Execution {
+        Object proceed() throws Throwable;
+    }
+
+    /**
+     * @param scope          namespace of the key, the method and the owner of the request
+     * @param idempotencyKey key chosen by the client
+     * @param request        the request, whose fingerprint is kept with its outcome
+     */
+    public Object execute(String scope, String idempotencyKey, Object request,
+                          Class<?> responseType, Execution execution) throws Throwable {
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        String key = scope + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        Outcome cached = getCompleted(key);
+        if (cached != null) {
+            return cached.replay(fingerprint);
+        }
+
+        Claim mine = new Claim(fingerprint, new CompletableFuture<>());
+        Claim running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            log.debug("Waiting for in-flight request. idempotencyKey : {}", key);
+            checkFingerprint(running.fingerprint(), fingerprint);
+            return await(running.outcome()).replay(fingerprint);
+        }
+
+        Lease lease = null;
+        try {
+            long deadline = System.nanoTime() + waitTimeout.toNanos();
+            while (lease == null) {
+                lease = claimInRedis(key, fingerprint);
+                if (lease == null) {
+                    Outcome stored = awaitInRedis(key, fingerprint, responseType, deadline);
+                    if (stored != null) {
+                        putCompleted(key, stored);
+                        mine.outcome().complete(stored);
+                        return stored.replay(fingerprint);
+                    }
+                    // released without an outcome, so the key is claimed again before running
+                }
+            }
+
+            Outcome outcome = run(execution, fingerprint);
+            lease.end();
+            if (RETRYABLE.contains(outcome.errorCode())) {
+                releaseInRedis(key, fingerprint);
+            } else {
+                putCompleted(key, outcome);
+                saveInRedis(key, outcome);
+            }
+            mine.outcome().complete(outcome);
+            return outcome.replay(fingerprint);
+        } catch (Throwable e) {
+            // unexpected failures are not stored, so the client may retry them
+            if (lease != null) {
+                lease.end();
+                releaseInRedis(key, fingerprint);
+            }
+            mine.outcome().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static Outcome run(Execution execution, String fingerprint) throws Throwable {
+        try {
+            return Outcome.response(fingerprint, execution.proceed());
+        } catch (AccountException e) {
+            return Outcome.error(fingerprint, e.getErrorCode());
+        }
+    }
+
+    private Outcome await(CompletableFuture<Outcome> running) throws Throwable {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    /**
+     * Leases the key in Redis for the running request. When Redis is unavailable the
+     * request runs with local deduplication only.
+     *
+     * @return null when another request already holds the key
+     */
+    private Lease claimInRedis(String key, String fingerprint) {
+        try {
+            RBucket<String> bucket = getBucket(key);
+            if (!bucket.trySet(PENDING_PREFIX + fingerprint, pendingLease.toMillis(), TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+            Lease lease = new Lease(bucket);
+            long refreshMillis = pendingLease.toMillis() / 3;
+            lease.refresh = leaseRefresher.scheduleAtFixedRate(lease::extend,
+                    refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+            return lease;
+        } catch (Exception e) {
+            log.error("Redis idempotency claim failed");
+            return new Lease(null);
+        }
+    }
+
+    /**
+     * Waits for the outcome stored by the request holding the key.
+     *
+     * @return the stored outcome, or null when the key was released without one
+     */
+    private Outcome awaitInRedis(String key, String fingerprint, Class<?> responseType, long deadline) throws Exception {
+        RBucket<String> bucket = getBucket(key);
+        String value = bucket.get();
+        while (value != null && value.startsWith(PENDING_PREFIX)) {
+            checkFingerprint(value.substring(PENDING_PREFIX.length()), fingerprint);
+            if (System.nanoTime() > deadline) {
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+            TimeUnit.MILLISECONDS.sleep(20);
+            value = bucket.get();
+        }
+        if (value == null && System.nanoTime() > deadline) {
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        return value == null ? null : decode(value, responseType);
+    }
+
+    private void saveInRedis(String key, Outcome outcome) {
+        try {
+            getBucket(key).set(encode(outcome), ttl.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.error("Redis idempotency save failed");
+        }
+    }
+
+    private void releaseInRedis(String key, String fingerprint) {
+        try {
+            getBucket(key).compareAndSet(PENDING_PREFIX + fingerprint, null);
+        } catch (Exception e) {
+            log.error("Redis idempotency release failed");
+        }
+    }
+
+    private RBucket<String> getBucket(String key) {
+        return redissonClient.getBucket("IDEM:" + key, StringCodec.INSTANCE);
+    }
+
+    private String fingerprint(Object request) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    private static void checkFingerprint(String stored, String fingerprint) {
+        if (!stored.equals(fingerprint)) {
+            throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+        }
+    }
+
+    // <prefix><fingerprint>:<error code or response>, fingerprints never contain ':'
+    private String encode(Outcome outcome) throws Exception {
+        return outcome.errorCode() != null
+                ? ERROR_PREFIX + outcome.fingerprint() + ":" + outcome.errorCode().name()
+                : RESPONSE_PREFIX + outcome.fingerprint() + ":" + objectMapper.writeValueAsString(outcome.response());
+    }
+
+    private Outcome decode(String value, Class<?> responseType) throws Exception {
+        int separator = value.indexOf(':', RESPONSE_PREFIX.length());
+        String fingerprint = value.substring(RESPONSE_PREFIX.length(), separator);
+        String body = value.substring(separator + 1);
+        if (value.startsWith(ERROR_PREFIX)) {
+            return Outcome.error(fingerprint, ErrorCode.valueOf(body));
+        }
+        return Outcome.response(fingerprint, objectMapper.readValue(body, responseType));
+    }
+
+    private Outcome getCompleted(String key) {
+        completedLock.lock();
+        try {
+            Outcome outcome = completed.get(key);
+            if (outcome != null && outcome.expiresAt() < System.nanoTime()) {
+                completed.remove(key);
+                return null;
+            }
+            return outcome;
+        } finally {
+            completedLock.unlock();
+        }
+    }
+
+    private void putCompleted(String key, Outcome outcome) {
+        completedLock.lock();
+        try {
+            completed.put(key, outcome.expiringAfter(ttl));
+        } finally {
+            completedLock.unlock();
+        }
+    }
+
+    private record Claim(String fingerprint, CompletableFuture<Outcome> outcome) {
+    }
+
+    /**
+     * The pending marker of a running request, extended until the request ends. Ending
+     * it waits out an extension in progress, so none lands on the stored outcome.
+     */
+    private class Lease {
+        private final RBucket<String> bucket;
+        private final ReentrantLock lock = new ReentrantLock();
+        private ScheduledFuture<?> refresh;
+        private boolean ended;
+
+        Lease(RBucket<String> bucket) {
+            this.bucket = bucket;
+        }
+
+        void extend() {
+            lock.lock();
+            try {
+                if (!ended) {
+                    bucket.expire(pendingLease);
+                }
+            } catch (Exception e) {
+                log.error("Redis idempotency lease refresh failed");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void end() {
+            lock.lock();
+            try {
+                ended = true;
+                if (refresh != null) {
+                    refresh.cancel(false);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private record Outcome(String fingerprint, Object response, ErrorCode errorCode, long expiresAt) {
+        static Outcome response(String fingerprint, Object response) {
+            return new Outcome(fingerprint, response, null, 0L);
+        }
+
+        static Outcome error(String fingerprint, ErrorCode errorCode) {
+            return new Outcome(fingerprint, null, errorCode, 0L);
+        }
+
+        Outcome expiringAfter(Duration ttl) {
+            return new Outcome(fingerprint, response, errorCode, System.nanoTime() + ttl.toNanos());
+        }
+
+        Object replay(String requestFingerprint) {
+            checkFingerprint(fingerprint, requestFingerprint);
+            if (errorCode != null) {
+                throw new AccountException(errorCode);
+            }
+            return response;
+        }
+    }
+}
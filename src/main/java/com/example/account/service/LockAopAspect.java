@@ -1,30 +1,37 @@
 package com.example.account.service;
 
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.metrics.ServerTiming;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 @Aspect
 @Component
 @Slf4j
 @RequiredArgsConstructor
+@Order(2)
 public class LockAopAspect {
     private final LockService lockService;
 
     @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
     public Object aroundMethod(ProceedingJoinPoint pjp, AccountLockIdInterface request) throws Throwable {
 
+        long lockStartedAt = System.nanoTime();
         lockService.lock(request.getAccountNumber());
+        ServerTiming.record("lock", lockStartedAt);
 
         try {
             return pjp.proceed();
 
         } finally {
+            long unlockStartedAt = System.nanoTime();
             lockService.unlock(request.getAccountNumber());
+            ServerTiming.record("unlock", unlockStartedAt);
 
         }
     }
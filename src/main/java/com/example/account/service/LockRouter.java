@@ -0,0 +1,100 @@
+package com.example.account.service;
+
+import com.example.account.type.LockMode;
+import org.redisson.RedissonRedLock;
+import org.redisson.api.RLock;
+import org.redisson.api.RLockReactive;
+import org.redisson.api.RedissonClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Resolves the Redis lock of a key for {@code account.lock.mode}.
+ * <ul>
+ *     <li>{@code SINGLE}: every lock on the main Redis</li>
+ *     <li>{@code SHARDED}: each key on one of {@code account.lock.nodes}, chosen by consistent
+ *     hashing, so lock traffic grows with the nodes and adding one moves about 1/n of the keys</li>
+ *     <li>{@code QUORUM}: each lock taken on all nodes and granted when a majority holds it
+ *     (Redlock), so a lost or restarted node neither blocks nor duplicates a lock</li>
+ * </ul>
+ */
+public class LockRouter {
+    // points per node on the ring; enough to keep the key share of each node within a few percent
+    private static final int VIRTUAL_NODES = 160;
+
+    private final LockMode mode;
+    private final List<RedissonClient> nodes;
+    private final NavigableMap<Long, RedissonClient> ring = new TreeMap<>();
+
+    /**
+     * @param nodes clients by node address; the address places the node on the ring, so the
+     *              keys of a node stay where they are when other nodes are added or removed
+     */
+    public LockRouter(LockMode mode, Map<String, RedissonClient> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("No Redis nodes for the " + mode + " lock mode");
+        }
+        this.mode = mode;
+        this.nodes = List.copyOf(nodes.values());
+        nodes.forEach((address, client) -> {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(hash(address + "#" + i), client);
+            }
+        });
+    }
+
+    public LockMode getMode() {
+        return mode;
+    }
+
+    public RLock getLock(String key) {
+        return switch (mode) {
+            case SINGLE, SHARDED -> nodeFor(key).getLock(key);
+            case QUORUM -> new RedissonRedLock(nodes.stream()
+                    .map(node -> node.getLock(key))
+                    .toArray(RLock[]::new));
+        };
+    }
+
+    public RLockReactive getReactiveLock(String key) {
+        return switch (mode) {
+            case SINGLE, SHARDED -> nodeFor(key).reactive().getLock(key);
+            case QUORUM -> nodes.get(0).reactive().getRedLock(nodes.stream()
+                    .map(node -> node.getLock(key))
+                    .toArray(RLock[]::new));
+        };
+    }
+
+    RedissonClient nodeFor(String key) {
+        Map.Entry<Long, RedissonClient> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Shuts down the lock node clients; the main client of {@code SINGLE} is a bean of its own.
+     */
+    public void shutdown() {
+        if (mode != LockMode.SINGLE) {
+            nodes.forEach(RedissonClient::shutdown);
+        }
+    }
+
+    // 64-bit FNV-1a with the murmur3 finalizer; account numbers differ only in a few digits
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -2,40 +2,91 @@ package com.example.account.service;
 
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Account locks on Redis. Records how long callers wait for a lock
+ * ({@code account.lock.wait}, tagged by result) and how long it is held
+ * ({@code account.lock.hold}). The Redis node, or nodes, of a lock come from {@link LockRouter}.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class LockService {
-    private final RedissonClient redissonClient;
+    // a holder that stops responding keeps the account locked for this long at most
+    public static final Duration LEASE = Duration.ofSeconds(5);
+
+    private final LockRouter lockRouter;
+    private final MeterRegistry meterRegistry;
+    private final Timer holdTimer;
+    // an account lock has a single holder at a time, so the account number is enough as key
+    private final Map<String, Long> acquiredAt = new ConcurrentHashMap<>();
+
+    public LockService(LockRouter lockRouter, MeterRegistry meterRegistry) {
+        this.lockRouter = lockRouter;
+        this.meterRegistry = meterRegistry;
+        this.holdTimer = Timer.builder("account.lock.hold")
+                .description("Time an account lock is held")
+                .register(meterRegistry);
+    }
 
     public void lock(String accountNumber) {
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+        lock(accountNumber, LEASE.toSeconds());
+    }
+
+    /**
+     * Locks an account for a batch of its requests, which may take longer than {@link #LEASE}.
+     * The lock has no fixed lease: the Redisson watchdog renews it until it is unlocked or
+     * this node stops.
+     */
+    public void lockForBatch(String accountNumber) {
+        lock(accountNumber, -1);
+    }
+
+    private void lock(String accountNumber, long leaseSeconds) {
+        RLock lock = lockRouter.getLock(getLockKey(accountNumber));
         log.debug("Trying lock for accountNumber : {}", accountNumber);
 
+        long startedAt = System.nanoTime();
         try {
-            boolean isLock = lock.tryLock(1, 5, TimeUnit.SECONDS);
+            boolean isLock = lock.tryLock(1, leaseSeconds, TimeUnit.SECONDS);
+            recordWait(startedAt, isLock ? "acquired" : "timeout");
             if (!isLock) {
-                log.error("=====Lock acquisition failed=====");
+                log.debug("Lock acquisition failed for accountNumber : {}", accountNumber);
                 throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
             }
+            acquiredAt.put(accountNumber, System.nanoTime());
         } catch (AccountException e) {
             throw e;
         } catch (Exception e) {
+            recordWait(startedAt, "error");
             log.error("Redis lock failed");
         }
     }
 
     public void unlock(String accountNumber) {
         log.debug("Unlock for accountNumber : {}", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        Long lockedAt = acquiredAt.remove(accountNumber);
+        if (lockedAt != null) {
+            holdTimer.record(System.nanoTime() - lockedAt, TimeUnit.NANOSECONDS);
+        }
+        lockRouter.getLock(getLockKey(accountNumber)).unlock();
+    }
+
+    private void recordWait(long startedAt, String result) {
+        Timer.builder("account.lock.wait")
+                .description("Time spent acquiring an account lock")
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
     }
 
     private static String getLockKey(String accountNumber) {
@@ -0,0 +1,73 @@
+package com.example.account.service;
+
+import com.example.account.aop.ReplicaRead;
+import com.example.account.domain.Account;
+import com.example.account.dto.DailyRollup;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.DailyAccountRollupRepository;
+import com.example.account.repository.DailyUserRollupRepository;
+import com.example.account.shard.ShardRouter;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Daily totals from the rollup tables, one row per day with transactions.
+ */
+@Service
+@RequiredArgsConstructor
+public class RollupService {
+    private static final int MAX_DAYS = 366;
+
+    private final AccountRepository accountRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final DailyAccountRollupRepository accountRollupRepository;
+    private final DailyUserRollupRepository userRollupRepository;
+    private final ShardRouter shardRouter;
+
+    @ReplicaRead
+    public List<DailyRollup> getAccountRollups(String accountNumber, LocalDate from, LocalDate to) {
+        validateDays(from, to);
+        return shardRouter.readFromShards(List.of(shardRouter.shardOfAccount(accountNumber)), shard -> {
+            Account account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+            return accountRollupRepository.findByAccountIdAndTransactedOnBetweenOrderByTransactedOn(account.getId(), from, to)
+                    .stream()
+                    .map(DailyRollup::fromEntity)
+                    .toList();
+        });
+    }
+
+    /**
+     * Sums the user's rollups of every shard that holds one of the user's accounts.
+     */
+    @ReplicaRead
+    public List<DailyRollup> getUserRollups(Long userId, LocalDate from, LocalDate to) {
+        validateDays(from, to);
+        accountUserRepository.findById(userId)
+                .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+
+        Map<LocalDate, DailyRollup> rollups = new TreeMap<>();
+        shardRouter.readFromShards(shardRouter.allShards(), shard ->
+                        userRollupRepository.findByUserIdAndTransactedOnBetweenOrderByTransactedOn(userId, from, to).stream()
+                                .map(DailyRollup::fromEntity)
+                                .toList())
+                .forEach(rollup -> rollups.merge(rollup.getDate(), rollup, DailyRollup::plus));
+        return new ArrayList<>(rollups.values());
+    }
+
+    private void validateDays(LocalDate from, LocalDate to) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+    }
+}
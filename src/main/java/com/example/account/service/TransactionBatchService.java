@@ -0,0 +1,150 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.engine.BalanceEngine;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Splits a batch of use requests by account. Each account is locked once, for as
+ * long as its requests take, and its requests are applied in order and committed
+ * together; different accounts run in parallel on the application task executor.
+ * <p>
+ * While the balance engine is enabled the requests are sent through it instead.
+ */
+@Slf4j
+@Service
+public class TransactionBatchService {
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final Executor executor;
+    private final ObjectProvider<BalanceEngine> balanceEngine;
+
+    public TransactionBatchService(TransactionService transactionService,
+                                   LockService lockService,
+                                   @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+                                   ObjectProvider<BalanceEngine> balanceEngine) {
+        this.transactionService = transactionService;
+        this.lockService = lockService;
+        this.executor = executor;
+        this.balanceEngine = balanceEngine;
+    }
+
+    /**
+     * @return one result per request, in request order
+     */
+    public List<TransactionDto> useBalances(List<UseBalance.Request> requests) {
+        BalanceEngine engine = balanceEngine.getIfAvailable();
+        if (engine != null) {
+            return useBalances(engine, requests);
+        }
+
+        Map<String, List<Integer>> indexesByAccount = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByAccount.computeIfAbsent(requests.get(i).getAccountNumber(), accountNumber -> new ArrayList<>())
+                    .add(i);
+        }
+
+        TransactionDto[] results = new TransactionDto[requests.size()];
+        CompletableFuture<?>[] futures = indexesByAccount.entrySet().stream()
+                .map(entry -> CompletableFuture.runAsync(
+                        () -> useBalances(entry.getKey(), entry.getValue(), requests, results), executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+
+        return Arrays.asList(results);
+    }
+
+    private void useBalances(String accountNumber, List<Integer> indexes,
+                             List<UseBalance.Request> requests, TransactionDto[] results) {
+        List<UseBalance.Request> accountRequests = indexes.stream().map(requests::get).toList();
+        List<TransactionDto> transactionDtos;
+        try {
+            lockService.lockForBatch(accountNumber);
+            try {
+                transactionDtos = transactionService.useBalances(accountNumber, accountRequests);
+            } finally {
+                unlock(accountNumber);
+            }
+        } catch (AccountException e) {
+            log.debug("Failed to use balance for accountNumber : {}", accountNumber);
+            transactionDtos = failAll(accountRequests, e.getErrorCode());
+        } catch (RuntimeException e) {
+            log.error("Failed to use balance for accountNumber : {}", accountNumber, e);
+            transactionDtos = failAll(accountRequests, ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+
+        for (int i = 0; i < indexes.size(); i++) {
+            results[indexes.get(i)] = transactionDtos.get(i);
+        }
+    }
+
+    /**
+     * The requests are committed, or rolled back, by the time the lock is released, so a
+     * failure to release it is logged rather than reported as their result.
+     */
+    private void unlock(String accountNumber) {
+        try {
+            lockService.unlock(accountNumber);
+        } catch (RuntimeException e) {
+            log.error("Failed to unlock accountNumber : {}", accountNumber, e);
+        }
+    }
+
+    /**
+     * Publishes every request to the engine before waiting for the first one.
+     */
+    private static List<TransactionDto> useBalances(BalanceEngine engine, List<UseBalance.Request> requests) {
+        List<CompletableFuture<TransactionDto>> futures = requests.stream()
+                .map(request -> engine.submitUse(request.getUserId(), request.getAccountNumber(), request.getAmount()))
+                .toList();
+
+        List<TransactionDto> transactionDtos = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                transactionDtos.add(futures.get(i).join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof AccountException accountException) {
+                    transactionDtos.add(failed(requests.get(i), accountException.getErrorCode()));
+                } else {
+                    log.error("Failed to use balance for accountNumber : {}", requests.get(i).getAccountNumber(), e);
+                    transactionDtos.add(failed(requests.get(i), ErrorCode.INTERNAL_SERVER_ERROR));
+                }
+            }
+        }
+        return transactionDtos;
+    }
+
+    private static List<TransactionDto> failAll(List<UseBalance.Request> requests, ErrorCode errorCode) {
+        return requests.stream()
+                .map(request -> failed(request, errorCode))
+                .toList();
+    }
+
+    private static TransactionDto failed(UseBalance.Request request, ErrorCode errorCode) {
+        return TransactionDto.builder()
+                .accountNumber(request.getAccountNumber())
+                .transactionType(TransactionType.USE)
+                .transactionResult(TransactionResultType.F)
+                .amount(request.getAmount())
+                .errorCode(errorCode)
+                .build();
+    }
+}
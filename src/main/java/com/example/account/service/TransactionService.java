@@ -1,25 +1,42 @@
 package com.example.account.service;
 
+import com.example.account.aop.ReplicaRead;
+import com.example.account.aop.ShardKey;
+import com.example.account.aop.Sharded;
+import com.example.account.archive.TransactionArchive;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.engine.BalanceEngine;
 import com.example.account.exception.AccountException;
+import com.example.account.metrics.ServerTiming;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
+import com.example.account.rollup.TransactionRollup;
+import com.example.account.shard.ShardContext;
+import com.example.account.shard.ShardRouter;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -28,14 +45,23 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final ClockService clockService;
+    private final ShardRouter shardRouter;
+    private final TransactionArchive transactionArchive;
+    private final TransactionRollup transactionRollup;
+    private final ObjectProvider<BalanceEngine> balanceEngine;
 
     @Transactional
-    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+    @Sharded
+    public TransactionDto useBalance(Long userId, @ShardKey String accountNumber, long amount) {
+        ServerTiming.recordCommit();
+        long readStartedAt = System.nanoTime();
         AccountUser user = accountUserRepository.findById(userId)
                 .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        ServerTiming.record("read", readStartedAt);
         validateUserBalance(user, account, amount);
 
         account.useBalance(amount);
@@ -44,8 +70,8 @@ public class TransactionService {
     }
 
 
-    private void validateUserBalance(AccountUser user, Account account, Long amount) {
-        if (!Objects.equals(user.getId(), account.getAccountUser().getId())) {
+    private void validateUserBalance(AccountUser user, Account account, long amount) {
+        if (!user.getId().equals(account.getAccountUser().getId())) {
             throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCHED);
         }
         if (account.getAccountStatus() != AccountStatus.IN_USE) {
@@ -58,63 +84,238 @@ public class TransactionService {
     }
 
     @Transactional
-    public void saveFailedUseTransaction(String accountNumber, Long amount) {
+    @Sharded
+    public TransactionDto saveFailedUseTransaction(@ShardKey String accountNumber, long amount) {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
-        saveAndGetTransaction(TransactionResultType.F, amount, account, TransactionType.USE);
+        return TransactionDto.fromEntity(saveAndGetTransaction(TransactionResultType.F, amount, account, TransactionType.USE));
     }
 
-    private Transaction saveAndGetTransaction(TransactionResultType transactionResultType, Long amount, Account account, TransactionType transactionType) {
-        return transactionRepository.save(
-                Transaction.builder()
-                        .transactionType(transactionType)
-                        .transactionResultType(transactionResultType)
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapShot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                        .transactedAt(LocalDateTime.now())
-                        .build());
+    private Transaction saveAndGetTransaction(TransactionResultType transactionResultType, long amount, Account account, TransactionType transactionType) {
+        return saveAndGetTransaction(transactionResultType, amount, account, transactionType, null);
     }
 
+    private Transaction saveAndGetTransaction(TransactionResultType transactionResultType, long amount, Account account,
+                                              TransactionType transactionType, String originalTransactionId) {
+        Transaction transaction = transactionRepository.save(
+                newTransaction(transactionResultType, amount, account, transactionType, originalTransactionId));
+        transactionRollup.add(transaction);
+        return transaction;
+    }
+
+    private Transaction newTransaction(TransactionResultType transactionResultType, long amount, Account account,
+                                       TransactionType transactionType, String originalTransactionId) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapShot(account.getBalance())
+                .transactionId(newTransactionId())
+                .transactedAt(clockService.now())
+                .originalTransactionId(originalTransactionId)
+                .build();
+    }
+
+    String newTransactionId() {
+        return shardRouter.newTransactionId(ShardContext.current());
+    }
+
+    /**
+     * Applies the use requests of one account in order within a single transaction.
+     * A request that fails validation is saved as a failed transaction, like
+     * {@link #saveFailedUseTransaction}, and does not stop the ones after it.
+     * All rows are inserted with one {@code saveAll}, so Hibernate can batch them.
+     */
     @Transactional
-    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+    @Sharded
+    public List<TransactionDto> useBalances(@ShardKey String accountNumber, List<UseBalance.Request> requests) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        Map<Long, Optional<AccountUser>> users = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>(requests.size());
+        List<ErrorCode> errorCodes = new ArrayList<>(requests.size());
+
+        for (UseBalance.Request request : requests) {
+            try {
+                AccountUser user = users.computeIfAbsent(request.getUserId(), accountUserRepository::findById)
+                        .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+                validateUserBalance(user, account, request.getAmount());
 
+                account.useBalance(request.getAmount());
+
+                transactions.add(newTransaction(TransactionResultType.S, request.getAmount(), account, TransactionType.USE, null));
+                errorCodes.add(null);
+            } catch (AccountException e) {
+                transactions.add(newTransaction(TransactionResultType.F, request.getAmount(), account, TransactionType.USE, null));
+                errorCodes.add(e.getErrorCode());
+            }
+        }
+        transactionRepository.saveAll(transactions);
+        transactions.forEach(transactionRollup::add);
+
+        List<TransactionDto> transactionDtos = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            TransactionDto transactionDto = TransactionDto.fromEntity(transactions.get(i));
+            transactionDto.setErrorCode(errorCodes.get(i));
+            transactionDtos.add(transactionDto);
+        }
+        return transactionDtos;
+    }
+
+    @Transactional
+    @Sharded
+    public TransactionDto cancelBalance(String transactionId, @ShardKey String accountNumber, long amount) {
+        ServerTiming.recordCommit();
+        long readStartedAt = System.nanoTime();
         Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+                .orElseThrow(() -> new AccountException(transactionArchive.find(transactionId).isPresent()
+                        // archived transactions are past the cancel window
+                        ? ErrorCode.TOO_OLD_ORDER_TO_CANCEL
+                        : ErrorCode.TRANSACTION_NOT_FOUND));
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        ServerTiming.record("read", readStartedAt);
 
         validateCancelBalance(transaction, account, amount);
         account.cancelBalance(amount);
+        transaction.setCanceledAt(clockService.now());
 
-        return TransactionDto.fromEntity(saveAndGetTransaction(TransactionResultType.S, amount, account, TransactionType.CANCEL));
+        return TransactionDto.fromEntity(saveAndGetTransaction(TransactionResultType.S, amount, account,
+                TransactionType.CANCEL, transactionId));
     }
 
-    private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
+    private void validateCancelBalance(Transaction transaction, Account account, long amount) {
+        if (transaction.getCanceledAt() != null) {
+            throw new AccountException(ErrorCode.TRANSACTION_ALREADY_CANCELED);
+        }
         if (!Objects.equals(transaction.getAccount().getAccountNumber(), account.getAccountNumber())) {
             throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UNMATCHED);
         }
-        if (!Objects.equals(transaction.getAmount(), amount)) {
+        if (transaction.getAmount() != amount) {
             throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
         }
-        if (transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))) {
+        if (transaction.getTransactedAt().isBefore(clockService.yearAgo())) {
             throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
         }
 
     }
 
-    public void saveFailedCancelTransaction(String accountNumber, Long amount) {
+    @Sharded
+    public TransactionDto saveFailedCancelTransaction(@ShardKey String accountNumber, long amount) {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
-        saveAndGetTransaction(TransactionResultType.F, amount, account, TransactionType.CANCEL);
+        return TransactionDto.fromEntity(saveAndGetTransaction(TransactionResultType.F, amount, account, TransactionType.CANCEL));
+    }
+
+    /**
+     * Persists transactions already applied in memory by the balance engine.
+     * The account balance is set to the snapshot of the last successful transaction.
+     */
+    @Transactional
+    public void saveEngineTransactions(List<TransactionDto> transactionDtos) {
+        Map<String, Account> accounts = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>(transactionDtos.size());
+
+        for (TransactionDto transactionDto : transactionDtos) {
+            Account account = accounts.computeIfAbsent(transactionDto.getAccountNumber(),
+                    accountNumber -> accountRepository.findByAccountNumber(accountNumber)
+                            .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND)));
+            if (transactionDto.getTransactionResult() == TransactionResultType.S) {
+                account.setBalance(transactionDto.getBalanceSnapShot());
+            }
+            if (transactionDto.getOriginalTransactionId() != null) {
+                markCanceled(transactions, transactionDto.getOriginalTransactionId(), transactionDto.getTransactedAt());
+            }
+
+            transactions.add(Transaction.builder()
+                    .transactionType(transactionDto.getTransactionType())
+                    .transactionResultType(transactionDto.getTransactionResult())
+                    .account(account)
+                    .amount(transactionDto.getAmount())
+                    .balanceSnapShot(transactionDto.getBalanceSnapShot())
+                    .transactionId(transactionDto.getTransactionId())
+                    .transactedAt(transactionDto.getTransactedAt())
+                    .originalTransactionId(transactionDto.getOriginalTransactionId())
+                    .build());
+        }
+
+        transactionRepository.saveAll(transactions);
+        transactions.forEach(transactionRollup::add);
+    }
 
+    private void markCanceled(List<Transaction> batch, String transactionId, LocalDateTime canceledAt) {
+        // the original may be in the same batch and not saved yet
+        batch.stream()
+                .filter(transaction -> transactionId.equals(transaction.getTransactionId()))
+                .findFirst()
+                .or(() -> transactionRepository.findByTransactionId(transactionId))
+                .ifPresent(transaction -> transaction.setCanceledAt(canceledAt));
     }
 
+    /**
+     * Looks up all transactions with one IN query per shard, then the ones not found there
+     * in the archive. Ids that name no shard are looked for on every shard. Results the
+     * balance engine has not persisted yet are taken from it. Unknown ids are left out and
+     * the rest keep the order of {@code transactionIds}.
+     */
+    @ReplicaRead
+    public List<TransactionDto> queryTransactions(List<String> transactionIds) {
+        Map<String, TransactionDto> found = new HashMap<>();
+        BalanceEngine engine = balanceEngine.getIfAvailable();
+        if (engine != null) {
+            transactionIds.forEach(transactionId -> engine.findUnpersisted(transactionId)
+                    .ifPresent(transactionDto -> found.put(transactionId, transactionDto)));
+        }
+        List<String> persisted = transactionIds.stream().filter(transactionId -> !found.containsKey(transactionId)).toList();
+        if (persisted.isEmpty()) {
+            return transactionIds.stream().distinct().map(found::get).toList();
+        }
+
+        Map<Integer, List<String>> transactionIdsByShard = shardRouter.groupTransactionIdsByShard(persisted);
+        shardRouter.readFromShards(transactionIdsByShard.keySet(), shard -> {
+                    List<TransactionDto> transactionDtos = new ArrayList<>(transactionRepository
+                            .findByTransactionIdIn(transactionIdsByShard.get(shard)).stream()
+                            .map(TransactionDto::fromEntity)
+                            .toList());
+                    Set<String> hot = transactionDtos.stream().map(TransactionDto::getTransactionId).collect(Collectors.toSet());
+                    transactionIdsByShard.get(shard).stream()
+                            .filter(transactionId -> !hot.contains(transactionId))
+                            .distinct()
+                            .forEach(transactionId -> transactionArchive.find(transactionId).ifPresent(transactionDtos::add));
+                    return transactionDtos;
+                })
+                .forEach(transactionDto -> found.put(transactionDto.getTransactionId(), transactionDto));
+
+        return transactionIds.stream().distinct().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Looks on the shard the id names, or on every shard when it names none. A result the
+     * balance engine has not persisted yet is taken from it.
+     */
+    @ReplicaRead
     public TransactionDto queryTransaction(String transactionId) {
-        return TransactionDto.fromEntity(transactionRepository.findByTransactionId(transactionId)
+        return findUnpersisted(transactionId).orElseGet(() -> shardRouter.readFromShards(
+                        shardRouter.shardsOfTransaction(transactionId), shard ->
+                                transactionRepository.findByTransactionId(transactionId)
+                                        .map(TransactionDto::fromEntity)
+                                        .or(() -> transactionArchive.find(transactionId))
+                                        .stream()
+                                        .toList())
+                .stream()
+                .findFirst()
                 .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)));
     }
+
+    /**
+     * Checked before the database: the engine acknowledges a result before persisting it,
+     * and forgets it only once it is persisted.
+     */
+    private Optional<TransactionDto> findUnpersisted(String transactionId) {
+        BalanceEngine engine = balanceEngine.getIfAvailable();
+        return engine == null ? Optional.empty() : engine.findUnpersisted(transactionId);
+    }
 }
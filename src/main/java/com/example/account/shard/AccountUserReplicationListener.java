@@ -0,0 +1,44 @@
+package com.example.account.shard;
+
+import com.example.account.domain.AccountUser;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Copies each written {@link AccountUser} to every other shard after commit, with the same
+ * id, so an account on any shard finds its user locally. Users are written on shard 0,
+ * whose sequence alone hands out their ids. Without sharding this does nothing.
+ *
+ * @see AccountUserReplicator
+ */
+public class AccountUserReplicationListener {
+    private final ObjectProvider<AccountUserReplicator> accountUserReplicator;
+
+    public AccountUserReplicationListener(ObjectProvider<AccountUserReplicator> accountUserReplicator) {
+        this.accountUserReplicator = accountUserReplicator;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void replicate(AccountUser accountUser) {
+        AccountUserReplicator replicator = accountUserReplicator.getIfAvailable();
+        if (replicator == null) {
+            return;
+        }
+        int writtenTo = ShardContext.current();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    replicator.replicate(accountUser, writtenTo);
+                }
+            });
+        } else {
+            replicator.replicate(accountUser, writtenTo);
+        }
+    }
+}
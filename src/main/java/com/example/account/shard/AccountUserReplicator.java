@@ -0,0 +1,115 @@
+package com.example.account.shard;
+
+import com.example.account.domain.AccountUser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the copies of each {@link AccountUser} on the shards other than 0 in step with
+ * shard 0, which holds the primary copy.
+ * <p>
+ * A copy that fails is retried {@link #ATTEMPTS} times in all, backing off from
+ * {@link #FIRST_RETRY_DELAY}. A user still missing from a shard after that, or because the
+ * node stopped before copying it, is copied from shard 0 by {@code AccountService} when an
+ * account of the user is first created there.
+ */
+@Slf4j
+public class AccountUserReplicator {
+    private static final String SELECT = "SELECT name, created_at, updated_at FROM account_user WHERE id = ?";
+    private static final String UPDATE = "UPDATE account_user SET name = ?, created_at = ?, updated_at = ? WHERE id = ?";
+    private static final String INSERT = "INSERT INTO account_user (id, name, created_at, updated_at) VALUES (?, ?, ?, ?)";
+    private static final int ATTEMPTS = 5;
+    private static final Duration FIRST_RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final ShardDataSources shardDataSources;
+    private ScheduledExecutorService scheduler;
+
+    public AccountUserReplicator(ShardDataSources shardDataSources) {
+        this.shardDataSources = shardDataSources;
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "account-user-replicator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Copies the user, as written on {@code writtenTo}, to every other shard.
+     */
+    public void replicate(AccountUser accountUser, int writtenTo) {
+        AccountUser copy = AccountUser.builder()
+                .id(accountUser.getId())
+                .name(accountUser.getName())
+                .createdAt(accountUser.getCreatedAt())
+                .updatedAt(accountUser.getUpdatedAt())
+                .build();
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            if (shard != writtenTo) {
+                copyTo(shard, copy, 1);
+            }
+        }
+    }
+
+    /**
+     * Reads the primary copy of a user, from shard 0.
+     */
+    public Optional<AccountUser> findOnFirstShard(Long id) {
+        List<AccountUser> found = jdbcTemplate(0).query(SELECT, (row, rowNum) ->
+                AccountUser.builder()
+                        .id(id)
+                        .name(row.getString("name"))
+                        .createdAt(toLocalDateTime(row.getTimestamp("created_at")))
+                        .updatedAt(toLocalDateTime(row.getTimestamp("updated_at")))
+                        .build(), id);
+        return found.stream().findFirst();
+    }
+
+    private void copyTo(int shard, AccountUser copy, int attempt) {
+        try {
+            JdbcTemplate jdbcTemplate = jdbcTemplate(shard);
+            if (jdbcTemplate.update(UPDATE, copy.getName(), copy.getCreatedAt(), copy.getUpdatedAt(), copy.getId()) == 0) {
+                jdbcTemplate.update(INSERT, copy.getId(), copy.getName(), copy.getCreatedAt(), copy.getUpdatedAt());
+            }
+        } catch (RuntimeException e) {
+            if (attempt == ATTEMPTS || scheduler == null || scheduler.isShutdown()) {
+                log.error("Copying user {} to shard {} failed, it is copied with the user's first account there",
+                        copy.getId(), shard, e);
+                return;
+            }
+            long delay = FIRST_RETRY_DELAY.toMillis() << (attempt - 1);
+            log.warn("Copying user {} to shard {} failed, retrying in {}ms", copy.getId(), shard, delay, e);
+            scheduler.schedule(() -> copyTo(shard, copy, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs on connections of its own. A transaction in progress binds its connection, on
+     * whichever shard, to the pool of shard 0, the {@code DataSource} Spring knows of.
+     */
+    private JdbcTemplate jdbcTemplate(int shard) {
+        return new JdbcTemplate(new DelegatingDataSource(shardDataSources.get(shard)));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
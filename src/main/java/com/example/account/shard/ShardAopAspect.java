@@ -0,0 +1,67 @@
+package com.example.account.shard;
+
+import com.example.account.aop.ShardKey;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sets the shard of a {@code @Sharded} method before its transaction begins. The key
+ * parameter of each method is looked up once.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@Order(1)
+public class ShardAopAspect {
+    private static final KeyParameter NEW_ACCOUNT = new KeyParameter(-1);
+
+    private final ShardRouter shardRouter;
+    private final Map<Method, KeyParameter> keyParameters = new ConcurrentHashMap<>();
+
+    @Around("@annotation(com.example.account.aop.Sharded)")
+    public Object aroundMethod(ProceedingJoinPoint pjp) throws Throwable {
+        if (shardRouter.getShardCount() == 1) {
+            return pjp.proceed();
+        }
+        Integer previous = ShardContext.enter(shardOf(pjp));
+        try {
+            return pjp.proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    private int shardOf(ProceedingJoinPoint pjp) {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        KeyParameter keyParameter = keyParameters.computeIfAbsent(method, ShardAopAspect::findKeyParameter);
+        if (keyParameter == NEW_ACCOUNT) {
+            return shardRouter.nextShardForNewAccount();
+        }
+        return shardRouter.shardOfAccount((String) pjp.getArgs()[keyParameter.index()]);
+    }
+
+    private static KeyParameter findKeyParameter(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey) {
+                    return new KeyParameter(i);
+                }
+            }
+        }
+        return NEW_ACCOUNT;
+    }
+
+    private record KeyParameter(int index) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.account.shard;
+
+import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
+
+import javax.sql.DataSource;
+
+/**
+ * Hibernate connections of a shard, with the shard number as tenant identifier.
+ * Schema tooling asks for "any" connection, which is the one of the current shard,
+ * so {@link ShardSchemaInitializer} can create the tables on each shard in turn.
+ */
+public class ShardConnectionProvider extends AbstractDataSourceBasedMultiTenantConnectionProviderImpl<String> {
+    private final transient ShardDataSources shardDataSources;
+
+    public ShardConnectionProvider(ShardDataSources shardDataSources) {
+        this.shardDataSources = shardDataSources;
+    }
+
+    @Override
+    protected DataSource selectAnyDataSource() {
+        return shardDataSources.get(ShardContext.current());
+    }
+
+    @Override
+    protected DataSource selectDataSource(String tenantIdentifier) {
+        return shardDataSources.get(Integer.parseInt(tenantIdentifier));
+    }
+}
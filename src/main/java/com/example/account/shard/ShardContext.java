@@ -0,0 +1,36 @@
+package com.example.account.shard;
+
+/**
+ * The shard the current thread works on. Hibernate opens sessions on it
+ * ({@link ShardTenantResolver}), so it is set before a transaction begins, by
+ * {@link ShardAopAspect} or {@link ShardRouter#readFromShards}. Unset means shard 0,
+ * which also holds the primary copy of every {@code AccountUser}.
+ */
+public final class ShardContext {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    /**
+     * @return the shard to {@link #restore} afterwards, {@code null} when none was set
+     */
+    static Integer enter(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.account.shard;
+
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Where accounts and transactions live when {@code account.shard.enabled} splits them over
+ * several databases; with a single shard every answer is 0 and reads run inline.
+ * <ul>
+ *     <li>an account is on shard {@code accountNumber % shardCount}; new accounts go to the
+ *     shards in turn and take the next number of that shard, so the rule never changes for
+ *     an existing account</li>
+ *     <li>a transaction is on the shard of its account, and with more than one shard its id
+ *     starts with that shard in two hex digits, so it can be found by id alone. Such an id
+ *     carries UUID version 8 where a random id carries 4, so ids from before sharding, or
+ *     from while there was one shard, are told apart and looked for on every shard</li>
+ * </ul>
+ * Changing the number of shards moves accounts, which needs a migration.
+ */
+public class ShardRouter {
+    public static final int MAX_SHARDS = 256;
+    public static final int UNKNOWN_SHARD = -1;
+    // the UUID version digit of an id that names its shard, random UUIDs carry 4
+    private static final int SHARDED_ID_VERSION_INDEX = 12;
+    private static final char SHARDED_ID_VERSION = '8';
+    private static final long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+
+    private final int shardCount;
+    private final TransactionOperations readOnlyTransactions;
+    private final Executor executor;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardRouter(int shardCount, TransactionOperations readOnlyTransactions, Executor executor) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS + ": " + shardCount);
+        }
+        this.shardCount = shardCount;
+        this.readOnlyTransactions = readOnlyTransactions;
+        this.executor = executor;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Malformed account numbers go to shard 0, where they are not found either.
+     */
+    public int shardOfAccount(String accountNumber) {
+        try {
+            return (int) Math.floorMod(Long.parseLong(accountNumber), (long) shardCount);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * The shard named by an id of {@link #newTransactionId}, or {@link #UNKNOWN_SHARD} for an
+     * id that names none: a random one from before sharding or from a single shard, or a
+     * malformed one. With a single shard every id is on shard 0.
+     */
+    public int shardOfTransaction(String transactionId) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        if (transactionId == null || transactionId.length() <= SHARDED_ID_VERSION_INDEX
+                || transactionId.charAt(SHARDED_ID_VERSION_INDEX) != SHARDED_ID_VERSION) {
+            return UNKNOWN_SHARD;
+        }
+        int high = Character.digit(transactionId.charAt(0), 16);
+        int low = Character.digit(transactionId.charAt(1), 16);
+        int shard = high << 4 | low;
+        return high < 0 || low < 0 || shard >= shardCount ? UNKNOWN_SHARD : shard;
+    }
+
+    /**
+     * The shard a transaction id names, or all of them when it names none.
+     */
+    public List<Integer> shardsOfTransaction(String transactionId) {
+        int shard = shardOfTransaction(transactionId);
+        return shard == UNKNOWN_SHARD ? allShards() : List.of(shard);
+    }
+
+    public int nextShardForNewAccount() {
+        return Math.floorMod(nextShard.getAndIncrement(), shardCount);
+    }
+
+    /**
+     * @param lastAccountNumber the newest account number of {@code shard}, if it has one
+     */
+    public String nextAccountNumber(int shard, String lastAccountNumber) {
+        return lastAccountNumber == null
+                ? String.valueOf(FIRST_ACCOUNT_NUMBER + Math.floorMod(shard - FIRST_ACCOUNT_NUMBER, (long) shardCount))
+                : String.valueOf(Long.parseLong(lastAccountNumber) + shardCount);
+    }
+
+    /**
+     * With a single shard the id is left a random UUID.
+     */
+    public String newTransactionId(int shard) {
+        String randomId = UUID.randomUUID().toString().replace("-", "");
+        if (shardCount == 1) {
+            return randomId;
+        }
+        char[] id = randomId.toCharArray();
+        id[0] = Character.forDigit(shard >>> 4, 16);
+        id[1] = Character.forDigit(shard & 0xf, 16);
+        id[SHARDED_ID_VERSION_INDEX] = SHARDED_ID_VERSION;
+        return new String(id);
+    }
+
+    public List<Integer> allShards() {
+        return IntStream.range(0, shardCount).boxed().toList();
+    }
+
+    /**
+     * Groups keys by shard, keeping their order within each shard.
+     */
+    public Map<Integer, List<String>> groupByShard(Collection<String> keys, ToIntFunction<String> shardOf) {
+        Map<Integer, List<String>> keysByShard = new TreeMap<>();
+        keys.forEach(key -> keysByShard.computeIfAbsent(shardOf.applyAsInt(key), shard -> new ArrayList<>()).add(key));
+        return keysByShard;
+    }
+
+    /**
+     * Groups transaction ids by the shard they name. Ids that name none are in the group of
+     * every shard.
+     */
+    public Map<Integer, List<String>> groupTransactionIdsByShard(Collection<String> transactionIds) {
+        Map<Integer, List<String>> transactionIdsByShard = groupByShard(transactionIds, this::shardOfTransaction);
+        List<String> unrouted = transactionIdsByShard.remove(UNKNOWN_SHARD);
+        if (unrouted != null) {
+            allShards().forEach(shard -> transactionIdsByShard.computeIfAbsent(shard, key -> new ArrayList<>()).addAll(unrouted));
+        }
+        return transactionIdsByShard;
+    }
+
+    /**
+     * Runs {@code read} in a read-only transaction on each shard and concatenates the
+     * results in shard order. Several shards are read in parallel on the executor;
+     * a single one is read on the calling thread.
+     */
+    public <T> List<T> readFromShards(Collection<Integer> shards, IntFunction<List<T>> read) {
+        if (shards.size() == 1) {
+            return readFromShard(shards.iterator().next(), read);
+        }
+        List<CompletableFuture<List<T>>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> readFromShard(shard, read), executor))
+                .toList();
+        List<T> results = new ArrayList<>();
+        try {
+            futures.forEach(future -> results.addAll(future.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private <T> List<T> readFromShard(int shard, IntFunction<List<T>> read) {
+        return inShard(shard, () -> readOnlyTransactions.execute(status -> read.apply(shard)));
+    }
+
+    public static <T> T inShard(int shard, Supplier<T> action) {
+        Integer previous = ShardContext.enter(shard);
+        try {
+            return action.get();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+}
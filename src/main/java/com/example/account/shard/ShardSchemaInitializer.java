@@ -0,0 +1,32 @@
+package com.example.account.shard;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.relational.SchemaManager;
+
+/**
+ * Hibernate creates the tables of the shard it connects to at startup, shard 0; this
+ * creates them on the others when {@code ddl-auto} is {@code create-drop}.
+ */
+@Slf4j
+public class ShardSchemaInitializer {
+    private final EntityManagerFactory entityManagerFactory;
+    private final int shardCount;
+
+    public ShardSchemaInitializer(EntityManagerFactory entityManagerFactory, int shardCount) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.shardCount = shardCount;
+    }
+
+    public void initialize() {
+        SchemaManager schemaManager = entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager();
+        for (int shard = 1; shard < shardCount; shard++) {
+            ShardRouter.inShard(shard, () -> {
+                schemaManager.exportMappedObjects(true);
+                return null;
+            });
+            log.info("Created the schema on shard {}", shard);
+        }
+    }
+}
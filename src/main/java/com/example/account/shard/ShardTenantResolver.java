@@ -0,0 +1,27 @@
+package com.example.account.shard;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * Opens each Hibernate session on the {@link ShardContext} shard. Sessions are per tenant,
+ * so are the pooled id ranges: each shard hands out ids from its own sequences.
+ */
+public class ShardTenantResolver implements CurrentTenantIdentifierResolver<String> {
+    private static final String[] TENANTS = new String[ShardRouter.MAX_SHARDS];
+
+    static {
+        for (int shard = 0; shard < TENANTS.length; shard++) {
+            TENANTS[shard] = String.valueOf(shard);
+        }
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return TENANTS[ShardContext.current()];
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.account.statement;
+
+/**
+ * What the successful transactions of an account, since the start and since the end of
+ * the statement month, changed its balance by.
+ */
+public record BalanceChange(Long accountId, long sinceMonthStart, long sinceMonthEnd) {
+}
@@ -0,0 +1,4 @@
+package com.example.account.statement;
+
+public record StatementAccount(Long id, String accountNumber, long balance) {
+}
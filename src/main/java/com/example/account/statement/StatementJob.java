@@ -0,0 +1,235 @@
+package com.example.account.statement;
+
+import com.example.account.reconcile.IdRange;
+import com.example.account.repository.AccountRepository;
+import com.example.account.service.ClockService;
+import com.example.account.service.LockRouter;
+import com.example.account.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates last month's statements of every {@code IN_USE} account, on the
+ * {@code account.statement.cron} schedule and on one node at a time.
+ * <p>
+ * Accounts are split into chunks of {@code chunk-size} account ids per shard, shared out to
+ * {@code threads} workers. Each chunk is written by {@link StatementWriter} to its own file,
+ * {@code <month>/statements-<shard>-<chunk>.csv} in the statement directory, which appears
+ * only once it is complete. A run that stops half way is resumed by the next one, which
+ * skips the chunks already written; {@code _SUCCESS} marks a finished month.
+ * <p>
+ * Every worker holds a connection while it writes a chunk, from the replica pool when
+ * reads go to a replica and otherwise from the pool that serves the requests.
+ */
+@Slf4j
+public class StatementJob {
+    private static final String LOCK_KEY = "STMLK";
+    private static final String SUCCESS = "_SUCCESS";
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(10);
+
+    private final ShardRouter shardRouter;
+    private final StatementWriter statementWriter;
+    private final AccountRepository accountRepository;
+    private final LockRouter lockRouter;
+    private final ClockService clockService;
+    private final CronExpression cron;
+    private final int chunkSize;
+    private final int threads;
+    private final Path directory;
+    private final Counter writtenStatements;
+    private ScheduledExecutorService scheduler;
+
+    private record Chunk(int shard, long chunkNo) {
+    }
+
+    public StatementJob(ShardRouter shardRouter, StatementWriter statementWriter, AccountRepository accountRepository,
+                        LockRouter lockRouter, ClockService clockService, CronExpression cron,
+                        int chunkSize, int threads, Path directory, MeterRegistry meterRegistry) {
+        if (chunkSize < 1 || threads < 1) {
+            throw new IllegalArgumentException("account.statement.chunk-size and threads must be positive");
+        }
+        this.shardRouter = shardRouter;
+        this.statementWriter = statementWriter;
+        this.accountRepository = accountRepository;
+        this.lockRouter = lockRouter;
+        this.clockService = clockService;
+        this.cron = cron;
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+        this.directory = directory;
+        this.writtenStatements = Counter.builder("account.statement.statements")
+                .description("Monthly statements written")
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "statement-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleNext();
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void scheduleNext() {
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime next = cron.next(now);
+        if (next != null) {
+            scheduler.schedule(this::runScheduled, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runScheduled() {
+        try {
+            RLock lock = lockRouter.getLock(LOCK_KEY);
+            if (!lock.tryLock(0, TimeUnit.SECONDS)) {
+                log.info("Statements are being generated on another node");
+                return;
+            }
+            try {
+                generate(YearMonth.from(clockService.now()).minusMonths(1));
+            } finally {
+                lock.unlock();
+            }
+        } catch (Exception e) {
+            // the next run resumes from the chunks already written
+            log.warn("Statement generation failed", e);
+        } finally {
+            scheduleNext();
+        }
+    }
+
+    /**
+     * Generates, or finishes generating, the statements of a month.
+     *
+     * @return the directory of the month's statement files
+     */
+    public Path generate(YearMonth month) throws IOException, InterruptedException {
+        Path monthDirectory = directory.resolve(month.toString());
+        if (Files.exists(monthDirectory.resolve(SUCCESS))) {
+            return monthDirectory;
+        }
+        Files.createDirectories(monthDirectory);
+
+        List<Chunk> chunks = new ArrayList<>();
+        for (int shard : shardRouter.allShards()) {
+            IdRange idRange = ShardRouter.inShard(shard, accountRepository::findIdRange);
+            if (idRange.min() != null) {
+                for (long chunkNo = idRange.min() / chunkSize; chunkNo <= idRange.max() / chunkSize; chunkNo++) {
+                    if (!Files.exists(chunkFile(monthDirectory, shard, chunkNo))) {
+                        chunks.add(new Chunk(shard, chunkNo));
+                    }
+                }
+            }
+        }
+        log.info("Generating {} statements, {} chunks to write", month, chunks.size());
+
+        Progress progress = new Progress(month, chunks.size());
+        List<Callable<Integer>> tasks = chunks.stream()
+                .<Callable<Integer>>map(chunk -> () -> progress.written(writeChunk(monthDirectory, month, chunk)))
+                .toList();
+        AtomicInteger workerNo = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "statement-worker-" + workerNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Future<Integer> written : workers.invokeAll(tasks)) {
+                written.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Statement generation of " + month + " failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        Files.createFile(monthDirectory.resolve(SUCCESS));
+        progress.report();
+        return monthDirectory;
+    }
+
+    private int writeChunk(Path monthDirectory, YearMonth month, Chunk chunk) throws IOException {
+        Path file = chunkFile(monthDirectory, chunk.shard(), chunk.chunkNo());
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        int statements;
+        try (BufferedWriter writer = Files.newBufferedWriter(partial)) {
+            writer.write(StatementWriter.HEADER);
+            writer.newLine();
+            statements = ShardRouter.inShard(chunk.shard(), () -> statementWriter.write(
+                    chunk.chunkNo() * chunkSize, (chunk.chunkNo() + 1) * chunkSize, month, writer));
+        }
+        Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        writtenStatements.increment(statements);
+        return statements;
+    }
+
+    private static Path chunkFile(Path monthDirectory, int shard, long chunkNo) {
+        return monthDirectory.resolve("statements-" + shard + "-" + chunkNo + ".csv");
+    }
+
+    /**
+     * Chunks and statements written so far, logged with the throughput every
+     * {@link #PROGRESS_INTERVAL} by whichever worker finishes a chunk.
+     */
+    private static class Progress {
+        private final YearMonth month;
+        private final int chunks;
+        private final long startedAt = System.nanoTime();
+        private final AtomicInteger writtenChunks = new AtomicInteger();
+        private final AtomicLong writtenStatements = new AtomicLong();
+        private final AtomicLong loggedAt = new AtomicLong(startedAt);
+
+        Progress(YearMonth month, int chunks) {
+            this.month = month;
+            this.chunks = chunks;
+        }
+
+        int written(int statements) {
+            writtenChunks.incrementAndGet();
+            writtenStatements.addAndGet(statements);
+            long last = loggedAt.get();
+            long now = System.nanoTime();
+            if (now - last >= PROGRESS_INTERVAL.toNanos() && loggedAt.compareAndSet(last, now)) {
+                report();
+            }
+            return statements;
+        }
+
+        void report() {
+            long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            long statements = writtenStatements.get();
+            log.info("{} statements: {}/{} chunks, {} statements, {} statements/s", month,
+                    writtenChunks.get(), chunks, statements, statements * 1000 / elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.account.statement;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import java.time.LocalDateTime;
+
+public record StatementLine(Long id, Long accountId, LocalDateTime transactedAt, String transactionId,
+                            TransactionType transactionType, TransactionResultType transactionResultType,
+                            long amount, long balanceSnapShot) {
+}
@@ -0,0 +1,143 @@
+package com.example.account.statement;
+
+import com.example.account.aop.ReplicaRead;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the monthly statements of the {@code IN_USE} accounts of an id range: the opening
+ * balance, every transaction of the month and the closing balance, as CSV rows.
+ * <p>
+ * Both balances are worked back from the current one, so the month must still be in the
+ * {@code Transaction} table, i.e. within the last year. The transactions are read in pages
+ * after the last one written, so only one page is held at a time, and all reads see one
+ * snapshot (repeatable read) so the balances agree with the transactions.
+ */
+@Component
+public class StatementWriter {
+    public static final String HEADER = "account_number,record,transacted_at,transaction_id,transaction_type,result,amount,balance";
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final int pageSize;
+
+    public StatementWriter(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                           @Value("${account.statement.page-size}") int pageSize) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Writes the statements of the accounts with {@code fromId <= id < toId} on the current shard.
+     *
+     * @return statements written
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    @ReplicaRead
+    public int write(long fromId, long toId, YearMonth month, Writer out) {
+        LocalDateTime monthStart = month.atDay(1).atStartOfDay();
+        LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+        List<StatementAccount> accounts = accountRepository.findStatementAccountsByIdRange(fromId, toId, monthEnd);
+        if (accounts.isEmpty()) {
+            return 0;
+        }
+        Map<Long, BalanceChange> balanceChanges = new HashMap<>();
+        transactionRepository.findBalanceChanges(fromId, toId, monthStart, monthEnd)
+                .forEach(balanceChange -> balanceChanges.put(balanceChange.accountId(), balanceChange));
+
+        try {
+            Lines lines = new Lines(toId, monthStart, monthEnd, fromId - 1);
+            for (StatementAccount account : accounts) {
+                BalanceChange balanceChange = balanceChanges.get(account.id());
+                long opening = account.balance() - (balanceChange == null ? 0 : balanceChange.sinceMonthStart());
+                long closing = account.balance() - (balanceChange == null ? 0 : balanceChange.sinceMonthEnd());
+                writeBalance(out, account, "OPENING", monthStart, opening);
+                // transactions of accounts without a statement, unregistered ones, are passed over
+                StatementLine line;
+                while ((line = lines.peek()) != null && line.accountId() <= account.id()) {
+                    if (line.accountId().equals(account.id())) {
+                        writeLine(out, account, line);
+                    }
+                    lines.next();
+                }
+                writeBalance(out, account, "CLOSING", monthEnd, closing);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return accounts.size();
+    }
+
+    /**
+     * The month's transactions of the range, read a page at a time after the last one read.
+     */
+    private class Lines {
+        private final long toId;
+        private final LocalDateTime monthStart;
+        private final LocalDateTime monthEnd;
+        private long lastAccountId;
+        private LocalDateTime lastTransactedAt;
+        private long lastId;
+        private List<StatementLine> page = List.of();
+        private int position;
+        private boolean exhausted;
+
+        Lines(long toId, LocalDateTime monthStart, LocalDateTime monthEnd, long lastAccountId) {
+            this.toId = toId;
+            this.monthStart = monthStart;
+            this.monthEnd = monthEnd;
+            this.lastAccountId = lastAccountId;
+            this.lastTransactedAt = monthStart;
+        }
+
+        StatementLine peek() {
+            if (position == page.size()) {
+                if (exhausted) {
+                    return null;
+                }
+                page = transactionRepository.findStatementLinesAfter(toId, monthStart, monthEnd,
+                        lastAccountId, lastTransactedAt, lastId, Limit.of(pageSize));
+                position = 0;
+                exhausted = page.size() < pageSize;
+                if (page.isEmpty()) {
+                    return null;
+                }
+                StatementLine last = page.get(page.size() - 1);
+                lastAccountId = last.accountId();
+                lastTransactedAt = last.transactedAt();
+                lastId = last.id();
+            }
+            return page.get(position);
+        }
+
+        void next() {
+            position++;
+        }
+    }
+
+    private static void writeBalance(Writer out, StatementAccount account, String record,
+                                     LocalDateTime at, long balance) throws IOException {
+        out.write(account.accountNumber() + "," + record + "," + at + ",,,,," + balance + "\n");
+    }
+
+    private static void writeLine(Writer out, StatementAccount account, StatementLine line) throws IOException {
+        out.write(account.accountNumber() + ",TRANSACTION," + line.transactedAt() + "," + line.transactionId()
+                + "," + line.transactionType() + "," + line.transactionResultType() + "," + line.amount()
+                + "," + line.balanceSnapShot() + "\n");
+    }
+}
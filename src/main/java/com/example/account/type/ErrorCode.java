@@ -16,9 +16,11 @@ public enum ErrorCode {
     USER_ACCOUNT_UNMATCHED("사용자와 계좌의 소유주가 다릅니다."),
     CANCEL_MUST_FULLY("부분 취소는 허용되지 않습니다."),
     TOO_OLD_ORDER_TO_CANCEL("1년이 지난 거래는 취소가 불가능합니다."),
+    TRANSACTION_ALREADY_CANCELED("이미 취소된 거래입니다."),
     TRANSACTION_ACCOUNT_UNMATCHED("이 거래는 해당 계좌에서 발생한 거래가 아닙니다."),
     ACCOUNT_ALREADY_UNREGISTERED("계좌가 이미 해지되었습니다."),
     BALANCE_NOT_EMPTY("잔액이 있는 계좌는 해지할 수 없습니다."),
-    USER_ACCOUNT_PER_USER_10("사용자 최대 계좌는 10입니다.");
+    USER_ACCOUNT_PER_USER_10("사용자 최대 계좌는 10입니다."),
+    IDEMPOTENCY_KEY_REUSED("다른 요청에 사용된 멱등성 키입니다.");
     private final String description;
 }
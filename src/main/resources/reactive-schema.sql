@@ -0,0 +1,42 @@
+create table if not exists account_user
+(
+    id         bigint auto_increment primary key,
+    name       varchar(255),
+    created_at timestamp,
+    updated_at timestamp
+);
+
+create table if not exists account
+(
+    id                bigint auto_increment primary key,
+    account_number    varchar(255),
+    account_user_id   bigint,
+    account_status    varchar(255),
+    balance           bigint,
+    registered_at     timestamp,
+    un_registered_at  timestamp,
+    created_at        timestamp,
+    updated_at        timestamp
+);
+
+create index if not exists idx_account_number on account (account_number);
+create index if not exists idx_account_user_id on account (account_user_id);
+
+create table if not exists transaction
+(
+    id                      bigint auto_increment primary key,
+    transaction_type        varchar(255),
+    transaction_result_type varchar(255),
+    account_id              bigint,
+    amount                  bigint,
+    balance_snap_shot       bigint,
+    transaction_id          varchar(255),
+    transacted_at           timestamp,
+    original_transaction_id varchar(255),
+    canceled_at             timestamp,
+    created_at              timestamp,
+    updated_at              timestamp
+);
+
+create unique index if not exists idx_transaction_id on transaction (transaction_id);
+create unique index if not exists idx_original_transaction_id on transaction (original_transaction_id);
@@ -0,0 +1,188 @@
+package com.example.account.stress;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountDto;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.AccountService;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fires concurrent use and cancel requests at a few accounts over HTTP, so every
+ * request passes the controller, the aspects and the service, then checks that
+ * <ul>
+ *     <li>each final balance equals the initial balance plus the successful
+ *     transactions, as seen by the client and as recorded in the database</li>
+ *     <li>no balance snapshot is ever negative</li>
+ * </ul>
+ * Some cancels are sent twice, so a double refund would break conservation.
+ * The request count is set with {@code -PstressRequests}.
+ */
+abstract class BalanceStressTest {
+    private static final int ACCOUNTS = 3;
+    private static final long INITIAL_BALANCE = 100_000L;
+    private static final int THREADS = 32;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ConcurrentLinkedQueue<Used> cancellable = new ConcurrentLinkedQueue<>();
+    private final Map<String, LongAdder> deltas = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    private record Used(String transactionId, String accountNumber, long amount) {
+    }
+
+    /**
+     * @return the path in front of {@code /transaction/use} and {@code /transaction/cancel}
+     */
+    abstract String pathPrefix();
+
+    /**
+     * Waits until every applied transaction is visible in the database.
+     */
+    void awaitPersisted() throws Exception {
+    }
+
+    @Test
+    void balanceIsConservedUnderConcurrentUseAndCancel() throws Exception {
+        //given
+        AccountUser user = accountUserRepository.save(AccountUser.builder().name("stress").build());
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            AccountDto account = accountService.createAccount(user.getId(), INITIAL_BALANCE);
+            accountNumbers.add(account.getAccountNumber());
+            deltas.put(account.getAccountNumber(), new LongAdder());
+        }
+        int requests = Integer.getInteger("stress.requests", 3000);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+
+        //when
+        long startedAt = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            futures.add(executorService.submit(() -> {
+                send(user.getId(), accountNumbers);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+        awaitPersisted();
+
+        //then
+        System.out.printf("%s: %d requests on %d threads in %.1f s, %.1f req/s, outcomes %s%n",
+                getClass().getSimpleName(), requests, THREADS, seconds, requests / seconds, new HashMap<>(outcomes));
+
+        Map<String, Long> recorded = recordedDeltas();
+        for (String accountNumber : accountNumbers) {
+            long expected = INITIAL_BALANCE + deltas.get(accountNumber).sum();
+            assertEquals(expected, balanceOf(accountNumber), "balance of " + accountNumber);
+            assertEquals(expected, INITIAL_BALANCE + recorded.getOrDefault(accountNumber, 0L),
+                    "transactions of " + accountNumber);
+        }
+        assertTrue(transactionRepository.findAll().stream()
+                        .allMatch(transaction -> transaction.getBalanceSnapShot() >= 0),
+                "negative balance snapshot");
+        assertTrue(outcomes.containsKey("USE_S"), "no use succeeded");
+    }
+
+    private void send(Long userId, List<String> accountNumbers) throws Exception {
+        Used used = ThreadLocalRandom.current().nextInt(100) < 30 ? cancellable.poll() : null;
+        if (used != null) {
+            if (ThreadLocalRandom.current().nextInt(100) < 10) {
+                // cancel the same transaction again, possibly while the first cancel is running
+                cancellable.add(used);
+            }
+            JsonNode response = post(pathPrefix() + "/transaction/cancel", "{\"transactionId\":\"" + used.transactionId()
+                    + "\",\"accountNumber\":\"" + used.accountNumber() + "\",\"amount\":" + used.amount() + "}");
+            if (succeeded(response, "CANCEL")) {
+                deltas.get(used.accountNumber()).add(used.amount());
+            }
+            return;
+        }
+
+        String accountNumber = accountNumbers.get(ThreadLocalRandom.current().nextInt(accountNumbers.size()));
+        long amount = ThreadLocalRandom.current().nextLong(10, 2_000);
+        JsonNode response = post(pathPrefix() + "/transaction/use", "{\"userId\":" + userId
+                + ",\"accountNumber\":\"" + accountNumber + "\",\"amount\":" + amount + "}");
+        if (succeeded(response, "USE")) {
+            deltas.get(accountNumber).add(-amount);
+            cancellable.add(new Used(response.get("transactionId").asText(), accountNumber, amount));
+        }
+    }
+
+    private boolean succeeded(JsonNode response, String type) {
+        String outcome = response.hasNonNull("errorCode") ? response.get("errorCode").asText() : "S";
+        outcomes.computeIfAbsent(type + "_" + outcome, key -> new LongAdder()).increment();
+        return "S".equals(outcome);
+    }
+
+    private JsonNode post(String path, String json) throws Exception {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private long balanceOf(String accountNumber) throws Exception {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + port + "/account/balance?account_number=" + accountNumber)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body()).get(0).get("balance").asLong();
+    }
+
+    private Map<String, Long> recordedDeltas() {
+        Map<String, Long> recorded = new HashMap<>();
+        for (Transaction transaction : transactionRepository.findAll()) {
+            if (transaction.getTransactionResultType() != TransactionResultType.S) {
+                continue;
+            }
+            long amount = transaction.getTransactionType() == TransactionType.USE
+                    ? -transaction.getAmount() : transaction.getAmount();
+            recorded.merge(transaction.getAccount().getAccountNumber(), amount, Long::sum);
+        }
+        return recorded;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.account.stress;
+
+import com.example.account.engine.BalanceEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The balance engine path. A fresh state store per run, so no balances from an
+ * earlier run are reused.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.jpa.properties.hibernate.show_sql=false",
+                "account.engine.enabled=true",
+                "account.state-store.file=build/stress/account-state-${random.uuid}.dat"
+        })
+class EngineBalanceStressTest extends BalanceStressTest {
+    @Autowired
+    private BalanceEngine balanceEngine;
+
+    @Override
+    String pathPrefix() {
+        return "/engine";
+    }
+
+    @Override
+    void awaitPersisted() throws Exception {
+        assertEquals(List.of(), balanceEngine.verifyAgainstDatabase());
+    }
+}
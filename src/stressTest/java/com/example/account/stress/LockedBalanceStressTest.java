@@ -0,0 +1,15 @@
+package com.example.account.stress;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The default path: Redis account lock around a JPA transaction.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.show_sql=false")
+class LockedBalanceStressTest extends BalanceStressTest {
+    @Override
+    String pathPrefix() {
+        return "";
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.account.archive;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionArchiveSegment;
+import com.example.account.dto.TransactionDto;
+import com.example.account.shard.ShardRouter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveSegmentTest {
+    private final Account account = Account.builder().accountNumber("1000000000").build();
+    private final ShardRouter shardRouter = new ShardRouter(2, TransactionOperations.withoutTransaction(), Runnable::run);
+
+    @Test
+    @DisplayName("보관된 모든 거래를 희소 인덱스가 가리키는 블록에서 찾는다")
+    void findEveryArchivedTransaction() {
+        //given
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < ArchiveSegment.BLOCK_ROWS * 3 + 5; i++) {
+            transactions.add(transaction(shardRouter.newTransactionId(1), i));
+        }
+        ArchiveSegment.Encoded encoded = ArchiveSegment.encode(transactions);
+        ArchiveSegment segment = segment(encoded);
+
+        //when
+        //then
+        assertEquals(4, encoded.blocks().size());
+        for (Transaction transaction : transactions) {
+            long high = ArchiveRecord.idHigh(transaction.getTransactionId());
+            long low = ArchiveRecord.idLow(transaction.getTransactionId());
+            int blockNo = segment.blockOf(high, low);
+            TransactionDto found = ArchiveSegment.find(encoded.blocks().get(blockNo), high, low).orElseThrow();
+            assertEquals(transaction.getTransactionId(), found.getTransactionId());
+            assertEquals(transaction.getAmount(), found.getAmount());
+            assertEquals(transaction.getTransactedAt(), found.getTransactedAt());
+        }
+    }
+
+    @Test
+    @DisplayName("취소 정보와 원거래 아이디도 보관된다")
+    void keepCancelFields() {
+        //given
+        String originalTransactionId = shardRouter.newTransactionId(0);
+        Transaction canceled = transaction(originalTransactionId, 1);
+        canceled.setCanceledAt(LocalDateTime.of(2020, 1, 2, 3, 4, 5, 123_456_789));
+        Transaction cancel = transaction(shardRouter.newTransactionId(0), 2);
+        cancel.setTransactionType(CANCEL);
+        cancel.setOriginalTransactionId(originalTransactionId);
+        ArchiveSegment.Encoded encoded = ArchiveSegment.encode(List.of(canceled, cancel));
+
+        //when
+        TransactionDto archivedCanceled = find(encoded, canceled.getTransactionId()).orElseThrow();
+        TransactionDto archivedCancel = find(encoded, cancel.getTransactionId()).orElseThrow();
+
+        //then
+        assertEquals(canceled.getCanceledAt(), archivedCanceled.getCanceledAt());
+        assertNull(archivedCanceled.getOriginalTransactionId());
+        assertEquals("1000000000", archivedCanceled.getAccountNumber());
+        assertEquals(CANCEL, archivedCancel.getTransactionType());
+        assertEquals(S, archivedCancel.getTransactionResult());
+        assertEquals(originalTransactionId, archivedCancel.getOriginalTransactionId());
+        assertNull(archivedCancel.getCanceledAt());
+    }
+
+    @Test
+    @DisplayName("보관되지 않은 거래는 찾지 못한다")
+    void notArchived() {
+        //given
+        ArchiveSegment.Encoded encoded = ArchiveSegment.encode(List.of(transaction(shardRouter.newTransactionId(0), 1)));
+
+        //when
+        //then
+        assertFalse(ArchiveRecord.isArchivable("transactionId"));
+        assertTrue(find(encoded, shardRouter.newTransactionId(0)).isEmpty());
+        // below the first id of the segment
+        assertEquals(-1, segment(encoded).blockOf(0, 0));
+    }
+
+    private Optional<TransactionDto> find(ArchiveSegment.Encoded encoded, String transactionId) {
+        long high = ArchiveRecord.idHigh(transactionId);
+        long low = ArchiveRecord.idLow(transactionId);
+        int blockNo = segment(encoded).blockOf(high, low);
+        return blockNo < 0 ? Optional.empty() : ArchiveSegment.find(encoded.blocks().get(blockNo), high, low);
+    }
+
+    private static ArchiveSegment segment(ArchiveSegment.Encoded encoded) {
+        return ArchiveSegment.of(TransactionArchiveSegment.builder()
+                .id(1L)
+                .sparseIndex(encoded.sparseIndex())
+                .bloomFilter(encoded.bloomFilter())
+                .build());
+    }
+
+    private Transaction transaction(String transactionId, long amount) {
+        return Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId(transactionId)
+                .amount(amount)
+                .balanceSnapShot(10000L - amount)
+                .transactedAt(LocalDateTime.of(2020, 1, 1, 0, 0).plusNanos(amount * 1_001))
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.account.archive;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionArchiveBlock;
+import com.example.account.domain.TransactionArchiveSegment;
+import com.example.account.repository.ArchivedBalanceRepository;
+import com.example.account.repository.TransactionArchiveBlockRepository;
+import com.example.account.repository.TransactionArchiveSegmentRepository;
+import com.example.account.shard.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiveTest {
+    private final Account account = Account.builder().accountNumber("1000000000").build();
+    private final ShardRouter shardRouter = new ShardRouter(2, TransactionOperations.withoutTransaction(), Runnable::run);
+
+    @Mock
+    private TransactionArchiveSegmentRepository segmentRepository;
+    @Mock
+    private TransactionArchiveBlockRepository blockRepository;
+    @Mock
+    private ArchivedBalanceRepository archivedBalanceRepository;
+
+    @Test
+    @DisplayName("갱신 주기 안에서는 구간 목록을 다시 읽지 않는다")
+    void refreshOncePerInterval() {
+        //given
+        TransactionArchive transactionArchive = transactionArchive(Duration.ofHours(1));
+        given(segmentRepository.findAllIds())
+                .willReturn(List.of());
+
+        //when
+        transactionArchive.find(shardRouter.newTransactionId(0));
+        transactionArchive.find(shardRouter.newTransactionId(0));
+
+        //then
+        verify(segmentRepository, times(1)).findAllIds();
+        verify(segmentRepository, never()).findIdsByCreatedAtAfter(any());
+    }
+
+    @Test
+    @DisplayName("갱신 시 지난 갱신 이후 만들어진 구간만 읽는다")
+    void refreshIncrementally() {
+        //given
+        TransactionArchive transactionArchive = transactionArchive(Duration.ZERO);
+        Transaction first = transaction(shardRouter.newTransactionId(0));
+        Transaction second = transaction(shardRouter.newTransactionId(0));
+        ArchiveSegment.Encoded firstEncoded = ArchiveSegment.encode(List.of(first));
+        ArchiveSegment.Encoded secondEncoded = ArchiveSegment.encode(List.of(second));
+        given(segmentRepository.findAllIds())
+                .willReturn(List.of(1L));
+        given(segmentRepository.findAllById(List.of(1L)))
+                .willReturn(List.of(segment(1L, firstEncoded)));
+        // the first segment is still within the watermark margin
+        given(segmentRepository.findIdsByCreatedAtAfter(any()))
+                .willReturn(List.of(1L, 2L));
+        given(segmentRepository.findAllById(List.of(2L)))
+                .willReturn(List.of(segment(2L, secondEncoded)));
+        given(blockRepository.findBySegmentIdAndBlockNo(2L, 0))
+                .willReturn(Optional.of(TransactionArchiveBlock.builder()
+                        .segmentId(2L).blockNo(0).data(secondEncoded.blocks().get(0)).build()));
+
+        //when
+        transactionArchive.find(shardRouter.newTransactionId(0));
+        Optional<?> found = transactionArchive.find(second.getTransactionId());
+
+        //then
+        assertTrue(found.isPresent());
+        verify(segmentRepository, times(1)).findAllIds();
+        verify(segmentRepository, times(1)).findAllById(List.of(1L));
+        verify(segmentRepository, times(1)).findAllById(List.of(2L));
+    }
+
+    private TransactionArchive transactionArchive(Duration refreshInterval) {
+        return new TransactionArchive(segmentRepository, blockRepository, archivedBalanceRepository,
+                new SimpleMeterRegistry(), refreshInterval);
+    }
+
+    private static TransactionArchiveSegment segment(Long id, ArchiveSegment.Encoded encoded) {
+        return TransactionArchiveSegment.builder()
+                .id(id)
+                .sparseIndex(encoded.sparseIndex())
+                .bloomFilter(encoded.bloomFilter())
+                .build();
+    }
+
+    private Transaction transaction(String transactionId) {
+        return Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId(transactionId)
+                .amount(1000L)
+                .balanceSnapShot(9000L)
+                .transactedAt(LocalDateTime.of(2020, 1, 1, 0, 0))
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.account.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IsoLocalDateTimeSerializerTest {
+    @Test
+    @DisplayName("기본 Jackson 직렬화와 같은 문자열을 쓴다")
+    void sameAsDefaultSerializer() throws Exception {
+        //given
+        ObjectMapper defaultObjectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(new JacksonConfig().localDateTimeModule())
+                .build();
+        List<LocalDateTime> values = List.of(
+                LocalDateTime.of(2024, 1, 2, 3, 4, 5),
+                LocalDateTime.of(2024, 12, 31, 23, 59, 0, 100_000_000),
+                LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_456_000),
+                LocalDateTime.of(999, 1, 1, 0, 0, 0, 1),
+                LocalDateTime.of(10000, 1, 1, 0, 0),
+                LocalDateTime.now());
+
+        for (LocalDateTime value : values) {
+            //when
+            String json = objectMapper.writeValueAsString(value);
+
+            //then
+            assertEquals(defaultObjectMapper.writeValueAsString(value), json);
+        }
+    }
+
+    @Test
+    @DisplayName("타임스탬프 배열 설정은 그대로 따른다")
+    void timestampArray() throws Exception {
+        //given
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new JacksonConfig().localDateTimeModule())
+                .build();
+
+        //when
+        String json = objectMapper.writeValueAsString(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+
+        //then
+        assertEquals("[2024,1,2,3,4,5]", json);
+    }
+}
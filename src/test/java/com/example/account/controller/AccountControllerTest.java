@@ -14,11 +14,15 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -111,6 +115,35 @@ public class AccountControllerTest {
 
     }
 
+    @Test
+    void successGetAccountBalances() throws Exception {
+        given(accountService.getAccountsByAccountNumbers(anyList()))
+                .willReturn(List.of(
+                        AccountDto.builder().accountNumber("1234567890").balance(1000L).build(),
+                        AccountDto.builder().accountNumber("1111111111").balance(2000L).build()));
+
+
+        mockMvc.perform(get("/account/balance?account_number=1234567890,1111111111"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].accountNumber").value("1234567890"))
+                .andExpect(jsonPath("$[0].balance").value(1000L))
+                .andExpect(jsonPath("$[1].accountNumber").value("1111111111"))
+                .andExpect(jsonPath("$[1].balance").value(2000L));
+
+    }
+
+    @Test
+    void failedToGetAccountBalances_TooManyItems() throws Exception {
+        String accountNumbers = String.join(",", Collections.nCopies(101, "1234567890"));
+
+        mockMvc.perform(get("/account/balance?account_number=" + accountNumbers))
+                .andDo(print())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+
+        verify(accountService, never()).getAccountsByAccountNumbers(anyList());
+    }
+
 
 
 }
@@ -3,8 +3,13 @@ package com.example.account.controller;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.TransactionDto;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.service.TransactionBatchService;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ErrorCode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -13,15 +18,21 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.USE;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -30,6 +41,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
+    @MockBean
+    private TransactionBatchService transactionBatchService;
     @Autowired
     private MockMvc mockMvc;
     @Autowired
@@ -62,6 +75,41 @@ class TransactionControllerTest {
 
     }
 
+    @Test
+    void successUseBalanceBatch() throws Exception {
+
+        given(transactionBatchService.useBalances(anyList()))
+                .willReturn(List.of(
+                        TransactionDto.builder()
+                                .accountNumber("1000000000")
+                                .amount(1000L)
+                                .transactedAt(LocalDateTime.now())
+                                .transactionId("transactionId")
+                                .transactionResult(S)
+                                .build(),
+                        TransactionDto.builder()
+                                .accountNumber("1000000001")
+                                .amount(2000L)
+                                .transactionResult(F)
+                                .errorCode(ErrorCode.ACCOUNT_NOT_FOUND)
+                                .build()));
+
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(
+                                objectMapper.writeValueAsString(
+                                        new UseBalanceBatch.Request(List.of(
+                                                new UseBalance.Request(1L, "1000000000", 1000L),
+                                                new UseBalance.Request(1L, "1000000001", 2000L))))
+                        )).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].transactionResult").value(S.toString()))
+                .andExpect(jsonPath("$.results[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.results[1].transactionResult").value(F.toString()))
+                .andExpect(jsonPath("$.results[1].errorCode").value(ErrorCode.ACCOUNT_NOT_FOUND.toString()));
+
+    }
+
     @Test
     void successCancelBalance() throws Exception {
 
@@ -89,6 +137,48 @@ class TransactionControllerTest {
 
     }
 
+    @Test
+    @DisplayName("실패 거래 저장 시간이 Server-Timing 헤더에 포함된다")
+    void failUseBalance_ServerTiming() throws Exception {
+
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(
+                                objectMapper.writeValueAsString(
+                                        new UseBalance.Request(1L, "1000000000", 1000L))
+                        )).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value(ErrorCode.AMOUNT_EXCEED_BALANCE.toString()))
+                .andExpect(header().string("Server-Timing", containsString("failed;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("total;dur=")));
+
+        verify(transactionService).saveFailedUseTransaction("1000000000", 1000L);
+    }
+
+    @Test
+    void getQueryTransactions() throws Exception {
+        given(transactionService.queryTransactions(anyList()))
+                .willReturn(List.of(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionType(USE)
+                        .transactedAt(LocalDateTime.now())
+                        .amount(54321L)
+                        .transactionId("12345")
+                        .transactionResult(S)
+                        .build()));
+
+
+        mockMvc.perform(get("/transaction?transaction_id=12345&transaction_id=67890"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].transactionId").value("12345"))
+                .andExpect(jsonPath("$[0].amount").value(54321L));
+    }
+
     @Test
     void getQueryTransaction() throws Exception {
         given(transactionService.queryTransaction(anyString()))
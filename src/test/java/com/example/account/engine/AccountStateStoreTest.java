@@ -0,0 +1,92 @@
+package com.example.account.engine;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.type.AccountStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountStateStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void putAndGet() throws Exception {
+        //given
+        AccountStateStore store = new AccountStateStore(directory.resolve("state.dat"));
+
+        //when
+        store.put(account("1000000003", 10000L, AccountStatus.IN_USE));
+        store.setBalance("1000000003", 9000L);
+
+        //then
+        assertTrue(store.contains("1000000003"));
+        assertFalse(store.contains("1000000004"));
+        assertFalse(store.contains("0123456789"));
+        assertEquals(9000L, store.getBalance("1000000003"));
+        assertEquals(12L, store.getUserId("1000000003"));
+        assertEquals(AccountStatus.IN_USE, store.getAccountStatus("1000000003"));
+        assertEquals(2L, store.getVersion("1000000003"));
+        store.close();
+    }
+
+    @Test
+    @DisplayName("정상 종료된 저장소는 재시작 후 그대로 사용된다")
+    void warmStartAfterCleanShutdown() throws Exception {
+        //given
+        LocalDateTime watermark = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        AccountStateStore store = new AccountStateStore(directory.resolve("state.dat"));
+        store.put(account("1001048577", 500L, AccountStatus.UNREGISTERED));
+        store.markClean(watermark);
+        store.close();
+
+        //when
+        AccountStateStore reopened = new AccountStateStore(directory.resolve("state.dat"));
+
+        //then
+        assertTrue(reopened.isWarm());
+        assertEquals(watermark, reopened.getWatermark());
+        assertEquals(500L, reopened.getBalance("1001048577"));
+        assertEquals(AccountStatus.UNREGISTERED, reopened.getAccountStatus("1001048577"));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("비정상 종료된 저장소는 비워지고 다시 적재된다")
+    void coldStartAfterCrash() throws Exception {
+        //given
+        AccountStateStore store = new AccountStateStore(directory.resolve("state.dat"));
+        store.put(account("1000000000", 500L, AccountStatus.IN_USE));
+        store.markClean(LocalDateTime.now());
+        store.close();
+
+        AccountStateStore crashed = new AccountStateStore(directory.resolve("state.dat"));
+        crashed.setBalance("1000000000", 400L);
+        crashed.close();
+
+        //when
+        AccountStateStore reopened = new AccountStateStore(directory.resolve("state.dat"));
+
+        //then
+        assertFalse(reopened.isWarm());
+        assertNull(reopened.getWatermark());
+        assertFalse(reopened.contains("1000000000"));
+        reopened.close();
+    }
+
+    private static Account account(String accountNumber, Long balance, AccountStatus accountStatus) {
+        return Account.builder()
+                .accountUser(AccountUser.builder().id(12L).name("pobi").build())
+                .accountNumber(accountNumber)
+                .accountStatus(accountStatus)
+                .balance(balance)
+                .build();
+    }
+}
@@ -0,0 +1,491 @@
+package com.example.account.engine;
+
+import com.example.account.archive.TransactionArchive;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.journal.BalanceJournal;
+import com.example.account.journal.FsyncPolicy;
+import com.example.account.journal.JournalRecord;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.ClockService;
+import com.example.account.service.TransactionService;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BalanceEngineTest {
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private TransactionArchive transactionArchive;
+    @Mock
+    private TransactionService transactionService;
+    @Mock
+    private ObjectProvider<BalanceJournal> balanceJournal;
+
+    @TempDir
+    Path directory;
+
+    private AccountStateStore accountStateStore;
+    private AccountStateStore journaledStateStore;
+    private BalanceEngine balanceEngine;
+    private Account account;
+    private final Map<String, TransactionDto> persisted = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        AccountUser user = AccountUser.builder()
+                .id(12L).name("pobi").build();
+        account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000000").build();
+
+        given(accountRepository.findByAccountStatus(AccountStatus.IN_USE))
+                .willReturn(List.of(account));
+        // batches may be persisted before the next command, so keep what was saved like the database would
+        willAnswer(invocation -> {
+            List<TransactionDto> transactionDtos = invocation.getArgument(0);
+            transactionDtos.forEach(transactionDto -> persisted.put(transactionDto.getTransactionId(), transactionDto));
+            return null;
+        }).given(transactionService).saveEngineTransactions(anyList());
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willAnswer(invocation -> Optional.ofNullable(persisted.get(invocation.<String>getArgument(0)))
+                        .map(this::toEntity));
+
+        accountStateStore = new AccountStateStore(directory.resolve("account-state.dat"));
+        balanceEngine = new BalanceEngine(accountRepository, transactionRepository, transactionArchive, transactionService,
+                accountStateStore, balanceJournal, new ClockService(Clock.systemDefaultZone(), Duration.ZERO), 1024, 64);
+        balanceEngine.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        balanceEngine.stop();
+        accountStateStore.close();
+        if (journaledStateStore != null) {
+            journaledStateStore.close();
+        }
+    }
+
+    @Test
+    void successUseBalance() {
+        //when
+        TransactionDto transactionDto = balanceEngine.useBalance(12L, "1000000000", 1000L);
+
+        //then
+        assertEquals(USE, transactionDto.getTransactionType());
+        assertEquals(S, transactionDto.getTransactionResult());
+        assertEquals(9000L, transactionDto.getBalanceSnapShot());
+
+        List<TransactionDto> persisted = capturePersisted();
+        assertEquals(transactionDto.getTransactionId(), persisted.get(0).getTransactionId());
+    }
+
+    @Test
+    @DisplayName("거래 금액이 잔액보다 큰 경우 - 실패 거래가 기록된다")
+    void useBalance_AmountExceedBalance() {
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(12L, "1000000000", 20000L));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, accountException.getErrorCode());
+
+        List<TransactionDto> persisted = capturePersisted();
+        assertEquals(F, persisted.get(0).getTransactionResult());
+        assertEquals(10000L, persisted.get(0).getBalanceSnapShot());
+    }
+
+    @Test
+    @DisplayName("계좌 소유주 다름 - 잔액 사용 실패")
+    void useBalance_UserAccountUnMatched() {
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(13L, "1000000000", 1000L));
+
+        //then
+        assertEquals(ErrorCode.USER_ACCOUNT_UNMATCHED, accountException.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("해당 계좌 없음 - 잔액 사용 실패")
+    void useBalance_AccountNotFound() {
+        //given
+        given(accountRepository.findByAccountNumber("1000000001"))
+                .willReturn(Optional.empty());
+
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(12L, "1000000001", 1000L));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, accountException.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("엔진 시작 후 개설된 계좌는 처음 사용할 때 읽어 온다")
+    void useBalance_AccountOpenedAfterStart() {
+        //given
+        Account opened = Account.builder()
+                .accountUser(account.getAccountUser())
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(500L)
+                .accountNumber("1000000001").build();
+        given(accountRepository.findByAccountNumber("1000000001"))
+                .willReturn(Optional.of(opened));
+
+        //when
+        TransactionDto transactionDto = balanceEngine.useBalance(12L, "1000000001", 100L);
+
+        //then
+        assertEquals(400L, transactionDto.getBalanceSnapShot());
+        assertEquals(400L, accountStateStore.getBalance("1000000001"));
+    }
+
+    @Test
+    @DisplayName("원거래 없음 - 아직 읽지 않은 계좌에도 실패한 취소가 기록된다")
+    void cancelBalance_TransactionNotFoundOnAccountNotLoaded() {
+        //given
+        Account opened = Account.builder()
+                .accountUser(account.getAccountUser())
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(500L)
+                .accountNumber("1000000001").build();
+        given(accountRepository.findByAccountNumber("1000000001"))
+                .willReturn(Optional.of(opened));
+
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> balanceEngine.cancelBalance("unknown", "1000000001", 100L));
+
+        //then
+        assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, accountException.getErrorCode());
+        TransactionDto failed = capturePersisted().get(0);
+        assertEquals(CANCEL, failed.getTransactionType());
+        assertEquals(F, failed.getTransactionResult());
+        assertEquals("1000000001", failed.getAccountNumber());
+        assertEquals(500L, failed.getBalanceSnapShot());
+    }
+
+    @Test
+    @DisplayName("아직 저장되지 않은 거래도 취소할 수 있다")
+    void cancelUnpersistedUse() {
+        //given
+        TransactionDto use = balanceEngine.useBalance(12L, "1000000000", 1000L);
+
+        //when
+        TransactionDto cancel = balanceEngine.cancelBalance(use.getTransactionId(), "1000000000", 1000L);
+
+        //then
+        assertEquals(CANCEL, cancel.getTransactionType());
+        assertEquals(10000L, cancel.getBalanceSnapShot());
+    }
+
+    @Test
+    @DisplayName("사용 직후 저장되기 전에도 거래와 잔액이 조회된다")
+    void findBeforePersisted() throws Exception {
+        //given
+        CountDownLatch persisting = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            persisting.await();
+            return null;
+        }).given(transactionService).saveEngineTransactions(anyList());
+
+        //when
+        TransactionDto use = balanceEngine.useBalance(12L, "1000000000", 1000L);
+
+        //then
+        assertEquals(Optional.of(use), balanceEngine.findUnpersisted(use.getTransactionId()));
+        assertEquals(OptionalLong.of(9000L), balanceEngine.findBalance("1000000000"));
+        assertEquals(OptionalLong.empty(), balanceEngine.findBalance("1000000009"));
+        persisting.countDown();
+        balanceEngine.verifyAgainstDatabase();
+        assertEquals(Optional.empty(), balanceEngine.findUnpersisted(use.getTransactionId()));
+    }
+
+    @Test
+    @DisplayName("이미 취소된 거래 - 잔액 사용 취소 실패")
+    void cancelBalance_TransactionAlreadyCanceled() {
+        //given
+        TransactionDto use = balanceEngine.useBalance(12L, "1000000000", 1000L);
+        TransactionDto cancel = balanceEngine.cancelBalance(use.getTransactionId(), "1000000000", 1000L);
+
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> balanceEngine.cancelBalance(use.getTransactionId(), "1000000000", 1000L));
+
+        //then
+        assertEquals(ErrorCode.TRANSACTION_ALREADY_CANCELED, accountException.getErrorCode());
+        assertEquals(use.getTransactionId(), cancel.getOriginalTransactionId());
+        assertEquals(10000L, accountStateStore.getBalance("1000000000"));
+    }
+
+    @Test
+    @DisplayName("거래금액과 취소금액이 다름 - 잔액 사용 취소 실패")
+    void cancelBalance_CancelMustFully() {
+        //given
+        TransactionDto use = balanceEngine.useBalance(12L, "1000000000", 1000L);
+
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> balanceEngine.cancelBalance(use.getTransactionId(), "1000000000", 500L));
+
+        //then
+        assertEquals(ErrorCode.CANCEL_MUST_FULLY, accountException.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("잔액이 남은 계좌는 해지할 수 없고, 해지된 계좌는 사용할 수 없다")
+    void unregisterAccount() {
+        //given
+        AccountException balanceNotEmpty = assertThrows(AccountException.class,
+                () -> balanceEngine.unregisterAccount(12L, "1000000000"));
+        balanceEngine.useBalance(12L, "1000000000", 10000L);
+
+        //when
+        balanceEngine.unregisterAccount(12L, "1000000000");
+
+        //then
+        assertEquals(ErrorCode.BALANCE_NOT_EMPTY, balanceNotEmpty.getErrorCode());
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(12L, "1000000000", 10L));
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, accountException.getErrorCode());
+        balanceEngine.restoreAccount("1000000000");
+        assertEquals(AccountStatus.IN_USE, accountStateStore.getAccountStatus("1000000000"));
+    }
+
+    @Test
+    @DisplayName("동시 사용 요청에도 잔액을 초과해 사용되지 않는다")
+    void concurrentUseNeverOverdraws() throws Exception {
+        //given
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < 2000; i++) {
+            futures.add(executorService.submit(() -> {
+                try {
+                    balanceEngine.useBalance(12L, "1000000000", 10L);
+                    succeeded.incrementAndGet();
+                } catch (AccountException e) {
+                    assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, e.getErrorCode());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+
+        //then
+        assertEquals(1000, succeeded.get());
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(12L, "1000000000", 10L));
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, accountException.getErrorCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("저장에 실패한 거래는 저장될 때까지 다시 저장한다")
+    void retryFailedPersist() {
+        //given
+        willThrow(new IllegalStateException("database down"))
+                .willAnswer(invocation -> null)
+                .given(transactionService).saveEngineTransactions(anyList());
+
+        //when
+        TransactionDto transactionDto = balanceEngine.useBalance(12L, "1000000000", 1000L);
+
+        //then
+        ArgumentCaptor<List<TransactionDto>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, timeout(2000).times(2)).saveEngineTransactions(captor.capture());
+        captor.getAllValues().forEach(persisted ->
+                assertEquals(transactionDto.getTransactionId(), persisted.get(0).getTransactionId()));
+    }
+
+    @Test
+    @DisplayName("저장에 실패하는 동안에는 새 요청을 받지 않는다")
+    void rejectWhilePersistFailing() {
+        //given
+        willThrow(new IllegalStateException("database down"))
+                .given(transactionService).saveEngineTransactions(anyList());
+        balanceEngine.useBalance(12L, "1000000000", 1000L);
+        verify(transactionService, timeout(2000).atLeast(2)).saveEngineTransactions(anyList());
+
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(12L, "1000000000", 1000L));
+
+        //then
+        assertEquals(ErrorCode.INTERNAL_SERVER_ERROR, accountException.getErrorCode());
+        willAnswer(invocation -> null).given(transactionService).saveEngineTransactions(anyList());
+    }
+
+    @Test
+    @DisplayName("결과는 저널에 먼저 기록되고, 저장된 만큼 체크포인트가 앞으로 간다")
+    void journalBeforePersist() throws Exception {
+        //given
+        BalanceJournal journal = new BalanceJournal(directory.resolve("journal"), 4096, FsyncPolicy.ALWAYS, 1);
+        BalanceEngine journaledEngine = startEngine(journal);
+
+        //when
+        TransactionDto transactionDto = journaledEngine.useBalance(12L, "1000000000", 1000L);
+
+        //then
+        assertEquals(1L, journal.getLastSequence());
+        verify(transactionService, timeout(1000)).saveEngineTransactions(anyList());
+        journaledEngine.stop();
+        assertEquals(1L, journal.getPersistedSequence());
+        assertEquals(transactionDto.getTransactionId(), persisted.keySet().iterator().next());
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("배치 정책에서도 결과는 저널이 디스크에 기록된 뒤에 응답된다")
+    void acknowledgeAfterGroupCommit() throws Exception {
+        //given
+        BalanceJournal journal = spy(new BalanceJournal(directory.resolve("journal"), 4096, FsyncPolicy.BATCH, 64));
+        BalanceEngine journaledEngine = startEngine(journal);
+
+        //when
+        journaledEngine.useBalance(12L, "1000000000", 1000L);
+
+        //then
+        InOrder inOrder = inOrder(journal);
+        inOrder.verify(journal).append(any());
+        inOrder.verify(journal).commit();
+        journaledEngine.stop();
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("시작할 때 저널에만 있고 저장되지 않은 거래를 먼저 저장한다")
+    void replayUnpersistedJournal() throws Exception {
+        //given
+        BalanceJournal journal = new BalanceJournal(directory.resolve("journal"), 4096, FsyncPolicy.ALWAYS, 1);
+        JournalRecord use = JournalRecord.builder()
+                .transactionType(USE)
+                .transactionResultType(S)
+                .accountNumber("1000000000")
+                .amount(1000L)
+                .balanceSnapShot(9000L)
+                .transactionId("0123456789abcdef0123456789abcdef")
+                .transactedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS))
+                .build();
+        journal.append(use);
+
+        //when
+        BalanceEngine journaledEngine = startEngine(journal);
+        journaledEngine.stop();
+
+        //then
+        assertEquals(9000L, persisted.get(use.getTransactionId()).getBalanceSnapShot());
+        assertEquals(1L, journal.getPersistedSequence());
+        journal.close();
+    }
+
+    @Test
+    void verifyAgainstDatabase() throws Exception {
+        //given
+        balanceEngine.useBalance(12L, "1000000000", 1000L);
+        given(accountRepository.findAll()).willReturn(List.of(account));
+
+        //when
+        List<String> mismatched = balanceEngine.verifyAgainstDatabase();
+
+        //then
+        assertEquals(List.of("1000000000"), mismatched);
+    }
+
+    private BalanceEngine startEngine(BalanceJournal journal) {
+        given(balanceJournal.getIfAvailable()).willReturn(journal);
+        journaledStateStore = new AccountStateStore(directory.resolve("journaled-state.dat"));
+        BalanceEngine engine = new BalanceEngine(accountRepository, transactionRepository, transactionArchive,
+                transactionService, journaledStateStore, balanceJournal,
+                new ClockService(Clock.systemDefaultZone(), Duration.ZERO), 1024, 64);
+        engine.start();
+        return engine;
+    }
+
+    private Transaction toEntity(TransactionDto transactionDto) {
+        return Transaction.builder()
+                .account(account)
+                .transactionType(transactionDto.getTransactionType())
+                .transactionResultType(transactionDto.getTransactionResult())
+                .amount(transactionDto.getAmount())
+                .balanceSnapShot(transactionDto.getBalanceSnapShot())
+                .transactionId(transactionDto.getTransactionId())
+                .transactedAt(transactionDto.getTransactedAt())
+                .canceledAt(persisted.values().stream()
+                        .filter(cancel -> transactionDto.getTransactionId().equals(cancel.getOriginalTransactionId()))
+                        .map(TransactionDto::getTransactedAt)
+                        .findFirst()
+                        .orElse(null))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TransactionDto> capturePersisted() {
+        ArgumentCaptor<List<TransactionDto>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, timeout(1000)).saveEngineTransactions(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.account.exception;
+
+import com.example.account.dto.ErrorResponse;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountExceptionTest {
+    @Test
+    @DisplayName("비즈니스 예외는 스택 트레이스를 남기지 않는다")
+    void noStackTrace() {
+        //when
+        AccountException accountException = new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+
+        //then
+        assertEquals(0, accountException.getStackTrace().length);
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE.getDescription(), accountException.getErrorMessage());
+    }
+
+    @Test
+    @DisplayName("에러 응답은 에러 코드별로 하나만 만든다")
+    void cachedErrorResponse() {
+        //when
+        ErrorResponse first = ErrorResponse.of(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        ErrorResponse second = ErrorResponse.of(ErrorCode.AMOUNT_EXCEED_BALANCE, ErrorCode.AMOUNT_EXCEED_BALANCE.getDescription());
+        ErrorResponse custom = ErrorResponse.of(ErrorCode.AMOUNT_EXCEED_BALANCE, "custom");
+
+        //then
+        assertSame(first, second);
+        assertNotSame(first, custom);
+        assertEquals("custom", custom.getErrorMessage());
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.account.journal;
+
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BalanceJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendAndReplayAfterRestart() throws Exception {
+        //given
+        JournalRecord use = record(USE, 1000L, 9000L);
+        JournalRecord cancel = record(CANCEL, 1000L, 10000L);
+
+        BalanceJournal journal = new BalanceJournal(directory, 4096, FsyncPolicy.ALWAYS, 1);
+        journal.append(use);
+        journal.append(cancel);
+        journal.close();
+
+        //when
+        BalanceJournal reopened = new BalanceJournal(directory, 4096, FsyncPolicy.ALWAYS, 1);
+        List<JournalRecord> records = replay(reopened);
+
+        //then
+        assertEquals(2, records.size());
+        assertEquals(2L, reopened.getLastSequence());
+        assertEquals(USE, records.get(0).getTransactionType());
+        assertEquals(use.getTransactionId(), records.get(0).getTransactionId());
+        assertEquals(use.getTransactedAt(), records.get(0).getTransactedAt());
+        assertEquals("1000000000", records.get(0).getAccountNumber());
+        assertEquals(9000L, records.get(0).getBalanceSnapShot());
+        assertEquals(CANCEL, records.get(1).getTransactionType());
+        assertEquals(2L, records.get(1).getSequence());
+    }
+
+    @Test
+    @DisplayName("세그먼트가 가득 차면 새 세그먼트로 넘어간다")
+    void rollSegment() throws Exception {
+        //given
+        BalanceJournal journal = new BalanceJournal(directory, JournalRecord.SIZE * 2, FsyncPolicy.BATCH, 2);
+
+        //when
+        for (int i = 0; i < 5; i++) {
+            journal.append(record(USE, 100L * (i + 1), 0L));
+        }
+        journal.close();
+
+        //then
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.filter(BalanceJournalTest::isSegment).count());
+        }
+        List<JournalRecord> records = replay(new BalanceJournal(directory, JournalRecord.SIZE * 2, FsyncPolicy.BATCH, 2));
+        assertEquals(5, records.size());
+        assertEquals(500L, records.get(4).getAmount());
+        assertEquals(5L, records.get(4).getSequence());
+    }
+
+    @Test
+    @DisplayName("찢어진 레코드는 복구 시 버려지고 그 자리부터 다시 기록된다")
+    void recoverFromTornWrite() throws Exception {
+        //given
+        BalanceJournal journal = new BalanceJournal(directory, 4096, FsyncPolicy.NONE, 1);
+        journal.append(record(USE, 100L, 900L));
+        journal.append(record(USE, 200L, 700L));
+        journal.close();
+
+        try (Stream<Path> files = Files.list(directory);
+             RandomAccessFile file = new RandomAccessFile(files.filter(BalanceJournalTest::isSegment)
+                     .findFirst().orElseThrow().toFile(), "rw")) {
+            file.seek(JournalRecord.SIZE + 30);
+            file.write(0x7f);
+        }
+
+        //when
+        BalanceJournal recovered = new BalanceJournal(directory, 4096, FsyncPolicy.NONE, 1);
+        recovered.append(record(CANCEL, 100L, 1000L));
+        recovered.close();
+
+        //then
+        List<JournalRecord> records = replay(new BalanceJournal(directory, 4096, FsyncPolicy.NONE, 1));
+        assertEquals(2, records.size());
+        assertEquals(100L, records.get(0).getAmount());
+        assertEquals(CANCEL, records.get(1).getTransactionType());
+        assertEquals(2L, records.get(1).getSequence());
+    }
+
+    @Test
+    @DisplayName("취소 거래는 원거래 번호와 취소 시각까지 기록된다")
+    void appendCancel() throws Exception {
+        //given
+        JournalRecord cancel = record(CANCEL, 1000L, 10000L).toBuilder()
+                .originalTransactionId(UUID.randomUUID().toString().replace("-", ""))
+                .canceledAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS))
+                .build();
+        BalanceJournal journal = new BalanceJournal(directory, 4096, FsyncPolicy.ALWAYS, 1);
+
+        //when
+        journal.append(cancel);
+        List<JournalRecord> records = replay(journal);
+
+        //then
+        assertEquals(cancel.getOriginalTransactionId(), records.get(0).getOriginalTransactionId());
+        assertEquals(cancel.getCanceledAt(), records.get(0).getCanceledAt());
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("저장된 레코드는 다시 재생되지 않고, 모두 저장된 세그먼트는 지워진다")
+    void replayAfterPersisted() throws Exception {
+        //given
+        BalanceJournal journal = new BalanceJournal(directory, JournalRecord.SIZE * 2, FsyncPolicy.ALWAYS, 1);
+        for (int i = 0; i < 3; i++) {
+            journal.append(record(USE, 100L * (i + 1), 0L));
+        }
+
+        //when
+        journal.markPersisted(2L);
+        journal.append(record(USE, 400L, 0L));
+        journal.append(record(USE, 500L, 0L));
+        journal.close();
+
+        //then
+        List<JournalRecord> records = replay(new BalanceJournal(directory, JournalRecord.SIZE * 2, FsyncPolicy.ALWAYS, 1));
+        assertEquals(List.of(3L, 4L, 5L), records.stream().map(JournalRecord::getSequence).toList());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.filter(BalanceJournalTest::isSegment).count());
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        return path.getFileName().toString().endsWith(".log");
+    }
+
+    private static List<JournalRecord> replay(BalanceJournal journal) {
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(records::add);
+        return records;
+    }
+
+    private static JournalRecord record(TransactionType transactionType, long amount, long balanceSnapShot) {
+        return JournalRecord.builder()
+                .transactionType(transactionType)
+                .transactionResultType(S)
+                .accountNumber("1000000000")
+                .amount(amount)
+                .balanceSnapShot(balanceSnapShot)
+                .transactionId(UUID.randomUUID().toString().replace("-", ""))
+                .transactedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS))
+                .build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.account.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerTimingTest {
+    @AfterEach
+    void tearDown() {
+        ServerTiming.end();
+    }
+
+    @Test
+    @DisplayName("같은 구간은 합산해서 기록한다")
+    void sumRepeatedPhase() {
+        //given
+        ServerTiming serverTiming = ServerTiming.begin();
+        long startedAt = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(2);
+
+        //when
+        ServerTiming.record("lock", startedAt);
+        ServerTiming.record("lock", startedAt);
+
+        //then
+        String header = serverTiming.toHeaderValue();
+        assertTrue(header.startsWith("lock;dur=4."), header);
+        assertTrue(header.contains(", total;dur="), header);
+    }
+
+    @Test
+    @DisplayName("요청 밖에서는 기록하지 않는다")
+    void ignoreOutsideRequest() {
+        //when
+        ServerTiming.record("lock", System.nanoTime());
+        ServerTiming.recordCommit();
+
+        //then
+        assertNull(ServerTiming.current());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.account.metrics;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionMetricsAopAspectTest {
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionMetricsAopAspect transactionMetricsAopAspect;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionMetricsAopAspect = new TransactionMetricsAopAspect(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("실패한 거래는 에러 코드별로 집계한다")
+    void countFailureByErrorCode() throws Throwable {
+        //given
+        given(joinPoint.proceed())
+                .willReturn(TransactionDto.builder().build())
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+
+        //when
+        transactionMetricsAopAspect.aroundUse(joinPoint);
+        assertThrows(AccountException.class, () -> transactionMetricsAopAspect.aroundUse(joinPoint));
+
+        //then
+        assertEquals(1.0, count("USE", "S", "NONE"));
+        assertEquals(1.0, count("USE", "F", "AMOUNT_EXCEED_BALANCE"));
+    }
+
+    @Test
+    void countBatchResults() throws Throwable {
+        //given
+        given(joinPoint.proceed()).willReturn(List.of(
+                TransactionDto.builder().transactionType(USE).transactionResult(S).build(),
+                TransactionDto.builder().transactionType(USE).transactionResult(S).build(),
+                TransactionDto.builder().transactionType(USE).transactionResult(F)
+                        .errorCode(ErrorCode.AMOUNT_EXCEED_BALANCE).build()));
+
+        //when
+        transactionMetricsAopAspect.aroundUseAll(joinPoint, "1000000000", List.of(1, 2, 3));
+
+        //then
+        assertEquals(2.0, count("USE", "S", "NONE"));
+        assertEquals(1.0, count("USE", "F", "AMOUNT_EXCEED_BALANCE"));
+    }
+
+    @Test
+    @DisplayName("계좌 단위로 실패한 배치는 요청 수만큼 집계한다")
+    void countFailedBatchGroup() throws Throwable {
+        //given
+        given(joinPoint.proceed())
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        //when
+        assertThrows(AccountException.class,
+                () -> transactionMetricsAopAspect.aroundUseAll(joinPoint, "1000000000", List.of(1, 2)));
+
+        //then
+        assertEquals(2.0, count("USE", "F", "ACCOUNT_NOT_FOUND"));
+    }
+
+    @Test
+    @DisplayName("엔진에 보낸 사용 요청은 완료될 때 집계한다")
+    void countEngineUseOnCompletion() throws Throwable {
+        //given
+        CompletableFuture<TransactionDto> succeeded = new CompletableFuture<>();
+        CompletableFuture<TransactionDto> failed = new CompletableFuture<>();
+        given(joinPoint.proceed()).willReturn(succeeded, failed);
+
+        //when
+        transactionMetricsAopAspect.aroundSubmitUse(joinPoint);
+        transactionMetricsAopAspect.aroundSubmitUse(joinPoint);
+        assertTrue(meterRegistry.find(TransactionMetricsAopAspect.TRANSACTIONS).counters().isEmpty());
+        succeeded.complete(TransactionDto.builder().build());
+        failed.completeExceptionally(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+
+        //then
+        assertEquals(1.0, count("USE", "S", "NONE"));
+        assertEquals(1.0, count("USE", "F", "AMOUNT_EXCEED_BALANCE"));
+    }
+
+    private double count(String type, String result, String error) {
+        return meterRegistry.get(TransactionMetricsAopAspect.TRANSACTIONS)
+                .tags("type", type, "result", result, "error", error)
+                .counter().count();
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.account.reactive.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.reactive.domain.Account;
+import com.example.account.reactive.domain.AccountUser;
+import com.example.account.reactive.domain.Transaction;
+import com.example.account.reactive.repository.AccountRepository;
+import com.example.account.reactive.repository.AccountUserRepository;
+import com.example.account.reactive.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveTransactionServiceTest {
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private AccountUserRepository accountUserRepository;
+    @InjectMocks
+    private ReactiveTransactionService transactionService;
+
+    @Test
+    void successUseBalance() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L).name("pobi").build();
+        Account account = Account.builder()
+                .id(1L)
+                .accountUserId(12L)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000000").build();
+
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Mono.just(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Mono.just(account));
+        given(accountRepository.save(any()))
+                .willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        //when
+        StepVerifier.create(transactionService.useBalance(12L, "1000000000", 1000L))
+                //then
+                .assertNext(transactionDto -> {
+                    assertEquals(USE, transactionDto.getTransactionType());
+                    assertEquals(S, transactionDto.getTransactionResult());
+                    assertEquals(9000L, transactionDto.getBalanceSnapShot());
+                    assertEquals("1000000000", transactionDto.getAccountNumber());
+                })
+                .verifyComplete();
+
+        verify(transactionRepository).save(captor.capture());
+        assertEquals(1L, captor.getValue().getAccountId());
+    }
+
+    @Test
+    @DisplayName("거래 금액이 잔액보다 큰 경우 - 잔액 사용 실패")
+    void useBalance_AmountExceedBalance() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L).name("pobi").build();
+        Account account = Account.builder()
+                .id(1L)
+                .accountUserId(12L)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(100L)
+                .accountNumber("1000000000").build();
+
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Mono.just(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Mono.just(account));
+
+        //when
+        StepVerifier.create(transactionService.useBalance(12L, "1000000000", 1000L))
+                //then
+                .expectErrorSatisfies(e -> assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, ((AccountException) e).getErrorCode()))
+                .verify();
+
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("이미 취소된 거래 - 잔액 사용 취소 실패")
+    void cancelBalance_TransactionAlreadyCanceled() {
+        //given
+        Account account = Account.builder()
+                .id(1L)
+                .accountUserId(12L)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(9800L)
+                .accountNumber("1000000000").build();
+        Transaction transaction = Transaction.builder()
+                .accountId(1L)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId("transactionIdForCancel")
+                .amount(200L)
+                .transactedAt(LocalDateTime.now())
+                .canceledAt(LocalDateTime.now())
+                .build();
+
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Mono.just(transaction));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Mono.just(account));
+
+        //when
+        StepVerifier.create(transactionService.cancelBalance("transactionIdForCancel", "1000000000", 200L))
+                //then
+                .expectErrorSatisfies(e -> assertEquals(ErrorCode.TRANSACTION_ALREADY_CANCELED, ((AccountException) e).getErrorCode()))
+                .verify();
+
+        assertEquals(9800L, account.getBalance());
+    }
+
+    @Test
+    void successCancelBalance() {
+        //given
+        Account account = Account.builder()
+                .id(1L)
+                .accountUserId(12L)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(9800L)
+                .accountNumber("1000000000").build();
+        Transaction transaction = Transaction.builder()
+                .accountId(1L)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId("transactionIdForCancel")
+                .amount(200L)
+                .transactedAt(LocalDateTime.now())
+                .build();
+
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Mono.just(transaction));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Mono.just(account));
+        given(accountRepository.save(any()))
+                .willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        //when
+        StepVerifier.create(transactionService.cancelBalance("transactionIdForCancel", "1000000000", 200L))
+                //then
+                .assertNext(transactionDto -> {
+                    assertEquals(CANCEL, transactionDto.getTransactionType());
+                    assertEquals(10000L, transactionDto.getBalanceSnapShot());
+                    assertEquals("transactionIdForCancel", transactionDto.getOriginalTransactionId());
+                })
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.account.reconcile;
+
+import com.example.account.domain.ArchivedBalance;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.ArchivedBalanceRepository;
+import com.example.account.repository.TransactionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerVerifierTest {
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private ArchivedBalanceRepository archivedBalanceRepository;
+
+    @InjectMocks
+    private LedgerVerifier ledgerVerifier;
+
+    @Test
+    @DisplayName("잔액이 초기 잔액과 보관된 거래, 거래 내역의 합과 같으면 불일치가 없다")
+    void verifyMatchingBalances() {
+        //given
+        given(accountRepository.findBalancesByIdRange(0L, 10L))
+                .willReturn(List.of(
+                        new AccountBalance(1L, "1000000001", 700L, 1000L),
+                        new AccountBalance(2L, "1000000002", 0L, 0L),
+                        new AccountBalance(3L, "1000000003", 450L, 1000L)));
+        given(archivedBalanceRepository.findByAccountIdRange(0L, 10L))
+                .willReturn(List.of(ArchivedBalance.builder().accountId(3L).netAmount(-500L).build()));
+        given(transactionRepository.streamLedger(0L, 10L))
+                .willReturn(Stream.of(
+                        new LedgerEntry(1L, USE, 500L),
+                        new LedgerEntry(1L, CANCEL, 200L),
+                        new LedgerEntry(3L, USE, 50L)));
+
+        //when
+        LedgerVerifier.Result result = ledgerVerifier.verify(0L, 10L);
+
+        //then
+        assertEquals(3, result.accounts());
+        assertTrue(result.mismatches().isEmpty());
+    }
+
+    @Test
+    @DisplayName("거래 내역과 맞지 않는 잔액은 불일치로 보고된다")
+    void verifyMismatchedBalance() {
+        //given
+        given(accountRepository.findBalancesByIdRange(0L, 10L))
+                .willReturn(List.of(
+                        new AccountBalance(1L, "1000000001", 500L, 1000L),
+                        new AccountBalance(4L, "1000000004", 900L, 1000L)));
+        given(archivedBalanceRepository.findByAccountIdRange(0L, 10L))
+                .willReturn(List.of());
+        given(transactionRepository.streamLedger(0L, 10L))
+                .willReturn(Stream.of(
+                        new LedgerEntry(1L, USE, 500L),
+                        new LedgerEntry(4L, USE, 200L)));
+
+        //when
+        LedgerVerifier.Result result = ledgerVerifier.verify(0L, 10L);
+
+        //then
+        assertEquals(2, result.accounts());
+        assertEquals(List.of(new LedgerVerifier.Mismatch("1000000004", 900L, 800L)), result.mismatches());
+    }
+
+    @Test
+    @DisplayName("초기 잔액을 모르는 계좌는 검증하지 않는다")
+    void skipUnknownInitialBalance() {
+        //given
+        given(accountRepository.findBalancesByIdRange(0L, 10L))
+                .willReturn(List.of(
+                        new AccountBalance(1L, "1000000001", 500L, null),
+                        new AccountBalance(2L, "1000000002", 800L, 1000L)));
+        given(archivedBalanceRepository.findByAccountIdRange(0L, 10L))
+                .willReturn(List.of());
+        given(transactionRepository.streamLedger(0L, 10L))
+                .willReturn(Stream.of(
+                        new LedgerEntry(1L, USE, 200L),
+                        new LedgerEntry(2L, USE, 200L)));
+
+        //when
+        LedgerVerifier.Result result = ledgerVerifier.verify(0L, 10L);
+
+        //then
+        assertEquals(1, result.accounts());
+        assertTrue(result.mismatches().isEmpty());
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.account.replica;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class ReplicaRoutingDataSourceTest {
+    private final DriverManagerDataSource primary = h2("primary");
+    private final DriverManagerDataSource replica = h2("replica");
+    private final Clock clock = mock(Clock.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReplicaLagMonitor lagMonitor;
+    private ReplicaRoutingDataSource routingDataSource;
+    // keeps the in-memory databases open
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primaryConnection = primary.getConnection();
+        replicaConnection = replica.getConnection();
+        execute(replica, "CREATE TABLE replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+        lagMonitor = new ReplicaLagMonitor(primary, replica, clock, Duration.ofMillis(100), meterRegistry);
+        routingDataSource = new ReplicaRoutingDataSource(primary, replica, lagMonitor, Duration.ofSeconds(1), meterRegistry);
+        ReplicaRoutingDataSource.allowReplica();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        ReplicaRoutingDataSource.disallowReplica();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ConsistencyToken.end();
+        primaryConnection.close();
+        replicaConnection.close();
+    }
+
+    @Test
+    @DisplayName("복제가 따라온 읽기 전용 트랜잭션은 레플리카에서 읽는다")
+    void readFromReplica() throws SQLException {
+        //given
+        replicate(10_000L);
+        given(clock.millis()).willReturn(10_200L);
+        lagMonitor.beat();
+
+        //when
+        String database = databaseOf(routingDataSource);
+
+        //then
+        assertEquals("replica", database);
+        assertEquals(1.0, meterRegistry.get("account.replica.reads").tag("route", "replica").counter().count());
+    }
+
+    @Test
+    @DisplayName("복제 지연이 크면 프라이머리에서 읽는다")
+    void fallBackToPrimaryOnLag() throws SQLException {
+        //given
+        replicate(10_000L);
+        given(clock.millis()).willReturn(11_500L);
+        lagMonitor.beat();
+
+        //when
+        String database = databaseOf(routingDataSource);
+
+        //then
+        assertEquals("primary", database);
+        assertEquals(1.0, meterRegistry.get("account.replica.reads").tag("route", "lag").counter().count());
+    }
+
+    @Test
+    @DisplayName("하트비트를 읽지 못한 레플리카는 사용하지 않는다")
+    void fallBackToPrimaryWithoutHeartbeat() throws SQLException {
+        //given
+        given(clock.millis()).willReturn(10_000L);
+        lagMonitor.beat();
+
+        //when
+        String database = databaseOf(routingDataSource);
+
+        //then
+        assertEquals("primary", database);
+    }
+
+    @Test
+    @DisplayName("일관성 토큰보다 뒤처진 레플리카는 사용하지 않는다")
+    void fallBackToPrimaryForNewerToken() throws SQLException {
+        //given
+        replicate(10_000L);
+        given(clock.millis()).willReturn(10_200L);
+        lagMonitor.beat();
+        ConsistencyToken.begin(10_100L);
+
+        //when
+        String database = databaseOf(routingDataSource);
+
+        //then
+        assertEquals("primary", database);
+        assertEquals(1.0, meterRegistry.get("account.replica.reads").tag("route", "token").counter().count());
+    }
+
+    @Test
+    @DisplayName("읽기 전용이 아닌 트랜잭션은 프라이머리를 쓴다")
+    void writeToPrimary() throws SQLException {
+        //given
+        replicate(10_000L);
+        given(clock.millis()).willReturn(10_200L);
+        lagMonitor.beat();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+
+        //when
+        String database = databaseOf(routingDataSource);
+
+        //then
+        assertEquals("primary", database);
+    }
+
+    @Test
+    @DisplayName("하트비트는 프라이머리에 기록된다")
+    void beatOnPrimary() throws SQLException {
+        //given
+        execute(primary, "CREATE TABLE replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+        given(clock.millis()).willReturn(10_000L, 10_100L);
+
+        //when
+        lagMonitor.beat();
+        lagMonitor.beat();
+
+        //then
+        try (Statement statement = primaryConnection.createStatement();
+             var resultSet = statement.executeQuery("SELECT beat_at FROM replica_heartbeat WHERE id = 1")) {
+            resultSet.next();
+            assertEquals(10_100L, resultSet.getLong(1));
+        }
+    }
+
+    private void replicate(long beatAt) throws SQLException {
+        execute(replica, "INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, " + beatAt + ")");
+    }
+
+    private static String databaseOf(ReplicaRoutingDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getCatalog().toLowerCase();
+        }
+    }
+
+    private static void execute(DriverManagerDataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static DriverManagerDataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name, "sa", "");
+    }
+}
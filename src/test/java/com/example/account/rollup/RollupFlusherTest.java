@@ -0,0 +1,91 @@
+package com.example.account.rollup;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.RollupWatermark;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.DailyAccountRollupRepository;
+import com.example.account.repository.DailyUserRollupRepository;
+import com.example.account.repository.RollupWatermarkRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RollupFlusherTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 9, 1);
+
+    private final Account account = Account.builder()
+            .id(7L)
+            .accountNumber("1000000000")
+            .accountUser(AccountUser.builder().id(3L).build())
+            .build();
+
+    @Mock
+    private DailyAccountRollupRepository accountRollupRepository;
+    @Mock
+    private DailyUserRollupRepository userRollupRepository;
+    @Mock
+    private RollupWatermarkRepository watermarkRepository;
+
+    @Test
+    @DisplayName("재집계된 날짜까지의 합계는 쓰지 않는다")
+    void dropRebuiltDays() {
+        //given
+        TransactionRollup transactionRollup = new TransactionRollup(true, new SimpleMeterRegistry());
+        RollupFlusher rollupFlusher = new RollupFlusher(transactionRollup, accountRollupRepository,
+                userRollupRepository, watermarkRepository, TransactionOperations.withoutTransaction(),
+                Duration.ofSeconds(1), new SimpleMeterRegistry());
+        transactionRollup.add(transaction(DAY.minusDays(1)));
+        transactionRollup.add(transaction(DAY));
+        transactionRollup.add(transaction(DAY.plusDays(1)));
+        given(watermarkRepository.lockWatermark())
+                .willReturn(RollupWatermark.builder().id(RollupWatermark.ID).rebuiltThrough(DAY).build());
+        given(accountRollupRepository.addToDay(any(), any(), anyLong(), anyLong(), anyLong()))
+                .willReturn(1);
+        given(userRollupRepository.addToDay(any(), any(), anyLong(), anyLong(), anyLong()))
+                .willReturn(1);
+
+        //when
+        rollupFlusher.flush();
+
+        //then
+        verify(accountRollupRepository, times(1))
+                .addToDay(7L, DAY.plusDays(1), 1000L, 0L, 0L);
+        verify(accountRollupRepository, never())
+                .addToDay(any(), eq(DAY), anyLong(), anyLong(), anyLong());
+        verify(accountRollupRepository, never())
+                .addToDay(any(), eq(DAY.minusDays(1)), anyLong(), anyLong(), anyLong());
+        verify(userRollupRepository, times(1))
+                .addToDay(3L, DAY.plusDays(1), 1000L, 0L, 0L);
+        verify(userRollupRepository, times(1))
+                .addToDay(any(), any(), anyLong(), anyLong(), anyLong());
+    }
+
+    private Transaction transaction(LocalDate transactedOn) {
+        return Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(1000L)
+                .transactedAt(transactedOn.atTime(12, 0))
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.account.rollup;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionRollupTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 9, 1);
+
+    private final Account account = Account.builder()
+            .id(7L)
+            .accountNumber("1000000000")
+            .accountUser(AccountUser.builder().id(3L).build())
+            .build();
+
+    @Test
+    @DisplayName("계좌의 하루 거래를 사용 금액, 취소 금액, 실패 건수로 합산한다")
+    void sumPerAccountDay() {
+        //given
+        TransactionRollup transactionRollup = new TransactionRollup(true, new SimpleMeterRegistry());
+        transactionRollup.add(transaction(USE, S, 1000L, DAY.atTime(1, 0)));
+        transactionRollup.add(transaction(USE, S, 500L, DAY.atTime(2, 0)));
+        transactionRollup.add(transaction(CANCEL, S, 1000L, DAY.atTime(3, 0)));
+        transactionRollup.add(transaction(USE, F, 9000L, DAY.atTime(4, 0)));
+        transactionRollup.add(transaction(CANCEL, F, 500L, DAY.atTime(5, 0)));
+        transactionRollup.add(transaction(USE, S, 200L, DAY.plusDays(1).atTime(0, 0)));
+
+        //when
+        Map<RollupKey, RollupDelta> drained = transactionRollup.drain();
+
+        //then
+        assertEquals(Map.of(
+                new RollupKey(0, 7L, 3L, DAY), new RollupDelta(1500L, 1000L, 2),
+                new RollupKey(0, 7L, 3L, DAY.plusDays(1)), new RollupDelta(200L, 0L, 0)), drained);
+        assertTrue(transactionRollup.drain().isEmpty());
+    }
+
+    @Test
+    @DisplayName("트랜잭션 안에서 저장된 거래는 커밋된 뒤에만 합산된다")
+    void addAfterCommit() {
+        //given
+        TransactionRollup transactionRollup = new TransactionRollup(true, new SimpleMeterRegistry());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transactionRollup.add(transaction(USE, S, 1000L, DAY.atTime(1, 0)));
+
+            //when
+            Map<RollupKey, RollupDelta> beforeCommit = transactionRollup.drain();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            //then
+            assertTrue(beforeCommit.isEmpty());
+            assertEquals(Map.of(new RollupKey(0, 7L, 3L, DAY), new RollupDelta(1000L, 0L, 0)), transactionRollup.drain());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("쓰지 못한 합계는 되돌려 다음에 함께 쓴다")
+    void restoreUnwritten() {
+        //given
+        TransactionRollup transactionRollup = new TransactionRollup(true, new SimpleMeterRegistry());
+        transactionRollup.add(transaction(USE, S, 1000L, DAY.atTime(1, 0)));
+        Map<RollupKey, RollupDelta> unwritten = transactionRollup.drain();
+        transactionRollup.add(transaction(USE, S, 300L, DAY.atTime(2, 0)));
+
+        //when
+        transactionRollup.restore(unwritten);
+
+        //then
+        assertEquals(Map.of(new RollupKey(0, 7L, 3L, DAY), new RollupDelta(1300L, 0L, 0)), transactionRollup.drain());
+    }
+
+    private Transaction transaction(TransactionType transactionType, TransactionResultType transactionResultType,
+                                    long amount, LocalDateTime transactedAt) {
+        return Transaction.builder()
+                .account(account)
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .amount(amount)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}
@@ -3,9 +3,11 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.engine.BalanceEngine;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.shard.ShardRouter;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import org.junit.jupiter.api.DisplayName;
@@ -14,10 +16,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -31,6 +41,13 @@ class AccountServiceTest {
     private AccountRepository accountRepository;
     @Mock
     private AccountUserRepository accountUserRepository;
+    @Spy
+    private ClockService clockService = new ClockService(Clock.systemDefaultZone(), Duration.ZERO);
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(1, TransactionOperations.withoutTransaction(), Runnable::run);
+
+    @Mock
+    private ObjectProvider<BalanceEngine> balanceEngine;
     @InjectMocks
     private AccountService accountService;
 
@@ -275,6 +292,39 @@ class AccountServiceTest {
 
     }
 
+    @Test
+    @DisplayName("잔액 엔진 사용 시 - 엔진이 잔액을 확인해 해지하고 롤백되면 되돌린다")
+    void deleteAccount_BalanceEngine() {
+        //given
+        AccountUser pobi = AccountUser.builder()
+                .id(12L).name("pobi").build();
+        BalanceEngine engine = mock(BalanceEngine.class);
+        given(balanceEngine.getIfAvailable()).willReturn(engine);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(pobi));
+        // the database balance may not include the engine's latest uses yet
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder().balance(100L)
+                        .accountUser(pobi)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .accountNumber("1000000012")
+                        .build()));
+
+        //when
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            accountService.deleteAccount(12L, "1000000012");
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        //then
+        verify(engine).unregisterAccount(12L, "1000000012");
+        verify(engine).restoreAccount("1000000012");
+    }
+
     @Test
     void successGetAccountByUserId() {
 
@@ -306,6 +356,52 @@ class AccountServiceTest {
         assertEquals(3000L,accountDtoList.get(2).getBalance());
 
     }
+    @Test
+    @DisplayName("여러 계좌를 한 번에 조회한다 - 요청 순서를 유지하고 없는 계좌는 제외한다")
+    void successGetAccountsByAccountNumbers() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L).name("pobi").build();
+        given(accountRepository.findByAccountNumberIn(anyList()))
+                .willReturn(List.of(
+                        Account.builder().accountUser(user).accountNumber("2222222222").balance(2000L).build(),
+                        Account.builder().accountUser(user).accountNumber("1111111111").balance(1000L).build()));
+
+        //when
+        List<AccountDto> accountDtoList = accountService.getAccountsByAccountNumbers(
+                List.of("1111111111", "3333333333", "2222222222", "1111111111"));
+
+        //then
+        verify(accountRepository, times(1)).findByAccountNumberIn(anyList());
+        assertEquals(2, accountDtoList.size());
+        assertEquals("1111111111", accountDtoList.get(0).getAccountNumber());
+        assertEquals(1000L, accountDtoList.get(0).getBalance());
+        assertEquals("2222222222", accountDtoList.get(1).getAccountNumber());
+    }
+
+    @Test
+    @DisplayName("잔액 엔진 사용 시 - 아직 저장되지 않은 엔진의 잔액으로 조회된다")
+    void getAccountsByAccountNumbers_BalanceEngine() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L).name("pobi").build();
+        BalanceEngine engine = mock(BalanceEngine.class);
+        given(balanceEngine.getIfAvailable()).willReturn(engine);
+        given(engine.findBalance("1000000000")).willReturn(OptionalLong.of(700L));
+        given(engine.findBalance("1000000001")).willReturn(OptionalLong.empty());
+        given(accountRepository.findByAccountNumberIn(anyList()))
+                .willReturn(List.of(
+                        Account.builder().accountUser(user).accountNumber("1000000000").balance(1000L).build(),
+                        Account.builder().accountUser(user).accountNumber("1000000001").balance(2000L).build()));
+
+        //when
+        List<AccountDto> accountDtoList = accountService.getAccountsByAccountNumbers(List.of("1000000000", "1000000001"));
+
+        //then
+        assertEquals(700L, accountDtoList.get(0).getBalance());
+        assertEquals(2000L, accountDtoList.get(1).getBalance());
+    }
+
     @Test
     void failedToGetAccountByUserId() {
 
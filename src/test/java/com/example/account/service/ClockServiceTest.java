@@ -0,0 +1,52 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class ClockServiceTest {
+    @Test
+    @DisplayName("해상도 안에서는 같은 시각을 돌려준다")
+    void shareTimeWithinResolution() {
+        //given
+        Clock clock = mock(Clock.class);
+        given(clock.getZone()).willReturn(ZoneOffset.UTC);
+        given(clock.instant()).willReturn(Instant.parse("2024-01-02T03:04:05Z"), Instant.parse("2024-01-02T03:04:06Z"));
+        ClockService clockService = new ClockService(clock, Duration.ofHours(1));
+
+        //when
+        LocalDateTime first = clockService.now();
+        LocalDateTime second = clockService.now();
+
+        //then
+        assertSame(first, second);
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), first);
+        assertEquals(LocalDateTime.of(2023, 1, 2, 3, 4, 5), clockService.yearAgo());
+    }
+
+    @Test
+    @DisplayName("해상도가 0이면 매번 시계를 읽는다")
+    void readClockWithoutResolution() {
+        //given
+        Clock clock = mock(Clock.class);
+        given(clock.getZone()).willReturn(ZoneOffset.UTC);
+        given(clock.instant()).willReturn(Instant.parse("2024-01-02T03:04:05Z"), Instant.parse("2024-01-02T03:04:06Z"));
+        ClockService clockService = new ClockService(clock, Duration.ZERO);
+
+        //when
+        LocalDateTime now = clockService.now();
+
+        //then
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 6), now);
+    }
+}
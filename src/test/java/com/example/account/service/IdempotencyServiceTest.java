@@ -0,0 +1,304 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.account.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IdempotencyServiceTest {
+    private static final String SCOPE = "useBalance:1:1000000000";
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RBucket<Object> bucket;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getBucket(anyString(), any(Codec.class)))
+                .willReturn(bucket);
+        given(bucket.trySet(any(), anyLong(), any()))
+                .willReturn(true);
+
+        idempotencyService = new IdempotencyService(redissonClient, objectMapper,
+                Duration.ofHours(1), Duration.ofSeconds(2), 100);
+    }
+
+    @Test
+    void replayStoredResponse() throws Throwable {
+        //given
+        AtomicInteger executed = new AtomicInteger();
+        IdempotencyService.Execution execution = () -> {
+            executed.incrementAndGet();
+            return response("transactionId");
+        };
+
+        //when
+        Object first = idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class, execution);
+        Object second = idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class, execution);
+
+        //then
+        assertEquals(1, executed.get());
+        assertSame(first, second);
+        verify(bucket, times(1)).set(startsWith("R:"), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("실패한 요청은 같은 에러로 재응답한다")
+    void replayStoredError() throws Throwable {
+        //given
+        AtomicInteger executed = new AtomicInteger();
+        IdempotencyService.Execution execution = () -> {
+            executed.incrementAndGet();
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        };
+
+        //when
+        AccountException first = assertThrows(AccountException.class,
+                () -> idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class, execution));
+        AccountException second = assertThrows(AccountException.class,
+                () -> idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class, execution));
+
+        //then
+        assertEquals(1, executed.get());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, first.getErrorCode());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, second.getErrorCode());
+        verify(bucket, times(1)).set(eq("E:" + fingerprint(request(1000L)) + ":AMOUNT_EXCEED_BALANCE"), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("동시에 들어온 중복 요청은 원 요청의 결과를 기다린다")
+    void concurrentDuplicateWaitsForOriginal() throws Exception {
+        //given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executed = new AtomicInteger();
+        IdempotencyService.Execution execution = () -> {
+            executed.incrementAndGet();
+            started.countDown();
+            release.await();
+            return response("transactionId");
+        };
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        //when
+        Future<Object> original = executorService.submit(() -> execute(request(1000L), execution));
+        started.await();
+        Future<Object> duplicate = executorService.submit(() -> execute(request(1000L), execution));
+        release.countDown();
+
+        //then
+        assertSame(original.get(), duplicate.get());
+        assertEquals(1, executed.get());
+        executorService.shutdown();
+    }
+
+    @Test
+    @DisplayName("다른 노드가 저장한 결과를 재응답한다")
+    void replayFromRedis() throws Throwable {
+        //given
+        given(bucket.trySet(any(), anyLong(), any()))
+                .willReturn(false);
+        given(bucket.get())
+                .willReturn("R:" + fingerprint(request(1000L)) + ":{\"accountNumber\":\"1000000000\",\"transactionResult\":\"S\",\"transactionId\":\"remote\",\"amount\":1000}");
+
+        //when
+        Object replayed = idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class,
+                () -> fail("must not execute"));
+
+        //then
+        assertEquals("remote", ((UseBalance.Response) replayed).getTransactionId());
+        assertEquals(1000L, ((UseBalance.Response) replayed).getAmount());
+    }
+
+    @Test
+    @DisplayName("예상하지 못한 에러는 저장하지 않는다")
+    void unexpectedErrorIsNotStored() throws Throwable {
+        //given
+        AtomicInteger executed = new AtomicInteger();
+
+        //when
+        assertThrows(IllegalStateException.class,
+                () -> idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class, () -> {
+                    executed.incrementAndGet();
+                    throw new IllegalStateException();
+                }));
+        idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class, () -> {
+            executed.incrementAndGet();
+            return response("transactionId");
+        });
+
+        //then
+        assertEquals(2, executed.get());
+        verify(bucket, times(1)).compareAndSet("P:" + fingerprint(request(1000L)), null);
+    }
+
+    @Test
+    @DisplayName("같은 키라도 사용자와 계좌가 다르면 별개의 요청이다")
+    void keyScopedByOwner() throws Throwable {
+        //given
+        AtomicInteger executed = new AtomicInteger();
+        IdempotencyService.Execution execution = () -> response("transactionId" + executed.incrementAndGet());
+
+        //when
+        Object first = idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class, execution);
+        Object second = idempotencyService.execute("useBalance:2:1000000001", "key",
+                new UseBalance.Request(2L, "1000000001", 1000L), UseBalance.Response.class, execution);
+
+        //then
+        assertEquals(2, executed.get());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    @DisplayName("같은 키로 다른 요청이 들어오면 거절한다")
+    void rejectReusedKey() throws Throwable {
+        //given
+        idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class,
+                () -> response("transactionId"));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyService.execute(SCOPE, "key", request(2000L), UseBalance.Response.class,
+                        () -> fail("must not execute")));
+
+        //then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("다른 노드에서 실행 중인 키에 다른 요청이 들어오면 거절한다")
+    void rejectReusedKeyWhilePending() throws Throwable {
+        //given
+        given(bucket.trySet(any(), anyLong(), any()))
+                .willReturn(false);
+        given(bucket.get())
+                .willReturn("P:" + fingerprint(request(1000L)));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyService.execute(SCOPE, "key", request(2000L), UseBalance.Response.class,
+                        () -> fail("must not execute")));
+
+        //then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("실행 중인 키는 대기 시간과 계좌 락 lease 만큼만 점유하고, 결과는 TTL 동안 저장한다")
+    void pendingKeyIsLeased() throws Throwable {
+        //when
+        idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class,
+                () -> response("transactionId"));
+
+        //then
+        verify(bucket).trySet("P:" + fingerprint(request(1000L)),
+                Duration.ofSeconds(2).plus(LockService.LEASE).toMillis(), TimeUnit.MILLISECONDS);
+        verify(bucket).set(startsWith("R:"), eq(Duration.ofHours(1).toMillis()), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @DisplayName("재시도 가능한 에러는 저장하지 않고 키를 놓아준다")
+    void retryableErrorIsNotStored() throws Throwable {
+        //given
+        AtomicInteger executed = new AtomicInteger();
+        IdempotencyService.Execution execution = () -> {
+            executed.incrementAndGet();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        };
+
+        //when
+        assertThrows(AccountException.class,
+                () -> idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class, execution));
+        assertThrows(AccountException.class,
+                () -> idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class, execution));
+
+        //then
+        assertEquals(2, executed.get());
+        verify(bucket, never()).set(any(), anyLong(), any());
+        verify(bucket, atLeastOnce()).compareAndSet("P:" + fingerprint(request(1000L)), null);
+    }
+
+    @Test
+    @DisplayName("다른 노드가 결과 없이 키를 놓으면 다시 점유한 뒤 실행한다")
+    void reclaimReleasedKey() throws Throwable {
+        //given
+        given(bucket.trySet(any(), anyLong(), any()))
+                .willReturn(false, true);
+        given(bucket.get())
+                .willReturn(null);
+
+        //when
+        Object result = idempotencyService.execute(SCOPE, "key", request(1000L), UseBalance.Response.class,
+                () -> response("transactionId"));
+
+        //then
+        assertEquals("transactionId", ((UseBalance.Response) result).getTransactionId());
+        verify(bucket, times(2)).trySet(any(), anyLong(), any());
+    }
+
+    private Object execute(UseBalance.Request request, IdempotencyService.Execution execution) throws Exception {
+        try {
+            return idempotencyService.execute(SCOPE, "key", request, UseBalance.Response.class, execution);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static UseBalance.Request request(long amount) {
+        return new UseBalance.Request(1L, "1000000000", amount);
+    }
+
+    private String fingerprint(Object request) throws Exception {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request)));
+    }
+
+    private static UseBalance.Response response(String transactionId) {
+        return UseBalance.Response.builder()
+                .accountNumber("1000000000")
+                .transactionResult(S)
+                .transactionId(transactionId)
+                .amount(1000L)
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.account.service;
+
+import com.example.account.type.LockMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.RedissonRedLock;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class LockRouterTest {
+    @Test
+    @DisplayName("락 키를 노드들에 고르게 나눈다")
+    void spreadKeysOverNodes() {
+        //given
+        Map<String, RedissonClient> nodes = nodes(3);
+        LockRouter lockRouter = new LockRouter(LockMode.SHARDED, nodes);
+
+        //when
+        Map<RedissonClient, Integer> keysPerNode = new HashMap<>();
+        for (int i = 0; i < 30_000; i++) {
+            keysPerNode.merge(lockRouter.nodeFor("ACLK:" + (1_000_000_000 + i)), 1, Integer::sum);
+        }
+
+        //then
+        assertEquals(3, keysPerNode.size());
+        keysPerNode.values().forEach(keys -> assertTrue(keys > 8_000 && keys < 12_000, "keys: " + keys));
+    }
+
+    @Test
+    @DisplayName("노드를 추가하면 새 노드로 가는 키만 옮겨진다")
+    void moveKeysOnlyToAddedNode() {
+        //given
+        Map<String, RedissonClient> nodes = nodes(3);
+        LockRouter before = new LockRouter(LockMode.SHARDED, nodes);
+        Map<String, RedissonClient> added = new LinkedHashMap<>(nodes);
+        added.put("127.0.0.1:6384", mock(RedissonClient.class));
+
+        //when
+        LockRouter after = new LockRouter(LockMode.SHARDED, added);
+
+        //then
+        int moved = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String key = "ACLK:" + (1_000_000_000 + i);
+            if (before.nodeFor(key) != after.nodeFor(key)) {
+                assertSame(added.get("127.0.0.1:6384"), after.nodeFor(key));
+                moved++;
+            }
+        }
+        assertTrue(moved > 1_500 && moved < 3_500, "moved: " + moved);
+    }
+
+    @Test
+    @DisplayName("쿼럼 모드는 모든 노드의 락을 묶는다")
+    void quorumLockOnEveryNode() {
+        //given
+        Map<String, RedissonClient> nodes = nodes(3);
+        nodes.values().forEach(node -> given(node.getLock(anyString())).willReturn(mock(RLock.class)));
+        LockRouter lockRouter = new LockRouter(LockMode.QUORUM, nodes);
+
+        //when
+        RLock lock = lockRouter.getLock("ACLK:1000000000");
+
+        //then
+        assertInstanceOf(RedissonRedLock.class, lock);
+        nodes.values().forEach(node -> verify(node).getLock("ACLK:1000000000"));
+    }
+
+    @Test
+    @DisplayName("노드가 없으면 생성할 수 없다")
+    void failWithoutNodes() {
+        //given
+        //when
+        //then
+        assertThrows(IllegalArgumentException.class, () -> new LockRouter(LockMode.SHARDED, Map.of()));
+    }
+
+    private static Map<String, RedissonClient> nodes(int count) {
+        Map<String, RedissonClient> nodes = new LinkedHashMap<>();
+        for (int i = 1; i <= count; i++) {
+            nodes.put("127.0.0.1:638" + i, mock(RedissonClient.class));
+        }
+        return nodes;
+    }
+}
@@ -2,33 +2,42 @@ package com.example.account.service;
 
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class LockServiceTest {
     @Mock
-    private RedissonClient redissonClient;
+    private LockRouter lockRouter;
 
     @Mock
     private RLock rLock;
 
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private LockService lockService;
 
     @Test
     void successGetLock() throws InterruptedException {
         //given
-        given(redissonClient.getLock(anyString()))
+        given(lockRouter.getLock(anyString()))
                 .willReturn(rLock);
         given(rLock.tryLock(anyLong(), anyLong(), any()))
                 .willReturn(true);
@@ -40,7 +49,7 @@ class LockServiceTest {
     @Test
     void failGetLock() throws InterruptedException {
         //given
-        given(redissonClient.getLock(anyString()))
+        given(lockRouter.getLock(anyString()))
                 .willReturn(rLock);
         given(rLock.tryLock(anyLong(), anyLong(), any()))
                 .willReturn(false);
@@ -53,4 +62,38 @@ class LockServiceTest {
         assertEquals(exception.getErrorCode(), ErrorCode.ACCOUNT_TRANSACTION_LOCK);
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("배치용 락은 고정 lease 없이 watchdog이 연장한다")
+    void lockForBatchWithoutLease() throws InterruptedException {
+        //given
+        given(lockRouter.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        //when
+        lockService.lockForBatch("123");
+
+        //then
+        verify(rLock).tryLock(1, -1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("락 대기 시간과 보유 시간을 기록한다")
+    void recordLockWaitAndHold() throws InterruptedException {
+        //given
+        given(lockRouter.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        //when
+        lockService.lock("123");
+        lockService.unlock("123");
+
+        //then
+        assertEquals(1L, meterRegistry.get("account.lock.wait").tag("result", "acquired").timer().count());
+        assertEquals(1L, meterRegistry.get("account.lock.hold").timer().count());
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.engine.BalanceEngine;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchServiceTest {
+    @Mock
+    private TransactionService transactionService;
+    @Mock
+    private LockService lockService;
+    @Mock
+    private ObjectProvider<BalanceEngine> balanceEngine;
+
+    private TransactionBatchService transactionBatchService;
+
+    @BeforeEach
+    void setUp() {
+        transactionBatchService = new TransactionBatchService(transactionService, lockService,
+                Executors.newFixedThreadPool(2), balanceEngine);
+    }
+
+    @Test
+    @DisplayName("계좌별로 한 번만 잠그고 요청 순서대로 결과를 돌려준다")
+    void useBalances_GroupedByAccount() {
+        //given
+        given(transactionService.useBalances(anyString(), anyList()))
+                .willAnswer(TransactionBatchServiceTest::applyAll);
+
+        //when
+        List<TransactionDto> transactionDtos = transactionBatchService.useBalances(List.of(
+                request("1000000000", 100L),
+                request("1000000001", 200L),
+                request("1000000000", 300L)));
+
+        //then
+        verify(lockService, times(1)).lockForBatch("1000000000");
+        verify(lockService, times(1)).unlock("1000000000");
+        verify(lockService, times(1)).lockForBatch("1000000001");
+        assertEquals(List.of(100L, 200L, 300L), transactionDtos.stream().map(TransactionDto::getAmount).toList());
+        assertEquals(S, transactionDtos.get(1).getTransactionResult());
+    }
+
+    @Test
+    @DisplayName("잠금 실패 - 해당 계좌의 요청만 실패한다")
+    void useBalances_LockFailed() {
+        //given
+        lenient().doThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .when(lockService).lockForBatch("1000000000");
+        given(transactionService.useBalances(eq("1000000001"), anyList()))
+                .willAnswer(TransactionBatchServiceTest::applyAll);
+
+        //when
+        List<TransactionDto> transactionDtos = transactionBatchService.useBalances(List.of(
+                request("1000000000", 100L),
+                request("1000000001", 200L)));
+
+        //then
+        assertEquals(F, transactionDtos.get(0).getTransactionResult());
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, transactionDtos.get(0).getErrorCode());
+        assertEquals(S, transactionDtos.get(1).getTransactionResult());
+        verify(lockService, never()).unlock("1000000000");
+    }
+
+    @Test
+    @DisplayName("해당 계좌 없음 - 모든 요청이 실패한다")
+    void useBalances_AccountNotFound() {
+        //given
+        given(transactionService.useBalances(eq("1000000000"), anyList()))
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        //when
+        List<TransactionDto> transactionDtos = transactionBatchService.useBalances(List.of(
+                request("1000000000", 100L),
+                request("1000000000", 200L)));
+
+        //then
+        assertEquals(2, transactionDtos.size());
+        transactionDtos.forEach(transactionDto ->
+                assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, transactionDto.getErrorCode()));
+        verify(lockService, times(1)).unlock("1000000000");
+    }
+
+    @Test
+    @DisplayName("잠금 해제 실패 - 커밋된 결과를 그대로 돌려준다")
+    void useBalances_UnlockFailed() {
+        //given
+        given(transactionService.useBalances(anyString(), anyList()))
+                .willAnswer(TransactionBatchServiceTest::applyAll);
+        doThrow(new IllegalMonitorStateException())
+                .when(lockService).unlock("1000000000");
+
+        //when
+        List<TransactionDto> transactionDtos = transactionBatchService.useBalances(List.of(
+                request("1000000000", 100L),
+                request("1000000000", 200L)));
+
+        //then
+        transactionDtos.forEach(transactionDto -> {
+            assertEquals(S, transactionDto.getTransactionResult());
+            assertNull(transactionDto.getErrorCode());
+        });
+    }
+
+    @Test
+    @DisplayName("잔액 엔진 사용 시 - 잠금 없이 엔진으로 요청하고 요청별로 결과를 돌려준다")
+    void useBalances_BalanceEngine() {
+        //given
+        BalanceEngine engine = mock(BalanceEngine.class);
+        given(balanceEngine.getIfAvailable()).willReturn(engine);
+        given(engine.submitUse(12L, "1000000000", 100L))
+                .willReturn(CompletableFuture.completedFuture(TransactionDto.builder()
+                        .accountNumber("1000000000").transactionResult(S).amount(100L).build()));
+        given(engine.submitUse(12L, "1000000001", 200L))
+                .willReturn(CompletableFuture.failedFuture(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE)));
+
+        //when
+        List<TransactionDto> transactionDtos = transactionBatchService.useBalances(List.of(
+                request("1000000000", 100L),
+                request("1000000001", 200L)));
+
+        //then
+        assertEquals(S, transactionDtos.get(0).getTransactionResult());
+        assertEquals(F, transactionDtos.get(1).getTransactionResult());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, transactionDtos.get(1).getErrorCode());
+        verify(lockService, never()).lockForBatch(anyString());
+    }
+
+    private static UseBalance.Request request(String accountNumber, Long amount) {
+        return new UseBalance.Request(12L, accountNumber, amount);
+    }
+
+    private static List<TransactionDto> applyAll(InvocationOnMock invocation) {
+        List<UseBalance.Request> requests = invocation.getArgument(1);
+        return requests.stream()
+                .map(request -> TransactionDto.builder()
+                        .accountNumber(request.getAccountNumber())
+                        .transactionResult(S)
+                        .amount(request.getAmount())
+                        .build())
+                .toList();
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.account.service;
 
+import com.example.account.archive.TransactionArchive;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.engine.BalanceEngine;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
+import com.example.account.rollup.TransactionRollup;
+import com.example.account.shard.ShardRouter;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionType;
@@ -17,18 +22,27 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.USE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -40,6 +54,17 @@ class TransactionServiceTest {
     private AccountRepository accountRepository;
     @Mock
     AccountUserRepository accountUserRepository;
+    @Mock
+    private TransactionArchive transactionArchive;
+    @Mock
+    private TransactionRollup transactionRollup;
+    @Spy
+    private ClockService clockService = new ClockService(Clock.systemDefaultZone(), Duration.ZERO);
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(1, TransactionOperations.withoutTransaction(), Runnable::run);
+    @Mock
+    private ObjectProvider<BalanceEngine> balanceEngine;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -87,7 +112,72 @@ class TransactionServiceTest {
         assertEquals(USE, transactionDto.getTransactionType());
         assertEquals(S, transactionDto.getTransactionResult());
         assertEquals(1000L, transactionDto.getAmount());
+        verify(transactionRollup).add(any(Transaction.class));
+
+    }
+
+    @Test
+    @DisplayName("일괄 사용 - 실패한 요청은 실패 거래로 남고 나머지는 계속 처리된다")
+    void useBalances() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L).name("pobi").build();
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(1000L)
+                .accountNumber("1000000000").build();
+
+        given(accountUserRepository.findById(12L))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        List<TransactionDto> transactionDtos = transactionService.useBalances("1000000000", List.of(
+                new UseBalance.Request(12L, "1000000000", 600L),
+                new UseBalance.Request(12L, "1000000000", 600L),
+                new UseBalance.Request(12L, "1000000000", 400L)));
 
+        //then
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        verify(accountUserRepository, times(1)).findById(12L);
+        assertEquals(3, captor.getValue().size());
+
+        assertEquals(S, transactionDtos.get(0).getTransactionResult());
+        assertEquals(400L, transactionDtos.get(0).getBalanceSnapShot());
+        assertEquals(F, transactionDtos.get(1).getTransactionResult());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, transactionDtos.get(1).getErrorCode());
+        assertEquals(S, transactionDtos.get(2).getTransactionResult());
+        assertEquals(0L, transactionDtos.get(2).getBalanceSnapShot());
+        assertEquals(0L, account.getBalance());
+        verify(transactionRollup, times(3)).add(any(Transaction.class));
+    }
+
+    @Test
+    @DisplayName("여러 거래를 한 번에 조회한다 - 없는 거래는 제외한다")
+    void successQueryTransactions() {
+        //given
+        Account account = Account.builder()
+                .accountNumber("1000000000").build();
+        given(transactionRepository.findByTransactionIdIn(anyList()))
+                .willReturn(List.of(Transaction.builder()
+                        .account(account)
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .transactionId("transactionId")
+                        .amount(1000L)
+                        .build()));
+
+        //when
+        List<TransactionDto> transactionDtos = transactionService.queryTransactions(List.of("unknown", "transactionId"));
+
+        //then
+        verify(transactionRepository, times(1)).findByTransactionIdIn(anyList());
+        assertEquals(1, transactionDtos.size());
+        assertEquals("transactionId", transactionDtos.get(0).getTransactionId());
+        assertEquals("1000000000", transactionDtos.get(0).getAccountNumber());
     }
 
     @Test
@@ -303,6 +393,8 @@ class TransactionServiceTest {
 
         assertEquals(200L, captor.getValue().getAmount());
         assertEquals(10000L + 200L, captor.getValue().getBalanceSnapShot());
+        assertEquals("transactionIdForCancel", captor.getValue().getOriginalTransactionId());
+        assertNotNull(transaction.getCanceledAt());
 
         assertEquals(10000L, transactionDto.getBalanceSnapShot());
         assertEquals(TransactionType.CANCEL, transactionDto.getTransactionType());
@@ -312,6 +404,43 @@ class TransactionServiceTest {
     }
 
 
+    @Test
+    @DisplayName("이미 취소된 거래 - 잔액 사용 취소 실패")
+    void cancelBalance_TransactionAlreadyCanceled() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L).name("pobi").build();
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000000").build();
+        Transaction transaction = Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId("transactionIdForCancel")
+                .amount(200L)
+                .balanceSnapShot(9800L)
+                .transactedAt(LocalDateTime.now())
+                .canceledAt(LocalDateTime.now())
+                .build();
+
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(transaction));
+
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance("transactionIdForCancel", "1000000000", 200L));
+
+        //then
+        assertEquals(ErrorCode.TRANSACTION_ALREADY_CANCELED, accountException.getErrorCode());
+        assertEquals(10000L, account.getBalance());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
     @Test
     @DisplayName("해당 계좌 없음 - 잔액 사용 취소 실패")
     void cancelBalance_AccountNotFound() {
@@ -358,6 +487,26 @@ class TransactionServiceTest {
 
     }
 
+    @Test
+    @DisplayName("보관된 거래 - 잔액 사용 취소 실패")
+    void cancelBalance_ArchivedTransaction() {
+        //given
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.empty());
+        given(transactionArchive.find(anyString()))
+                .willReturn(Optional.of(TransactionDto.builder()
+                        .transactionId("transactionId")
+                        .accountNumber("1000000000")
+                        .build()));
+
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance("transactionId", "1000000000", 1000L));
+
+        //then
+        assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, accountException.getErrorCode());
+    }
+
     @Test
     @DisplayName("거래와 계좌가 매칭 실패 - 잔액 사용 취소 실패")
     void cancelBalance_TransactionAccountUnMatched() {
@@ -524,6 +673,90 @@ class TransactionServiceTest {
         assertEquals("transactionId",transactionDto.getTransactionId());
     }
 
+    @Test
+    @DisplayName("보관된 거래도 조회된다")
+    void successQueryArchivedTransaction() {
+        //given
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.empty());
+        given(transactionArchive.find("transactionId"))
+                .willReturn(Optional.of(TransactionDto.builder()
+                        .transactionId("transactionId")
+                        .accountNumber("1000000000")
+                        .transactionType(USE)
+                        .transactionResult(S)
+                        .amount(200L)
+                        .build()));
+
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction("transactionId");
+
+        //then
+        assertEquals("transactionId", transactionDto.getTransactionId());
+        assertEquals("1000000000", transactionDto.getAccountNumber());
+        assertEquals(200L, transactionDto.getAmount());
+    }
+
+    @Test
+    @DisplayName("잔액 엔진이 아직 저장하지 않은 거래도 바로 조회된다")
+    void queryTransactionNotPersistedByEngine() {
+        //given
+        BalanceEngine engine = mock(BalanceEngine.class);
+        given(balanceEngine.getIfAvailable()).willReturn(engine);
+        TransactionDto unpersisted = TransactionDto.builder()
+                .transactionId("unpersisted")
+                .accountNumber("1000000000")
+                .transactionType(USE)
+                .transactionResult(S)
+                .amount(200L)
+                .build();
+        given(engine.findUnpersisted("unpersisted")).willReturn(Optional.of(unpersisted));
+        given(transactionRepository.findByTransactionIdIn(List.of("persisted")))
+                .willReturn(List.of(Transaction.builder()
+                        .account(Account.builder().accountNumber("1000000000").build())
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .transactionId("persisted")
+                        .amount(100L)
+                        .build()));
+
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction("unpersisted");
+        List<TransactionDto> transactionDtos = transactionService.queryTransactions(List.of("unpersisted", "persisted"));
+
+        //then
+        verify(transactionRepository, never()).findByTransactionId(anyString());
+        assertEquals(unpersisted, transactionDto);
+        assertEquals(List.of("unpersisted", "persisted"),
+                transactionDtos.stream().map(TransactionDto::getTransactionId).toList());
+    }
+
+    @Test
+    @DisplayName("샤드가 담기지 않은 거래 아이디는 모든 샤드에서 찾는다")
+    void queryTransactionWithoutShardOnEveryShard() {
+        //given
+        TransactionService shardedService = new TransactionService(transactionRepository, accountUserRepository,
+                accountRepository, clockService,
+                new ShardRouter(2, TransactionOperations.withoutTransaction(), Runnable::run),
+                transactionArchive, transactionRollup, balanceEngine);
+        given(transactionRepository.findByTransactionId("01legacy"))
+                .willReturn(Optional.empty())
+                .willReturn(Optional.of(Transaction.builder()
+                        .account(Account.builder().accountNumber("1000000001").build())
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .transactionId("01legacy")
+                        .amount(200L)
+                        .build()));
+
+        //when
+        TransactionDto transactionDto = shardedService.queryTransaction("01legacy");
+
+        //then
+        verify(transactionRepository, times(2)).findByTransactionId("01legacy");
+        assertEquals("1000000001", transactionDto.getAccountNumber());
+    }
+
     @Test
     @DisplayName("원거래 없음 - 거래 조회 실패")
     void queryTransaction_TransactionNotFound() {
@@ -0,0 +1,111 @@
+package com.example.account.shard;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRouterTest {
+    private final ShardRouter shardRouter = new ShardRouter(3, TransactionOperations.withoutTransaction(), Runnable::run);
+
+    @Test
+    @DisplayName("계좌번호로 샤드를 정하고 새 계좌번호는 같은 샤드에 남는다")
+    void accountNumbersStayOnTheirShard() {
+        //given
+        //when
+        String first = shardRouter.nextAccountNumber(2, null);
+        String second = shardRouter.nextAccountNumber(2, first);
+
+        //then
+        assertEquals("1000000001", first);
+        assertEquals("1000000004", second);
+        assertEquals(2, shardRouter.shardOfAccount(first));
+        assertEquals(2, shardRouter.shardOfAccount(second));
+        assertEquals(0, shardRouter.shardOfAccount("abcdefghij"));
+    }
+
+    @Test
+    @DisplayName("거래 아이디에 샤드가 담긴다")
+    void transactionIdCarriesShard() {
+        //given
+        //when
+        String transactionId = shardRouter.newTransactionId(2);
+
+        //then
+        assertEquals(32, transactionId.length());
+        assertTrue(transactionId.startsWith("02"));
+        assertEquals(2, shardRouter.shardOfTransaction(transactionId));
+        assertEquals(List.of(2), shardRouter.shardsOfTransaction(transactionId));
+        assertEquals(ShardRouter.UNKNOWN_SHARD, shardRouter.shardOfTransaction("ff" + transactionId.substring(2)));
+        assertEquals(ShardRouter.UNKNOWN_SHARD, shardRouter.shardOfTransaction("x"));
+    }
+
+    @Test
+    @DisplayName("샤드가 담기지 않은 거래 아이디는 모든 샤드에서 찾는다")
+    void transactionIdWithoutShardIsOnAnyShard() {
+        //given
+        // a random id from before sharding that happens to start with a shard
+        String unsharded = "01" + UUID.randomUUID().toString().replace("-", "").substring(2);
+        String sharded = shardRouter.newTransactionId(1);
+
+        //when
+        Map<Integer, List<String>> transactionIdsByShard = shardRouter.groupTransactionIdsByShard(List.of(sharded, unsharded));
+
+        //then
+        assertEquals(ShardRouter.UNKNOWN_SHARD, shardRouter.shardOfTransaction(unsharded));
+        assertEquals(List.of(0, 1, 2), shardRouter.shardsOfTransaction(unsharded));
+        assertEquals(Map.of(0, List.of(unsharded), 1, List.of(sharded, unsharded), 2, List.of(unsharded)),
+                transactionIdsByShard);
+    }
+
+    @Test
+    @DisplayName("샤드가 하나면 거래 아이디에 샤드를 담지 않는다")
+    void transactionIdWithoutShardWhenSingle() {
+        //given
+        ShardRouter singleRouter = new ShardRouter(1, TransactionOperations.withoutTransaction(), Runnable::run);
+
+        //when
+        List<String> transactionIds = IntStream.range(0, 64)
+                .mapToObj(i -> singleRouter.newTransactionId(0))
+                .toList();
+
+        //then
+        assertTrue(transactionIds.stream().anyMatch(transactionId -> !transactionId.startsWith("00")));
+        transactionIds.forEach(transactionId -> assertEquals(0, singleRouter.shardOfTransaction(transactionId)));
+    }
+
+    @Test
+    @DisplayName("새 계좌는 샤드를 돌아가며 배정된다")
+    void newAccountsGoRoundRobin() {
+        //given
+        //when
+        //then
+        assertEquals(List.of(0, 1, 2, 0), List.of(shardRouter.nextShardForNewAccount(), shardRouter.nextShardForNewAccount(),
+                shardRouter.nextShardForNewAccount(), shardRouter.nextShardForNewAccount()));
+    }
+
+    @Test
+    @DisplayName("여러 샤드를 병렬로 읽고 샤드 순서대로 합친다")
+    void readShardsInParallel() {
+        //given
+        ShardRouter parallelRouter = new ShardRouter(3, TransactionOperations.withoutTransaction(),
+                Executors.newFixedThreadPool(3));
+        Map<Integer, List<String>> keysByShard = parallelRouter.groupByShard(
+                List.of("1000000001", "1000000002", "1000000004", "1000000000"), parallelRouter::shardOfAccount);
+
+        //when
+        List<String> read = parallelRouter.readFromShards(keysByShard.keySet(),
+                shard -> keysByShard.get(shard).stream().map(key -> key + "@" + ShardContext.current()).toList());
+
+        //then
+        assertEquals(List.of("1000000002@0", "1000000000@1", "1000000001@2", "1000000004@2"), read);
+        assertEquals(0, ShardContext.current());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.account.statement;
+
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class StatementWriterTest {
+    private static final YearMonth MONTH = YearMonth.of(2026, 9);
+    private static final LocalDateTime MONTH_START = LocalDateTime.of(2026, 9, 1, 0, 0);
+    private static final LocalDateTime MONTH_END = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private StatementWriter statementWriter;
+
+    @BeforeEach
+    void setUp() {
+        statementWriter = new StatementWriter(accountRepository, transactionRepository, 2);
+    }
+
+    @Test
+    @DisplayName("기초 잔액, 월중 거래, 기말 잔액 순으로 명세서를 쓴다")
+    void writeStatements() {
+        //given
+        given(accountRepository.findStatementAccountsByIdRange(0L, 10L, MONTH_END))
+                .willReturn(List.of(
+                        new StatementAccount(1L, "1000000001", 700L),
+                        new StatementAccount(3L, "1000000003", 1000L)));
+        // account 1 used 500 and canceled 200 in the month, then used 100 after it
+        given(transactionRepository.findBalanceChanges(0L, 10L, MONTH_START, MONTH_END))
+                .willReturn(List.of(new BalanceChange(1L, -400L, -100L)));
+        StatementLine use = line(11L, 1L, 1, "use", USE, S, 500L, 500L);
+        StatementLine failed = line(12L, 1L, 2, "failed", USE, F, 5000L, 500L);
+        StatementLine cancel = line(13L, 1L, 3, "cancel", CANCEL, S, 200L, 800L);
+        given(transactionRepository.findStatementLinesAfter(10L, MONTH_START, MONTH_END,
+                -1L, MONTH_START, 0L, Limit.of(2)))
+                .willReturn(List.of(use, failed));
+        given(transactionRepository.findStatementLinesAfter(10L, MONTH_START, MONTH_END,
+                1L, failed.transactedAt(), 12L, Limit.of(2)))
+                .willReturn(List.of(cancel));
+        StringWriter out = new StringWriter();
+
+        //when
+        int statements = statementWriter.write(0L, 10L, MONTH, out);
+
+        //then
+        assertEquals(2, statements);
+        assertEquals("""
+                1000000001,OPENING,2026-09-01T00:00,,,,,1100
+                1000000001,TRANSACTION,2026-09-01T01:00,use,USE,S,500,500
+                1000000001,TRANSACTION,2026-09-02T01:00,failed,USE,F,5000,500
+                1000000001,TRANSACTION,2026-09-03T01:00,cancel,CANCEL,S,200,800
+                1000000001,CLOSING,2026-10-01T00:00,,,,,800
+                1000000003,OPENING,2026-09-01T00:00,,,,,1000
+                1000000003,CLOSING,2026-10-01T00:00,,,,,1000
+                """, out.toString());
+    }
+
+    @Test
+    @DisplayName("명세서 대상이 아닌 계좌의 거래는 건너뛴다")
+    void skipAccountsWithoutStatement() {
+        //given
+        given(accountRepository.findStatementAccountsByIdRange(0L, 10L, MONTH_END))
+                .willReturn(List.of(new StatementAccount(3L, "1000000003", 900L)));
+        given(transactionRepository.findBalanceChanges(0L, 10L, MONTH_START, MONTH_END))
+                .willReturn(List.of(new BalanceChange(2L, -50L, 0L), new BalanceChange(3L, -100L, 0L)));
+        StatementLine unregistered = line(11L, 2L, 1, "unregistered", USE, S, 50L, 0L);
+        StatementLine use = line(12L, 3L, 1, "use", USE, S, 100L, 900L);
+        given(transactionRepository.findStatementLinesAfter(10L, MONTH_START, MONTH_END,
+                -1L, MONTH_START, 0L, Limit.of(2)))
+                .willReturn(List.of(unregistered, use));
+        given(transactionRepository.findStatementLinesAfter(10L, MONTH_START, MONTH_END,
+                3L, use.transactedAt(), 12L, Limit.of(2)))
+                .willReturn(List.of());
+        StringWriter out = new StringWriter();
+
+        //when
+        int statements = statementWriter.write(0L, 10L, MONTH, out);
+
+        //then
+        assertEquals(1, statements);
+        assertEquals("""
+                1000000003,OPENING,2026-09-01T00:00,,,,,1000
+                1000000003,TRANSACTION,2026-09-01T01:00,use,USE,S,100,900
+                1000000003,CLOSING,2026-10-01T00:00,,,,,900
+                """, out.toString());
+    }
+
+    private static StatementLine line(Long id, Long accountId, int day, String transactionId,
+                                      TransactionType transactionType,
+                                      TransactionResultType transactionResultType,
+                                      long amount, long balanceSnapShot) {
+        return new StatementLine(id, accountId, LocalDateTime.of(2026, 9, day, 1, 0), transactionId,
+                transactionType, transactionResultType, amount, balanceSnapShot);
+    }
+}